@@ -0,0 +1,53 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.support.BeanColumnUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BeanColumnUtil 命名转换 (缓存命中路径)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanColumnUtilBenchmark {
+
+    private static final String[] COLUMNS = {"id", "province_id", "city_name", "description", "gmt_create", "gmt_modified"};
+    private static final String[] PROPERTIES = {"id", "provinceId", "cityName", "description", "gmtCreate", "gmtModified"};
+
+    private Map<String, Object> row;
+
+    @Setup
+    public void setup() {
+        row = new LinkedHashMap<>();
+        for (String column : COLUMNS) {
+            row.put(column, column.length());
+        }
+    }
+
+    @Benchmark
+    public void toCamelCase(Blackhole blackhole) {
+        for (String column : COLUMNS) {
+            blackhole.consume(BeanColumnUtil.toCamelCase(column));
+        }
+    }
+
+    @Benchmark
+    public void toSnakeCase(Blackhole blackhole) {
+        for (String property : PROPERTIES) {
+            blackhole.consume(BeanColumnUtil.toSnakeCase(property));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> mapKeysToCamel() {
+        return BeanColumnUtil.mapKeysToCamel(row);
+    }
+}
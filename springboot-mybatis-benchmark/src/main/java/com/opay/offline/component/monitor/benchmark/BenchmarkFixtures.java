@@ -0,0 +1,161 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.CaptureEventPool;
+import com.opay.offline.component.monitor.core.CaptureMetrics;
+import com.opay.offline.component.monitor.core.CaptureSampler;
+import com.opay.offline.component.monitor.core.MonitorExecutorService;
+import com.opay.offline.component.monitor.core.RepeatedQueryDetector;
+import com.opay.offline.component.monitor.core.ResultMemoryBudget;
+import com.opay.offline.component.monitor.core.SlowSqlExplainer;
+import com.opay.offline.component.monitor.core.SqlCaptureDispatcher;
+import com.opay.offline.component.monitor.core.SqlDigestAggregator;
+import com.opay.offline.component.monitor.handler.SqlCaptureHandler;
+import com.opay.offline.component.monitor.interceptor.SqlCaptureInterceptor;
+import com.opay.org.spring.springboot.entity.City;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 基准测试公共数据：加载 springboot-mybatis 中的 CityRepository.xml，保证与线上语句一致
+ */
+final class BenchmarkFixtures {
+
+    static final String MAPPER_RESOURCE = "repository/CityRepository.xml";
+    static final String NAMESPACE = "com.opay.org.spring.springboot.repository.CityRepository";
+    static final String BENCHMARK_MAPPER_RESOURCE = "benchmark/BenchmarkMapper.xml";
+    static final String BENCHMARK_NAMESPACE = "com.opay.offline.component.monitor.benchmark.BenchmarkMapper";
+    static final int SEED_ROWS = 100;
+
+    private BenchmarkFixtures() {
+    }
+
+    static Configuration newConfiguration() {
+        Configuration configuration = new Configuration();
+        loadMapper(configuration);
+        return configuration;
+    }
+
+    static void loadMapper(Configuration configuration) {
+        loadMapper(configuration, MAPPER_RESOURCE);
+        loadMapper(configuration, BENCHMARK_MAPPER_RESOURCE);
+    }
+
+    private static void loadMapper(Configuration configuration, String resource) {
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 基于内存 H2 (MySQL 兼容模式) 的 SqlSessionFactory，建表并写入 {@link #SEED_ROWS} 行
+     *
+     * @param interceptor 为 null 时不安装拦截器 (对照组)
+     */
+    static SqlSessionFactory newSqlSessionFactory(String database, SqlCaptureInterceptor interceptor) {
+        PooledDataSource dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        Configuration configuration = new Configuration(new Environment(database, new JdbcTransactionFactory(), dataSource));
+        // 关闭一级缓存，保证每次 query 都真正执行
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        loadMapper(configuration);
+        if (interceptor != null) {
+            configuration.addInterceptor(interceptor);
+        }
+        SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(configuration);
+        try (SqlSession session = factory.openSession(true);
+             Statement statement = session.getConnection().createStatement()) {
+            statement.execute("create table if not exists city (id bigint auto_increment primary key, "
+                    + "province_id bigint, city_name varchar(64), description varchar(255))");
+            statement.execute("delete from city");
+            for (City city : cities(SEED_ROWS)) {
+                session.insert(NAMESPACE + ".addCity", singletonParam("city", city));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("初始化 H2 失败", e);
+        }
+        return factory;
+    }
+
+    /**
+     * 按生产方式 (Spring 注入) 装配 SQL 监控组件，Handler 只计数
+     */
+    static AnnotationConfigApplicationContext newCaptureContext(LongAdder delivered) {
+        return newCaptureContext(delivered, properties -> {
+        });
+    }
+
+    /**
+     * @param customizer 在组件初始化前调整配置
+     */
+    static AnnotationConfigApplicationContext newCaptureContext(LongAdder delivered, Consumer<SqlCaptureProperties> customizer) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(SqlCaptureProperties.class, () -> {
+            SqlCaptureProperties properties = new SqlCaptureProperties();
+            customizer.accept(properties);
+            return properties;
+        });
+        context.registerBean(CaptureEventPool.class);
+        context.registerBean(MonitorExecutorService.class);
+        context.registerBean(CaptureSampler.class);
+        context.registerBean(ResultMemoryBudget.class);
+        context.registerBean(CaptureMetrics.class);
+        context.registerBean(SqlDigestAggregator.class);
+        context.registerBean(SlowSqlExplainer.class);
+        context.registerBean(RepeatedQueryDetector.class);
+        context.registerBean(SqlCaptureDispatcher.class);
+        context.registerBean(SqlCaptureInterceptor.class);
+        context.registerBean(SqlCaptureHandler.class, () -> info -> delivered.increment());
+        context.refresh();
+        return context;
+    }
+
+    static Map<String, Object> singletonParam(String name, Object value) {
+        Map<String, Object> param = new HashMap<>();
+        param.put(name, value);
+        return param;
+    }
+
+    static List<City> cities(int count) {
+        List<City> cities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            City city = new City();
+            city.setProvinceId((long) i);
+            city.setCityName("city-" + i);
+            city.setDescription("description of city " + i + ", it's a benchmark row");
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * addCityBatch 的参数对象 (与 MapperMethod 对 @Param("list") 的包装一致)
+     */
+    static Map<String, Object> batchParam(int rows) {
+        Map<String, Object> param = new HashMap<>();
+        param.put("list", cities(rows));
+        return param;
+    }
+}
@@ -0,0 +1,64 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.interceptor.SqlCaptureInterceptor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 捕获事件池：开启 / 关闭时单条查询的耗时与分配 (内存 H2)
+ * <p>
+ * 建议配合 -prof gc：gc.alloc.rate.norm 包含后台捕获线程的分配，反映每条语句带来的总的年轻代压力
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPoolBenchmark {
+
+    @Param({"false", "true"})
+    private boolean pooled;
+
+    private final LongAdder delivered = new LongAdder();
+    private AnnotationConfigApplicationContext captureContext;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Setup
+    public void setup() {
+        captureContext = BenchmarkFixtures.newCaptureContext(delivered, properties -> properties.setEventPoolEnabled(pooled));
+        sqlSessionFactory = BenchmarkFixtures.newSqlSessionFactory("event_pool_" + pooled,
+                captureContext.getBean(SqlCaptureInterceptor.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        captureContext.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        private SqlSession sqlSession;
+
+        @Setup
+        public void open(EventPoolBenchmark benchmark) {
+            sqlSession = benchmark.sqlSessionFactory.openSession(true);
+        }
+
+        @TearDown
+        public void close() {
+            sqlSession.close();
+        }
+    }
+
+    @Benchmark
+    public List<Object> query(Session session) {
+        return session.sqlSession.selectList(BenchmarkFixtures.NAMESPACE + ".findByName", "city-7");
+    }
+}
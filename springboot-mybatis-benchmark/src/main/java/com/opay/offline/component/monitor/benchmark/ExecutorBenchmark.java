@@ -0,0 +1,83 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.interceptor.SqlCaptureInterceptor;
+import com.opay.org.spring.springboot.entity.City;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单条语句在业务线程上的耗时：有 / 无 SqlCaptureInterceptor (内存 H2)
+ * <p>
+ * 差值即拦截器在业务线程上的开销；异步组装与 Handler 在后台线程执行，会占用部分 CPU，
+ * 建议在核数充足的机器上运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorBenchmark {
+
+    @Param({"false", "true"})
+    private boolean capture;
+
+    private final LongAdder delivered = new LongAdder();
+    private AnnotationConfigApplicationContext captureContext;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Setup
+    public void setup() {
+        SqlCaptureInterceptor interceptor = null;
+        if (capture) {
+            captureContext = BenchmarkFixtures.newCaptureContext(delivered);
+            interceptor = captureContext.getBean(SqlCaptureInterceptor.class);
+        }
+        sqlSessionFactory = BenchmarkFixtures.newSqlSessionFactory("executor_" + capture, interceptor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (captureContext != null) {
+            captureContext.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        private SqlSession sqlSession;
+        private Map<String, Object> updateParam;
+
+        @Setup
+        public void open(ExecutorBenchmark benchmark) {
+            sqlSession = benchmark.sqlSessionFactory.openSession(true);
+            City city = new City();
+            city.setProvinceId(7L);
+            city.setCityName("city-7");
+            city.setDescription("updated by benchmark");
+            updateParam = BenchmarkFixtures.singletonParam("city", city);
+        }
+
+        @TearDown
+        public void close() {
+            sqlSession.close();
+        }
+    }
+
+    @Benchmark
+    public List<Object> query(Session session) {
+        return session.sqlSession.selectList(BenchmarkFixtures.NAMESPACE + ".findByName", "city-7");
+    }
+
+    @Benchmark
+    public int update(Session session) {
+        return session.sqlSession.update(BenchmarkFixtures.NAMESPACE + ".updateByName", session.updateParam);
+    }
+}
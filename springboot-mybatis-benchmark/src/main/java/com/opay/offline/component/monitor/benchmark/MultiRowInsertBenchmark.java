@@ -0,0 +1,75 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.support.DruidSqlParserHelper;
+import com.opay.offline.component.monitor.support.MultiRowInsertLayout;
+import com.opay.offline.component.monitor.support.SqlBuilderUtils;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多行 INSERT (foreach VALUES) 的捕获：通用路径 vs 按行提取
+ * <p>
+ * 通用路径解析全部参数并渲染完整 SQL (按 maxSqlLength 截断)，再用 Druid 解析参数；
+ * 按行提取只解析前 keepRows 行的参数，可执行 SQL 只渲染保留的行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiRowInsertBenchmark {
+
+    private static final int MAX_SQL_LENGTH = 10000;
+
+    @Param({"10", "1000"})
+    private int rows;
+
+    @Param({"100"})
+    private int keepRows;
+
+    private Configuration configuration;
+    private BoundSql boundSql;
+    private Map<String, Object> param;
+
+    @Setup
+    public void setup() {
+        configuration = BenchmarkFixtures.newConfiguration();
+        List<Map<String, Object>> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("provinceId", (long) i);
+            row.put("cityName", "city-" + i);
+            row.put("description", "description of city " + i);
+            list.add(row);
+        }
+        param = BenchmarkFixtures.singletonParam("rows", list);
+        boundSql = configuration.getMappedStatement(BenchmarkFixtures.BENCHMARK_NAMESPACE + ".insertRows").getBoundSql(param);
+    }
+
+    @Benchmark
+    public Object fullRender() {
+        List<Object> values = SqlBuilderUtils.resolveParameterValues(configuration, boundSql, param);
+        String executableSql = SqlBuilderUtils.buildExecutableSql(boundSql.getSql(), values, MAX_SQL_LENGTH);
+        // 未截断时才会继续用 Druid 解析参数
+        return executableSql.length() < MAX_SQL_LENGTH
+                ? DruidSqlParserHelper.analyzeSqlParams(executableSql)
+                : executableSql;
+    }
+
+    @Benchmark
+    public Object rowWise() {
+        MultiRowInsertLayout layout = MultiRowInsertLayout.parse(boundSql.getSql(), keepRows);
+        List<Object> values = SqlBuilderUtils.resolveParameterValues(configuration, boundSql, param,
+                layout.isComplete() ? Integer.MAX_VALUE : layout.getParameterCount());
+        layout.render(values, MAX_SQL_LENGTH);
+        return layout.rows(values);
+    }
+}
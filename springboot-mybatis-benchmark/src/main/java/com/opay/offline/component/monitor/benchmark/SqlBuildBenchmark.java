@@ -0,0 +1,65 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.support.SqlBuilderUtils;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SqlBuilderUtils.buildExecutableSql：1 / 10 / 500 个占位符
+ * <p>
+ * 语句为 BenchmarkMapper.findByIds (id in (...))，占位符个数等于 params
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlBuildBenchmark {
+
+    @Param({"1", "10", "500"})
+    private int params;
+
+    private Configuration configuration;
+    private BoundSql boundSql;
+    private Map<String, Object> param;
+    private String rawSql;
+    private List<Object> values;
+
+    @Setup
+    public void setup() {
+        configuration = BenchmarkFixtures.newConfiguration();
+        List<Long> ids = new ArrayList<>(params);
+        for (long i = 0; i < params; i++) {
+            ids.add(i);
+        }
+        param = BenchmarkFixtures.singletonParam("ids", ids);
+        boundSql = configuration.getMappedStatement(BenchmarkFixtures.BENCHMARK_NAMESPACE + ".findByIds").getBoundSql(param);
+        rawSql = boundSql.getSql();
+        values = SqlBuilderUtils.resolveParameterValues(configuration, boundSql, param);
+    }
+
+    /**
+     * 完整路径：解析参数值 + 渲染
+     */
+    @Benchmark
+    public String resolveAndRender() {
+        return SqlBuilderUtils.buildExecutableSql(configuration, boundSql, param);
+    }
+
+    @Benchmark
+    public List<Object> resolveParameterValues() {
+        return SqlBuilderUtils.resolveParameterValues(configuration, boundSql, param);
+    }
+
+    @Benchmark
+    public String render() {
+        return SqlBuilderUtils.buildExecutableSql(rawSql, values);
+    }
+}
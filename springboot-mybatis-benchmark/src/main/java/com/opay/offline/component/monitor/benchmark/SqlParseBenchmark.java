@@ -0,0 +1,77 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.support.DruidSqlParserHelper;
+import com.opay.offline.component.monitor.support.SqlBuilderUtils;
+import com.opay.org.spring.springboot.entity.City;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 参数解析：DruidSqlParserHelper.analyzeSqlParams (每次解析可执行 SQL) vs 参数模板 (原始 SQL 只解析一次)
+ * <p>
+ * analyzeSqlParams 先走 SimpleSqlLexer 快速路径，analyzeSqlParamsDruid 总是构建 Druid AST，两者对比快速路径的收益
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlParseBenchmark {
+
+    // select: findByName，update: updateByName，delete: deleteByName，insert: addCityBatch (10 行)
+    @Param({"select", "update", "delete", "insert"})
+    private String statement;
+
+    private String rawSql;
+    private String executableSql;
+    private List<Object> values;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = BenchmarkFixtures.newConfiguration();
+        Object param;
+        String id;
+        switch (statement) {
+            case "select":
+                id = "findByName";
+                param = "city-7";
+                break;
+            case "update":
+                City city = BenchmarkFixtures.cities(1).get(0);
+                id = "updateByName";
+                param = BenchmarkFixtures.singletonParam("city", city);
+                break;
+            case "delete":
+                id = "deleteByName";
+                param = "city-7";
+                break;
+            default:
+                id = "addCityBatch";
+                param = BenchmarkFixtures.batchParam(10);
+        }
+        BoundSql boundSql = configuration.getMappedStatement(BenchmarkFixtures.NAMESPACE + "." + id).getBoundSql(param);
+        rawSql = boundSql.getSql();
+        values = SqlBuilderUtils.resolveParameterValues(configuration, boundSql, param);
+        executableSql = SqlBuilderUtils.buildExecutableSql(rawSql, values);
+    }
+
+    @Benchmark
+    public DruidSqlParserHelper.SqlParamAnalysis analyzeSqlParams() {
+        return DruidSqlParserHelper.analyzeSqlParams(executableSql);
+    }
+
+    @Benchmark
+    public DruidSqlParserHelper.SqlParamAnalysis analyzeSqlParamsDruid() {
+        return DruidSqlParserHelper.analyzeSqlParams(executableSql, false);
+    }
+
+    @Benchmark
+    public DruidSqlParserHelper.SqlParamAnalysis templateFill() {
+        return DruidSqlParserHelper.getTemplate(rawSql).fill(values);
+    }
+}
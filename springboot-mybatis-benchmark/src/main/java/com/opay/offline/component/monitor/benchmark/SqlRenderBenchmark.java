@@ -0,0 +1,82 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.support.ExecutableSqlRenderer;
+import com.opay.offline.component.monitor.support.SqlBuilderUtils;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * 可执行 SQL 渲染：旧的 replaceFirst 循环 vs 单遍扫描渲染器
+ * <p>
+ * 语句为 CityRepository.addCityBatch，500 行即 1500 个占位符
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlRenderBenchmark {
+
+    @Param({"10", "500"})
+    private int rows;
+
+    private String rawSql;
+    private List<Object> values;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = BenchmarkFixtures.newConfiguration();
+        Map<String, Object> param = BenchmarkFixtures.batchParam(rows);
+        BoundSql boundSql = configuration.getMappedStatement(BenchmarkFixtures.NAMESPACE + ".addCityBatch").getBoundSql(param);
+        rawSql = boundSql.getSql();
+        values = SqlBuilderUtils.resolveParameterValues(configuration, boundSql, param);
+    }
+
+    @Benchmark
+    public String legacyReplaceFirst() {
+        return legacyRender(rawSql, values);
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return ExecutableSqlRenderer.render(rawSql, values, 0);
+    }
+
+    @Benchmark
+    public String singlePassTruncated() {
+        // 默认 maxSqlLength
+        return ExecutableSqlRenderer.render(rawSql, values, 10000);
+    }
+
+    /**
+     * 改造前 SqlBuilderUtils.buildExecutableSql 的实现，仅作为对照组
+     */
+    private static String legacyRender(String rawSql, List<Object> values) {
+        String sql = rawSql.replaceAll("\\s+", " ").trim();
+        for (Object value : values) {
+            sql = sql.replaceFirst("\\?", Matcher.quoteReplacement(legacyFormat(value)));
+        }
+        if (sql.length() > 10000) {
+            sql = sql.substring(0, 10000) + " ...[TRUNCATED]";
+        }
+        return sql;
+    }
+
+    private static String legacyFormat(Object value) {
+        if (value == null) return "NULL";
+        if (value instanceof Number) return value.toString();
+        if (value instanceof Boolean) return ((Boolean) value) ? "1" : "0";
+        if (value instanceof Date || value instanceof java.time.temporal.Temporal) return "'" + value.toString() + "'";
+        String strVal = value.toString();
+        if (strVal.length() > 500) strVal = strVal.substring(0, 500) + "...(truncated)";
+        return "'" + strVal.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,55 @@
+package com.opay.offline.component.monitor.benchmark;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每条语句的链路上下文透传开销：复制完整 MDC (MDC.getCopyOfContextMap) vs 只读取 traceId / spanId / endpoint 到事件字段
+ * <p>
+ * 只测业务线程一侧 (工作线程的恢复 / 清空另计)；MDC 模拟常见 Web 请求 (6 个 key)，建议配合 -prof gc 查看单次分配
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceSnapshotBenchmark {
+
+    private CapturedSqlInfo info;
+
+    @Setup
+    public void setup() {
+        MDC.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        MDC.put("spanId", "00f067aa0ba902b7");
+        MDC.put("requestUri", "GET /api/cities");
+        MDC.put("userId", "10086");
+        MDC.put("tenant", "ng");
+        MDC.put("clientIp", "10.0.0.1");
+        info = new CapturedSqlInfo();
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Benchmark
+    public Map<String, String> copyMdc() {
+        // 基线：每个异步任务复制一份业务线程的完整 MDC
+        return MDC.getCopyOfContextMap();
+    }
+
+    @Benchmark
+    public CapturedSqlInfo snapshot() {
+        // 与 SqlCaptureDispatcher.snapshotTrace 相同的读取
+        info.setTraceId(MDC.get("traceId"));
+        info.setSpanId(MDC.get("spanId"));
+        info.setEndpoint(MDC.get("requestUri"));
+        return info;
+    }
+}
@@ -1,16 +1,29 @@
 package com.opay.offline.component.monitor.config;
 
 import lombok.Data;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "monitor.sql")
 public class SqlCaptureProperties {
-    // 总开关
+    // 总开关 (可通过 sqlcaptureconfig 端点运行时调整，开关 / 采样率 / maxSqlLength / 线程数 / 队列容量同)
     private boolean enabled = true;
-    // 核心线程数
+    // 按实体开关 (在 @MonitorSql 基础上关闭或重新打开)，key 为实体类名 (SimpleName)
+    private Map<String, Boolean> entityEnabled = new HashMap<>();
+    // 按 Mapper 开关，key 为 MappedStatement id 或 Mapper 命名空间 (优先级高于实体开关)
+    private Map<String, Boolean> mapperEnabled = new HashMap<>();
+    // 异步执行模式：THREAD_POOL (线程池) / RING_BUFFER (无锁预分配环形队列)
+    private ExecutorMode executorMode = ExecutorMode.THREAD_POOL;
+    // 核心线程数 (RING_BUFFER 模式下即消费线程数)
     private int corePoolSize = 4;
     // 最大线程数
     private int maxPoolSize = 16;
@@ -18,6 +31,186 @@ public class SqlCaptureProperties {
     private int queueCapacity = 2000;
     // 线程空闲存活时间 (秒)
     private int keepAliveSeconds = 60;
-    // SQL 最大长度限制 (防止超大批量插入导致 OOM)
-    private int maxSqlLength = 10000;
-}
\ No newline at end of file
+    // 环形队列容量 (向上取整为 2 的幂)
+    private int ringBufferSize = 4096;
+    // 消费线程单次批量拉取的最大事件数
+    private int drainBatchSize = 64;
+    // 队列满 / 停机未处理的事件写入本地内存映射溢出日志，负载回落后回放 (关闭时直接丢弃)
+    private boolean spillEnabled = false;
+    // 溢出日志目录 (同机多实例需各自配置独立目录)
+    private String spillDir = System.getProperty("java.io.tmpdir") + File.separator + "sql-capture-spill";
+    // 溢出写入队列容量：队列满时业务线程只把事件放入该队列，由溢出写入线程组装并写入；写入队列也满时丢弃
+    private int spillBufferSize = 1024;
+    // 溢出段文件大小 (字节)
+    private int spillSegmentBytes = 64 * 1024 * 1024;
+    // 最多保留的溢出段数，达到上限后新的溢出事件被丢弃
+    private int spillMaxSegments = 16;
+    // 回放检查间隔 (毫秒)
+    private long spillReplayIntervalMillis = 1000;
+    // 队列积压低于容量的该比例时才回放
+    private double spillReplayQueueRatio = 0.25;
+    // 单批回放的最大条数
+    private int spillReplayBatchSize = 500;
+    // Handler 微批：每批最大条数，默认逐条投递 (<= 1)；大于 1 时开启攒批
+    private int batchSize = 1;
+    // Handler 微批：批次最长等待时间 (毫秒)
+    private long batchLingerMillis = 100;
+    // 每个 Handler 使用独立通道 (独立队列 / 线程 / 溢出策略)；开启后 Handler 之间并发执行，无法再通过 ext 互相传递数据：
+    // 每个通道拿到事件的浅拷贝，ext 各自独立 (写入只对本通道可见)，params 等其余字段共享，Handler 不得修改
+    private boolean handlerLanesEnabled = false;
+    // 默认通道配置
+    private Lane defaultLane = new Lane();
+    // 按 Handler 设置通道，key 为 Handler 类名 (SimpleName)
+    private Map<String, Lane> handlerLanes = new HashMap<>();
+    // 复用 MyBatis 自身构建的 BoundSql (拦截 StatementHandler.parameterize)，避免业务线程重复解析动态 SQL
+    private boolean reuseBoundSql = true;
+    // SQL 最大长度限制 (防止超大批量插入导致 OOM)；捕获线程直接读取，运行时调整需保证可见性
+    private volatile int maxSqlLength = 10000;
+    // UPDATE / DELETE 执行前在同一事务连接上读取前镜像 (实体声明的字段)
+    private boolean beforeImageEnabled = false;
+    // 前镜像最多读取的行数
+    private int beforeImageMaxRows = 100;
+    // BATCH 执行器 (如 mybatis-plus saveBatch) 每次 flush 聚合为一条捕获，是否附带逐行参数
+    private boolean batchRowParamsEnabled = false;
+    // BATCH 聚合捕获 / 多行 INSERT 最多附带的逐行参数组数
+    private int batchMaxRowParams = 100;
+    // 多行 INSERT (foreach VALUES) 按行提取列值，只解析保留行的参数，不渲染完整 SQL
+    private boolean multiRowInsertEnabled = true;
+    // SQL 摘要聚合 (按指纹的滚动窗口统计，不受采样影响)
+    private boolean digestEnabled = true;
+    // 摘要最多统计的语句数 (按 MappedStatement ID)
+    private int digestMaxStatements = 2000;
+    // 摘要端点默认返回的条数
+    private int digestTopN = 20;
+    // 慢 SQL 自动 EXPLAIN (异步，只读)；结果挂在摘要上，需同时开启 digestEnabled
+    private boolean explainEnabled = false;
+    // 触发 EXPLAIN 的耗时阈值 (毫秒)
+    private long explainThresholdMillis = 1000;
+    // 同一指纹两次 EXPLAIN 的最小间隔 (秒)
+    private long explainIntervalSeconds = 600;
+    // EXPLAIN 查询超时 (秒)
+    private int explainTimeoutSeconds = 5;
+    // EXPLAIN 结果最多保留的行数
+    private int explainMaxRows = 20;
+    // 捕获事件池：CapturedSqlInfo / SqlCaptureContext 成对复用，所有 Handler 确认后回收 (开启后 Handler 不得在返回后继续持有事件)
+    private boolean eventPoolEnabled = false;
+    // 事件池容量 (所有条带合计)
+    private int eventPoolSize = 4096;
+    // 事务内的捕获先缓存在当前 Spring 事务上，提交后作为一批发布并带上事务 ID；不在事务中时照常逐条发布
+    // 入缓存前在业务线程内解析参数值 (与读取前镜像相同)，缓存期间不持有参数对象
+    private boolean transactionBufferEnabled = false;
+    // 事务回滚时的处理：DISCARD (丢弃写语句，查询仍发布) / MARK (全部发布并标记为已回滚)
+    private TransactionRollbackPolicy transactionRollbackPolicy = TransactionRollbackPolicy.DISCARD;
+    // 单个事务最多缓存的捕获数，达到后已缓存的事件立即发布 (不带事务结果)，防止长事务占用内存
+    private int transactionMaxBuffered = 1000;
+    // DB 补全合并窗口 (毫秒)，窗口内同表同条件形状的单条补全合并为一条 IN 查询，调用方最多等待整个窗口；<= 0 表示逐条查询
+    // 批量 Handler 应改用 SqlContextEnricher.enrich(List, String)，一批内直接合并，不受窗口影响
+    private long enrichCoalesceWindowMillis = 0;
+    // 单次合并查询最多包含的 key 数，达到后立即执行
+    private int enrichCoalesceMaxKeys = 200;
+    // 合并补全查询的最长等待时间 (毫秒，不含合并窗口)
+    private long enrichTimeoutMillis = 2000;
+    // 采样与限流
+    private Sampling sampling = new Sampling();
+    // 结果捕获策略
+    private Result result = new Result();
+    // 链路上下文透传
+    private Trace trace = new Trace();
+    // N+1 查询检测
+    private RepeatedQuery repeatedQuery = new RepeatedQuery();
+
+    @Data
+    public static class Sampling {
+        // 默认采样率 (0 ~ 1)
+        private double defaultRate = 1.0;
+        // 按 Mapper 设置采样率，key 为 MappedStatement id 或 Mapper 命名空间 (优先级最高)
+        private Map<String, Double> mapperRates = new HashMap<>();
+        // 按命令类型设置采样率，如 SELECT: 0.1
+        private Map<SqlCommandType, Double> commandTypeRates = new HashMap<>();
+        // 每秒最多捕获的事件数 (令牌桶)，<= 0 表示不限制
+        private int maxEventsPerSecond = 0;
+        // 执行失败的语句始终捕获
+        private boolean alwaysCaptureFailures = true;
+        // 耗时超过该阈值 (毫秒) 的语句始终捕获，<= 0 表示关闭
+        private long slowThresholdMillis = 1000;
+    }
+
+    @Data
+    public static class Lane {
+        // 通道线程数
+        private int concurrency = 1;
+        // 通道队列容量 (批次数)
+        private int queueCapacity = 1000;
+        // 通道队列满时的处理策略
+        private LaneOverflowPolicy overflowPolicy = LaneOverflowPolicy.DROP_NEWEST;
+    }
+
+    public enum LaneOverflowPolicy {
+        // 丢弃新批次
+        DROP_NEWEST,
+        // 丢弃最早排队的批次
+        DROP_OLDEST,
+        // 由分发线程直接执行 (反压到共享队列)
+        CALLER_RUNS
+    }
+
+    @Data
+    public static class Result {
+        // 结果捕获模式：NONE (不记录) / SUMMARY (只记录摘要) / PROJECTION (业务线程内按列复制快照)
+        private ResultMode mode = ResultMode.PROJECTION;
+        // 默认快照列 (属性名或列名)，为空时复制行内所有简单类型字段
+        private List<String> columns = new ArrayList<>();
+        // 按 Mapper 设置快照列，key 为 MappedStatement id 或 Mapper 命名空间 (优先级高于默认列)
+        private Map<String, List<String>> mapperColumns = new HashMap<>();
+        // 最多快照的行数
+        private int maxRows = 10;
+        // 单个事件结果快照的字节预算 (估算值)
+        private int maxEventBytes = 8 * 1024;
+        // 所有排队事件结果快照的全局字节预算 (估算值)，耗尽后只记录摘要
+        private long maxTotalBytes = 16 * 1024 * 1024;
+    }
+
+    @Data
+    public static class Trace {
+        // 业务线程提交事件时只按以下 key 从 MDC 读取到事件的固定字段，捕获线程直接读字段；key 为空表示不采集
+        private String traceIdKey = "traceId";
+        private String spanIdKey = "spanId";
+        // 请求入口 (如 URI / 接口名)
+        private String endpointKey = "requestUri";
+        // 事件额外携带提交时的完整 MDC，捕获线程处理时与单条 Handler 回调时按事件恢复 (Handler 依赖 MDC 输出日志时开启，每条语句多一次 MDC 整体复制)；
+        // 批量 Handler 可通过 info.mdcContext() 读取；溢出日志回放的事件不携带
+        private boolean copyMdc = false;
+    }
+
+    @Data
+    public static class RepeatedQuery {
+        // 按事件的 traceId 归组，同一请求内同一 SQL 指纹重复执行达到阈值即上报 (只统计被采样捕获的事件)
+        private boolean enabled = false;
+        // 同一请求内同一指纹的执行次数阈值
+        private int threshold = 10;
+        // 超过该时间 (毫秒) 没有新语句即视为请求结束，结算并释放
+        private long traceIdleMillis = 5000;
+        // 同时跟踪的请求数上限，超出后新请求不再跟踪
+        private int maxTraces = 10000;
+        // 单个请求最多跟踪的指纹数
+        private int maxFingerprintsPerTrace = 256;
+        // 保留最近的检测结果条数
+        private int maxFindings = 100;
+    }
+
+    public enum TransactionRollbackPolicy {
+        DISCARD,
+        MARK
+    }
+
+    public enum ResultMode {
+        NONE,
+        SUMMARY,
+        PROJECTION
+    }
+
+    public enum ExecutorMode {
+        THREAD_POOL,
+        RING_BUFFER
+    }
+}
@@ -0,0 +1,102 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 微批攒批器：满 batchSize 条立即投递，否则最早一条等待超过 lingerMillis 后由定时线程投递
+ * <p>
+ * 投递在锁外执行，锁内只做 add / 交换批次
+ */
+@Slf4j
+public class CaptureBatchAccumulator {
+
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Consumer<List<CapturedSqlInfo>> sink;
+    private final ScheduledExecutorService lingerTimer;
+
+    private List<CapturedSqlInfo> current;
+    private long firstAddedNanos;
+    private boolean closed;
+
+    public CaptureBatchAccumulator(int batchSize, long lingerMillis, Consumer<List<CapturedSqlInfo>> sink) {
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.sink = sink;
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sql-capture-batch-linger");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, lingerMillis);
+        lingerTimer.scheduleWithFixedDelay(this::flushIfExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(CapturedSqlInfo info) {
+        List<CapturedSqlInfo> full = null;
+        synchronized (this) {
+            if (closed) {
+                full = Collections.singletonList(info);
+            } else {
+                if (current == null) {
+                    current = new ArrayList<>(batchSize);
+                    firstAddedNanos = System.nanoTime();
+                }
+                current.add(info);
+                if (current.size() >= batchSize) {
+                    full = current;
+                    current = null;
+                }
+            }
+        }
+        if (full != null) {
+            deliver(full);
+        }
+    }
+
+    private void flushIfExpired() {
+        List<CapturedSqlInfo> expired = null;
+        synchronized (this) {
+            if (current != null && System.nanoTime() - firstAddedNanos >= lingerNanos) {
+                expired = current;
+                current = null;
+            }
+        }
+        if (expired != null) {
+            deliver(expired);
+        }
+    }
+
+    /**
+     * 停机：投递剩余事件，之后的 add 直接逐条投递
+     */
+    public void close() {
+        lingerTimer.shutdownNow();
+        List<CapturedSqlInfo> remaining;
+        synchronized (this) {
+            closed = true;
+            remaining = current;
+            current = null;
+        }
+        if (remaining != null) {
+            deliver(remaining);
+        }
+    }
+
+    private void deliver(List<CapturedSqlInfo> batch) {
+        try {
+            sink.accept(batch);
+        } catch (Exception e) {
+            log.error("Batch delivery failed", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 线程池模式下一次提交的多个捕获 (如同一事务提交后的整批事件)，在同一个工作线程内依次处理；
+ * 被拒绝 / 停机未执行时逐条取回事件
+ */
+@Getter
+public class CaptureBatchTask implements Runnable {
+    private final List<SqlCaptureContext> contexts;
+    private final Consumer<SqlCaptureContext> action;
+
+    public CaptureBatchTask(List<SqlCaptureContext> contexts, Consumer<SqlCaptureContext> action) {
+        this.contexts = contexts;
+        this.action = action;
+    }
+
+    @Override
+    public void run() {
+        contexts.forEach(action);
+    }
+}
@@ -0,0 +1,39 @@
+package com.opay.offline.component.monitor.core;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单个 MappedStatement 的捕获决策 (不可变)
+ */
+@Getter
+public final class CaptureDecision {
+
+    /**
+     * 不捕获：未标注 @MonitorSql、命令类型未声明或总开关关闭
+     */
+    public static final CaptureDecision SKIP = new CaptureDecision(false, null, 0, Collections.emptyList());
+
+    private final boolean capture;
+    private final Class<?> entityClass;
+    // 预先计算，避免每次捕获调用 getSimpleName
+    private final String entityName;
+    // 采样率 (0 ~ 1)，按 Mapper > 命令类型 > 默认值 的优先级预先解析
+    private final double sampleRate;
+    // 结果快照列，按 Mapper > 默认值 的优先级预先解析；为空表示复制所有简单类型字段
+    private final List<String> resultColumns;
+
+    private CaptureDecision(boolean capture, Class<?> entityClass, double sampleRate, List<String> resultColumns) {
+        this.capture = capture;
+        this.entityClass = entityClass;
+        this.entityName = entityClass == null ? null : entityClass.getSimpleName();
+        this.sampleRate = sampleRate;
+        this.resultColumns = resultColumns;
+    }
+
+    public static CaptureDecision capture(Class<?> entityClass, double sampleRate, List<String> resultColumns) {
+        return new CaptureDecision(true, entityClass, sampleRate, resultColumns);
+    }
+}
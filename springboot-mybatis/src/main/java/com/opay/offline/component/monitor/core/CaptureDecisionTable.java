@@ -0,0 +1,142 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.annotation.MonitorSql;
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.support.SqlBuilderUtils;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 MappedStatement id 预先计算的捕获决策表 (不可变)
+ * <p>
+ * 在 Configuration 启动完成后一次性构建，拦截器热路径上只做一次 Map 查找；
+ * 启动后才注册的语句通过 {@link #with} 复制出新表 (写时复制)，运行时修改开关 / 采样率后整表重建替换
+ */
+public final class CaptureDecisionTable {
+
+    private final Map<String, CaptureDecision> decisions;
+    private final SqlCaptureProperties properties;
+
+    private CaptureDecisionTable(Map<String, CaptureDecision> decisions, SqlCaptureProperties properties) {
+        this.decisions = decisions;
+        this.properties = properties;
+    }
+
+    /**
+     * 空表：启动完成前所有语句都走 {@link #with} 懒加载
+     */
+    public static CaptureDecisionTable empty(SqlCaptureProperties properties) {
+        return new CaptureDecisionTable(Collections.emptyMap(), properties);
+    }
+
+    /**
+     * 基于 Configuration 中已注册的全部语句构建决策表
+     *
+     * @param properties 总开关 monitor.sql.enabled、实体 / Mapper 开关及采样配置
+     */
+    public static CaptureDecisionTable build(Collection<Configuration> configurations, SqlCaptureProperties properties) {
+        Map<String, CaptureDecision> decisions = new HashMap<>(256);
+        for (Configuration configuration : configurations) {
+            // StrictMap 中短名冲突时存放的是 Ambiguity 对象，需要按类型过滤
+            for (Object value : (Collection<?>) configuration.getMappedStatements()) {
+                if (value instanceof MappedStatement) {
+                    MappedStatement ms = (MappedStatement) value;
+                    decisions.put(ms.getId(), decide(ms, properties));
+                }
+            }
+        }
+        return new CaptureDecisionTable(Collections.unmodifiableMap(decisions), properties);
+    }
+
+    /**
+     * 查找决策，未登记的语句返回 null
+     */
+    public CaptureDecision get(String mappedStatementId) {
+        return decisions.get(mappedStatementId);
+    }
+
+    /**
+     * 为启动后才出现的语句补充决策，返回新表
+     */
+    public CaptureDecisionTable with(MappedStatement ms) {
+        Map<String, CaptureDecision> copy = new HashMap<>(decisions);
+        copy.put(ms.getId(), decide(ms, properties));
+        return new CaptureDecisionTable(Collections.unmodifiableMap(copy), properties);
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    /**
+     * 需要捕获的语句数
+     */
+    public int captureCount() {
+        int count = 0;
+        for (CaptureDecision decision : decisions.values()) {
+            if (decision.isCapture()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static CaptureDecision decide(MappedStatement ms, SqlCaptureProperties properties) {
+        if (!properties.isEnabled()) {
+            return CaptureDecision.SKIP;
+        }
+        Class<?> entityClass = SqlBuilderUtils.getEntityClass(ms.getId());
+        if (entityClass == null) {
+            return CaptureDecision.SKIP;
+        }
+        MonitorSql monitorSql = entityClass.getAnnotation(MonitorSql.class);
+        if (monitorSql == null || !Arrays.asList(monitorSql.sqlCommandType()).contains(ms.getSqlCommandType())) {
+            return CaptureDecision.SKIP;
+        }
+        Boolean enabled = byMapper(properties.getMapperEnabled(), ms.getId());
+        if (enabled == null) {
+            enabled = properties.getEntityEnabled().get(entityClass.getSimpleName());
+        }
+        if (enabled != null && !enabled) {
+            return CaptureDecision.SKIP;
+        }
+        return CaptureDecision.capture(entityClass, sampleRate(ms, properties.getSampling()),
+                resultColumns(ms, properties.getResult()));
+    }
+
+    /**
+     * 按 MappedStatement id 查找，找不到时按 Mapper 命名空间查找
+     */
+    private static <T> T byMapper(Map<String, T> values, String id) {
+        T value = values.get(id);
+        if (value == null) {
+            int dot = id.lastIndexOf('.');
+            value = dot > 0 ? values.get(id.substring(0, dot)) : null;
+        }
+        return value;
+    }
+
+    private static double sampleRate(MappedStatement ms, SqlCaptureProperties.Sampling sampling) {
+        Double rate = byMapper(sampling.getMapperRates(), ms.getId());
+        if (rate == null) {
+            rate = sampling.getCommandTypeRates().get(ms.getSqlCommandType());
+        }
+        return rate != null ? rate : sampling.getDefaultRate();
+    }
+
+    private static List<String> resultColumns(MappedStatement ms, SqlCaptureProperties.Result result) {
+        List<String> columns = byMapper(result.getMapperColumns(), ms.getId());
+        if (columns == null) {
+            columns = result.getColumns();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(columns));
+    }
+}
@@ -0,0 +1,153 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可回收的捕获事件池：SqlCaptureContext 与 CapturedSqlInfo 成对复用
+ * <p>
+ * 1. 按条带划分为多个无锁环形队列；借出从当前线程对应的条带开始探测，归还到对象创建时分配的条带
+ *    (借出在业务线程、归还在捕获 / 通道线程，按线程归还会使对象单向流向捕获线程的条带)
+ * 2. 交给 Handler 前登记待确认数 (顺序投递为 1，独立通道时为通道数)，全部确认后清空字段 (Map 保留容量) 放回池中；
+ *    未投递就结束的事件 (溢出、回滚丢弃) 直接归还
+ * 3. 池空时新建，池满时交给 GC；漏归还只会少复用一次，不影响正确性
+ * <p>
+ * 开启后 Handler 在 onCapture / onCaptureBatch 返回后不得继续持有事件及其 params / whereParams / ext，需要时自行复制
+ */
+@Component
+public class CaptureEventPool {
+
+    private final boolean enabled;
+    private final CaptureRingBuffer<SqlCaptureContext>[] stripes;
+    private final int mask;
+    // 新建对象轮流分配归还条带
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    public CaptureEventPool(SqlCaptureProperties properties) {
+        this.enabled = properties.isEventPoolEnabled();
+        int count = enabled ? Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) : 1;
+        this.stripes = newStripes(count);
+        this.mask = count - 1;
+        int perStripe = Math.max(2, properties.getEventPoolSize() / count);
+        for (int i = 0; enabled && i < count; i++) {
+            stripes[i] = new CaptureRingBuffer<>(perStripe);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static CaptureRingBuffer<SqlCaptureContext>[] newStripes(int count) {
+        return new CaptureRingBuffer[count];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 借出一个已清空的上下文 (未开启时每次新建)
+     */
+    public SqlCaptureContext borrow() {
+        if (!enabled) {
+            return new SqlCaptureContext(new CapturedSqlInfo());
+        }
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i < stripes.length; i++) {
+            SqlCaptureContext context = stripes[(start + i) & mask].poll();
+            if (context != null) {
+                reused.increment();
+                context.getPendingAcks().set(0);
+                context.getInfo().setTimestampMillis(System.currentTimeMillis());
+                return context;
+            }
+        }
+        created.increment();
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        SqlCaptureContext context = new SqlCaptureContext(info);
+        context.setPoolStripe(nextStripe.getAndIncrement() & mask);
+        info.pooledContext(context);
+        return context;
+    }
+
+    /**
+     * 投递前登记每个事件需要的确认数
+     */
+    public void retain(List<CapturedSqlInfo> batch, int consumers) {
+        if (!enabled) {
+            return;
+        }
+        for (CapturedSqlInfo info : batch) {
+            SqlCaptureContext context = info.pooledContext();
+            if (context != null) {
+                context.getPendingAcks().set(consumers);
+            }
+        }
+    }
+
+    /**
+     * 一个消费方处理完 (或丢弃) 该批次
+     */
+    public void release(List<CapturedSqlInfo> batch) {
+        if (!enabled) {
+            return;
+        }
+        for (CapturedSqlInfo info : batch) {
+            release(info);
+        }
+    }
+
+    /**
+     * 确认一次；未登记确认数 (未投递就结束) 的事件直接归还
+     */
+    public void release(CapturedSqlInfo info) {
+        SqlCaptureContext context = enabled ? info.pooledContext() : null;
+        if (context == null) {
+            return;
+        }
+        AtomicInteger pending = context.getPendingAcks();
+        for (; ; ) {
+            int n = pending.get();
+            if (n < 0) {
+                // 已归还
+                return;
+            }
+            int next = n <= 1 ? -1 : n - 1;
+            if (pending.compareAndSet(n, next)) {
+                if (next < 0) {
+                    context.clear();
+                    stripes[context.getPoolStripe()].offer(context);
+                }
+                return;
+            }
+        }
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    public long getReusedCount() {
+        return reused.sum();
+    }
+
+    /**
+     * 池中空闲对象数
+     */
+    public int getIdleCount() {
+        if (!enabled) {
+            return 0;
+        }
+        int idle = 0;
+        for (CaptureRingBuffer<SqlCaptureContext> stripe : stripes) {
+            idle += stripe.size();
+        }
+        return idle;
+    }
+}
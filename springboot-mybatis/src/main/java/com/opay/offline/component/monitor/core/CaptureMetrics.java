@@ -0,0 +1,195 @@
+package com.opay.offline.component.monitor.core;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * SQL 监控组件自身的运行指标
+ * <p>
+ * 热路径只做 LongAdder 累加，不依赖 MeterRegistry；注册到 Micrometer 时以 FunctionCounter / FunctionTimer 读取。
+ * 队列深度、丢弃数等组件自身维护的状态由 {@link CapturePipelineMetrics} 注册
+ */
+@Component
+public class CaptureMetrics implements MeterBinder {
+
+    static final String PREFIX = "sql.capture";
+
+    // 已提交到异步队列的事件数
+    private final LongAdder submitted = new LongAdder();
+    // 异步组装完成并交给 Handler 的事件数
+    private final LongAdder processed = new LongAdder();
+    // 异步组装失败的事件数
+    private final LongAdder failed = new LongAdder();
+    // 所在事务回滚而丢弃的事件数
+    private final LongAdder rolledBack = new LongAdder();
+
+    private final Stat parseTemplate = new Stat();
+    private final Stat parseDruid = new Stat();
+    private final Stat enrichMemory = new Stat();
+    private final Stat enrichDb = new Stat();
+    private final ConcurrentMap<String, Stat> handlers = new ConcurrentHashMap<>();
+
+    private MeterRegistry registry;
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        counter(registry, "events", "submitted", submitted, LongAdder::sum);
+        counter(registry, "events", "processed", processed, LongAdder::sum);
+        counter(registry, "events", "failed", failed, LongAdder::sum);
+        counter(registry, "events", "rolled_back", rolledBack, LongAdder::sum);
+        timer(registry, "parse", "path", "template", parseTemplate);
+        timer(registry, "parse", "path", "druid", parseDruid);
+        timer(registry, "enrich", "source", "memory", enrichMemory);
+        timer(registry, "enrich", "source", "db", enrichDb);
+        handlers.forEach((name, stat) -> bindHandler(registry, name, stat));
+    }
+
+    public void submitted() {
+        submitted.increment();
+    }
+
+    public void processed() {
+        processed.increment();
+    }
+
+    public void failed() {
+        failed.increment();
+    }
+
+    public void rolledBack(int count) {
+        rolledBack.add(count);
+    }
+
+    public void recordParse(boolean template, long nanos) {
+        (template ? parseTemplate : parseDruid).record(nanos, false);
+    }
+
+    public void recordEnrich(boolean db, long nanos) {
+        (db ? enrichDb : enrichMemory).record(nanos, false);
+    }
+
+    /**
+     * Handler 维度的耗时与失败统计，首次获取时注册
+     */
+    public Stat handler(String name) {
+        Stat stat = handlers.get(name);
+        if (stat != null) {
+            return stat;
+        }
+        synchronized (this) {
+            stat = handlers.computeIfAbsent(name, k -> new Stat());
+            if (registry != null) {
+                bindHandler(registry, name, stat);
+            }
+            return stat;
+        }
+    }
+
+    /**
+     * 当前指标快照 (供端点展示)
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> events = new LinkedHashMap<>();
+        events.put("submitted", submitted.sum());
+        events.put("processed", processed.sum());
+        events.put("failed", failed.sum());
+        events.put("rolledBack", rolledBack.sum());
+        Map<String, Object> parse = new LinkedHashMap<>();
+        parse.put("template", parseTemplate.snapshot());
+        parse.put("druid", parseDruid.snapshot());
+        Map<String, Object> enrich = new LinkedHashMap<>();
+        enrich.put("memory", enrichMemory.snapshot());
+        enrich.put("db", enrichDb.snapshot());
+        Map<String, Object> handlerStats = new LinkedHashMap<>();
+        handlers.forEach((name, stat) -> handlerStats.put(name, stat.snapshot()));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("events", events);
+        snapshot.put("parse", parse);
+        snapshot.put("enrich", enrich);
+        snapshot.put("handlers", handlerStats);
+        return snapshot;
+    }
+
+    private static void bindHandler(MeterRegistry registry, String name, Stat stat) {
+        FunctionTimer.builder(PREFIX + ".handler.latency", stat, Stat::count, Stat::totalNanos, TimeUnit.NANOSECONDS)
+                .tag("handler", name)
+                .description("Handler 单批处理耗时")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".handler.errors", stat, Stat::errors)
+                .tag("handler", name)
+                .description("Handler 处理失败数")
+                .register(registry);
+    }
+
+    static <T> void counter(MeterRegistry registry, String name, String outcome, T obj, ToDoubleFunction<T> f) {
+        FunctionCounter.builder(PREFIX + "." + name, obj, f).tag("outcome", outcome).register(registry);
+    }
+
+    private static void timer(MeterRegistry registry, String name, String tagKey, String tagValue, Stat stat) {
+        FunctionTimer.builder(PREFIX + "." + name, stat, Stat::count, Stat::totalNanos, TimeUnit.NANOSECONDS)
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+
+    /**
+     * 计数 + 总耗时 + 最大耗时 + 失败数
+     */
+    public static final class Stat {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder errors = new LongAdder();
+        // 由被统计对象自身维护的失败数 (如单条适配器内被吞掉的异常)
+        private volatile LongSupplier externalErrors = () -> 0;
+
+        public void includeErrors(LongSupplier externalErrors) {
+            this.externalErrors = externalErrors;
+        }
+
+        public void record(long nanos, boolean error) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        double totalNanos() {
+            return totalNanos.sum();
+        }
+
+        double errors() {
+            return errors.sum() + externalErrors.getAsLong();
+        }
+
+        Map<String, Object> snapshot() {
+            long n = count.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", n);
+            snapshot.put("errors", (long) errors());
+            snapshot.put("avgMillis", n == 0 ? 0 : totalNanos.sum() / (double) n / 1_000_000);
+            snapshot.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.opay.offline.component.monitor.core;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import static com.opay.offline.component.monitor.core.CaptureMetrics.PREFIX;
+import static com.opay.offline.component.monitor.core.CaptureMetrics.counter;
+
+/**
+ * 队列、采样、溢出日志、结果预算、Handler 通道等组件自身维护的状态，注册为 Micrometer 指标
+ * <p>
+ * 与 {@link CaptureMetrics} 分开注册：分发器依赖 CaptureMetrics，这里依赖分发器，避免循环依赖
+ */
+@Component
+@RequiredArgsConstructor
+public class CapturePipelineMetrics implements MeterBinder {
+
+    private final MonitorExecutorService threadPool;
+    private final CaptureSampler sampler;
+    private final ResultMemoryBudget resultBudget;
+    private final SqlCaptureDispatcher dispatcher;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(PREFIX + ".queue.depth", threadPool, MonitorExecutorService::getQueueSize)
+                .description("异步队列积压事件数")
+                .register(registry);
+        Gauge.builder(PREFIX + ".queue.capacity", threadPool, MonitorExecutorService::getQueueCapacity)
+                .register(registry);
+        Gauge.builder(PREFIX + ".workers.active", threadPool, MonitorExecutorService::getActiveWorkers)
+                .description("正在处理事件的工作线程数")
+                .register(registry);
+
+        counter(registry, "events", "dropped", threadPool, MonitorExecutorService::getDroppedCount);
+        counter(registry, "events", "sampled_out", sampler, CaptureSampler::getSampledOutCount);
+        counter(registry, "events", "rate_limited", sampler, CaptureSampler::getRateLimitedCount);
+
+        CaptureSpillLog spillLog = dispatcher.getSpillLog();
+        if (spillLog != null) {
+            counter(registry, "events", "spilled", spillLog, CaptureSpillLog::getSpilledCount);
+            counter(registry, "events", "replayed", spillLog, CaptureSpillLog::getReplayedCount);
+            counter(registry, "events", "spill_dropped", spillLog, CaptureSpillLog::getDroppedCount);
+        }
+
+        Gauge.builder(PREFIX + ".result.reserved", resultBudget, ResultMemoryBudget::getReservedBytes)
+                .baseUnit("bytes")
+                .description("队列中事件的结果快照占用字节数")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + ".result.rejected", resultBudget, ResultMemoryBudget::getRejectedCount)
+                .description("因总字节预算不足而放弃结果快照的次数")
+                .register(registry);
+
+        for (HandlerLane lane : dispatcher.getLanes()) {
+            Gauge.builder(PREFIX + ".lane.depth", lane, HandlerLane::getQueueDepth)
+                    .tag("handler", lane.getName())
+                    .register(registry);
+            FunctionCounter.builder(PREFIX + ".lane.dropped", lane, HandlerLane::getDroppedCount)
+                    .tag("handler", lane.getName())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.opay.offline.component.monitor.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶 (GCRA 实现)：只维护一个 "理论到达时间"，CAS 推进，不需要后台补充线程
+ * <p>
+ * 允许最多 1 秒的突发量，即 permitsPerSecond 个令牌
+ */
+public class CaptureRateLimiter {
+
+    private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // 每个令牌的间隔 (纳秒)，<= 0 表示不限流
+    private final long intervalNanos;
+    // 允许超前消费的时长
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public CaptureRateLimiter(int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            this.intervalNanos = 0;
+            this.burstToleranceNanos = 0;
+        } else {
+            this.intervalNanos = Math.max(1, ONE_SECOND_NANOS / permitsPerSecond);
+            this.burstToleranceNanos = ONE_SECOND_NANOS - intervalNanos;
+        }
+    }
+
+    public boolean tryAcquire() {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        for (; ; ) {
+            long tat = theoreticalArrival.get();
+            long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            if (base - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+}
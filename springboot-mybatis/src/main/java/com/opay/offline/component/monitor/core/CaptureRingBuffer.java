@@ -0,0 +1,118 @@
+package com.opay.offline.component.monitor.core;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 无锁多生产者 / 多消费者环形队列 (Vyukov bounded MPMC)
+ * <p>
+ * 1. 槽位与序号数组在构造时一次性分配，发布/消费过程中不产生任何对象
+ * 2. 队列满时 offer 立即返回 false，绝不阻塞业务线程 (丢弃计数由调用方按各自语义统计)
+ * 3. 消费端提供 drainTo 批量拉取
+ */
+public class CaptureRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    // 每个槽位的序号：等于写游标表示可写，等于写游标 + 1 表示可读
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerCursor = new AtomicLong();
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    public CaptureRingBuffer(int requestedCapacity) {
+        this.capacity = roundUpToPowerOfTwo(Math.max(2, requestedCapacity));
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 发布事件，队列满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        long pos = producerCursor.get();
+        for (; ; ) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (producerCursor.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = producerCursor.get();
+            } else if (diff < 0) {
+                // 槽位尚未被消费，队列已满
+                return false;
+            } else {
+                pos = producerCursor.get();
+            }
+        }
+    }
+
+    /**
+     * 取出一个事件，队列为空时返回 null
+     */
+    public E poll() {
+        long pos = consumerCursor.get();
+        for (; ; ) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (consumerCursor.compareAndSet(pos, pos + 1)) {
+                    E element = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.lazySet(index, pos + capacity);
+                    return element;
+                }
+                pos = consumerCursor.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = consumerCursor.get();
+            }
+        }
+    }
+
+    /**
+     * 批量拉取，最多 maxElements 个
+     *
+     * @return 实际拉取数量
+     */
+    public int drainTo(Collection<? super E> sink, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            sink.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    public int size() {
+        long size = producerCursor.get() - consumerCursor.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 采样与限流：在拦截器分配任何上下文对象之前决定是否捕获
+ * <p>
+ * 1. 按语句预先计算好的采样率 (见 {@link CaptureDecision#getSampleRate()}) 做概率采样
+ * 2. 命中后再经过全局令牌桶，限制每秒捕获事件数
+ * 3. 未被采样的语句执行失败或超过慢 SQL 阈值时强制捕获，不受限流约束
+ */
+@Component
+public class CaptureSampler {
+
+    private final SqlCaptureProperties.Sampling sampling;
+    // 运行时调整限流时整体替换
+    private volatile CaptureRateLimiter rateLimiter;
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    public CaptureSampler(SqlCaptureProperties properties) {
+        this.sampling = properties.getSampling();
+        this.rateLimiter = new CaptureRateLimiter(sampling.getMaxEventsPerSecond());
+    }
+
+    public boolean sample(CaptureDecision decision) {
+        double rate = decision.getSampleRate();
+        if (rate < 1.0 && (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+            sampledOut.increment();
+            return false;
+        }
+        if (!rateLimiter.tryAcquire()) {
+            rateLimited.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 调整每秒最多捕获的事件数，<= 0 表示不限制
+     */
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        sampling.setMaxEventsPerSecond(maxEventsPerSecond);
+        rateLimiter = new CaptureRateLimiter(maxEventsPerSecond);
+    }
+
+    /**
+     * 未被采样的语句执行完后，判断是否需要强制捕获
+     */
+    public boolean forceCapture(boolean success, long durationMillis) {
+        if (!success && sampling.isAlwaysCaptureFailures()) {
+            return true;
+        }
+        long slowThreshold = sampling.getSlowThresholdMillis();
+        return slowThreshold > 0 && durationMillis >= slowThreshold;
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+}
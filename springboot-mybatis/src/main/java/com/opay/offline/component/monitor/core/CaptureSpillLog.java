@@ -0,0 +1,341 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.support.CapturedSqlInfoCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 溢出日志：队列满 / 停机未处理的事件追加写入本地内存映射文件，按段滚动，负载下降后按写入顺序回放
+ * <p>
+ * 记录格式为 [int 长度][payload]，长度在 payload 写完后才写入，读到 0 即视为段尾，进程崩溃不会留下半条记录。
+ * payload 为 {@link CapturedSqlInfoCodec} 二进制编码，字典以段为单位，每个段从头顺序读取。
+ * 段回放完才删除，回放中途崩溃会在下次启动时重复回放该段 (至少一次)。
+ */
+@Slf4j
+public class CaptureSpillLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int LENGTH_BYTES = 4;
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    // --- 写入状态 (锁: this) ---
+    // 已封存、等待回放的段序号
+    private final Deque<Long> sealed = new ArrayDeque<>();
+    private long nextSeq;
+    private long activeSeq;
+    private MappedByteBuffer active;
+    private int activeRecords;
+    private boolean closed;
+    private final CapturedSqlInfoCodec.Encoder encoder = new CapturedSqlInfoCodec.Encoder();
+
+    // --- 回放状态 (锁: readLock，只有回放线程访问) ---
+    private final Object readLock = new Object();
+    private long readingSeq;
+    private MappedByteBuffer reading;
+    private final CapturedSqlInfoCodec.Decoder decoder = new CapturedSqlInfoCodec.Decoder();
+    private byte[] readBuffer = new byte[1024];
+
+    // 磁盘上的段文件数 (含写入中 / 回放中)
+    private final AtomicInteger segmentCount = new AtomicInteger();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public CaptureSpillLog(String dir, int segmentBytes, int maxSegments) throws IOException {
+        this.dir = Paths.get(dir);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(this.dir);
+        recover();
+    }
+
+    /**
+     * 启动时把上次遗留的段文件全部视为已封存，等待回放
+     */
+    private void recover() throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    seqs.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("忽略无法识别的溢出段文件: {}", path);
+                }
+            }
+        }
+        Collections.sort(seqs);
+        sealed.addAll(seqs);
+        segmentCount.set(seqs.size());
+        nextSeq = seqs.isEmpty() ? 0 : seqs.get(seqs.size() - 1) + 1;
+        if (!seqs.isEmpty()) {
+            log.info("发现 {} 个待回放的 SQL 监控溢出段: {}", seqs.size(), dir);
+        }
+    }
+
+    /**
+     * 追加一条记录，只做序列化 + 内存拷贝，不做同步刷盘
+     *
+     * @return false 表示记录被丢弃 (段数已达上限 / 单条超过段大小 / 已关闭)
+     */
+    public boolean append(CapturedSqlInfo info) {
+        synchronized (this) {
+            if (closed || !write(info)) {
+                dropped.increment();
+                return false;
+            }
+            activeRecords++;
+        }
+        spilled.increment();
+        return true;
+    }
+
+    /**
+     * 编码依赖段内字典，必须在锁内按写入顺序编码
+     */
+    private boolean write(CapturedSqlInfo info) {
+        int required;
+        try {
+            required = LENGTH_BYTES + encoder.encode(info);
+        } catch (Exception e) {
+            log.warn("Spill encoding failed", e);
+            encoder.discardLast();
+            return false;
+        }
+        if (required > segmentBytes) {
+            encoder.discardLast();
+            return false;
+        }
+        if (active == null || active.remaining() < required) {
+            // 换段后字典清空，需要重新编码
+            encoder.discardLast();
+            if (!rollSegment()) {
+                return false;
+            }
+            required = LENGTH_BYTES + encoder.encode(info);
+        }
+        int pos = active.position();
+        active.position(pos + LENGTH_BYTES);
+        encoder.writeTo(active);
+        // 长度最后写入，读到 0 即视为段尾
+        active.putInt(pos, required - LENGTH_BYTES);
+        return true;
+    }
+
+    private boolean rollSegment() {
+        sealActive();
+        if (segmentCount.get() >= maxSegments) {
+            return false;
+        }
+        long seq = nextSeq++;
+        try (FileChannel channel = FileChannel.open(segmentPath(seq),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射时文件扩展为 segmentBytes，新增部分全部为 0
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            log.error("创建溢出段失败: {}", segmentPath(seq), e);
+            return false;
+        }
+        activeSeq = seq;
+        activeRecords = 0;
+        encoder.reset();
+        segmentCount.incrementAndGet();
+        return true;
+    }
+
+    private void sealActive() {
+        if (active == null) {
+            return;
+        }
+        unmap(active);
+        active = null;
+        if (activeRecords > 0) {
+            sealed.addLast(activeSeq);
+        } else {
+            deleteSegment(activeSeq);
+        }
+        // 记录已随段封存，不再计为写入中的待回放记录
+        activeRecords = 0;
+    }
+
+    /**
+     * 按写入顺序回放，回放完的段立即删除
+     *
+     * @return 本次回放的记录数
+     */
+    public int replay(int maxRecords, Consumer<CapturedSqlInfo> sink) {
+        synchronized (readLock) {
+            int count = 0;
+            while (count < maxRecords) {
+                if (reading == null && !openNextSegment()) {
+                    break;
+                }
+                CapturedSqlInfo info = readNext();
+                if (info == null) {
+                    unmap(reading);
+                    reading = null;
+                    deleteSegment(readingSeq);
+                    continue;
+                }
+                sink.accept(info);
+                count++;
+            }
+            replayed.add(count);
+            return count;
+        }
+    }
+
+    private boolean openNextSegment() {
+        Long seq;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            // 没有已封存的段时，把写入中的段封存后回放
+            if (sealed.isEmpty() && activeRecords > 0) {
+                sealActive();
+            }
+            seq = sealed.pollFirst();
+        }
+        if (seq == null) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(seq), StandardOpenOption.READ)) {
+            reading = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readingSeq = seq;
+            decoder.reset();
+            return true;
+        } catch (IOException e) {
+            log.error("读取溢出段失败，跳过: {}", segmentPath(seq), e);
+            deleteSegment(seq);
+            return false;
+        }
+    }
+
+    private CapturedSqlInfo readNext() {
+        while (reading.remaining() >= LENGTH_BYTES) {
+            int pos = reading.position();
+            int length = reading.getInt(pos);
+            if (length <= 0 || length > reading.remaining() - LENGTH_BYTES) {
+                return null;
+            }
+            if (readBuffer.length < length) {
+                readBuffer = new byte[Math.max(length, readBuffer.length << 1)];
+            }
+            reading.position(pos + LENGTH_BYTES);
+            reading.get(readBuffer, 0, length);
+            try {
+                return decoder.decode(readBuffer, 0, length);
+            } catch (Exception e) {
+                log.warn("Spill record decoding failed, skipped", e);
+                dropped.increment();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否有待回放的记录
+     */
+    public boolean hasPending() {
+        synchronized (this) {
+            if (!sealed.isEmpty() || activeRecords > 0) {
+                return true;
+            }
+        }
+        synchronized (readLock) {
+            return reading != null;
+        }
+    }
+
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 关闭：写入中的段刷盘后保留，未回放的段留待下次启动回放
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (active != null) {
+                active.force();
+                unmap(active);
+                active = null;
+                if (activeRecords == 0) {
+                    deleteSegment(activeSeq);
+                }
+            }
+        }
+        synchronized (readLock) {
+            if (reading != null) {
+                unmap(reading);
+                reading = null;
+            }
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return dir.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    private void deleteSegment(long seq) {
+        try {
+            Files.deleteIfExists(segmentPath(seq));
+        } catch (IOException e) {
+            log.warn("删除溢出段失败: {}", segmentPath(seq), e);
+        }
+        segmentCount.decrementAndGet();
+    }
+
+    /**
+     * 立即释放映射 (JDK 8 无公开 API)，失败时由 GC 回收
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            log.debug("Unmap failed, left to GC", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 溢出日志回放：定时检查，负载回落 (idle 为 true) 时分批把溢出事件交回分发器
+ */
+@Slf4j
+public class CaptureSpillReplayer {
+
+    private final CaptureSpillLog spillLog;
+    private final BooleanSupplier idle;
+    private final int batchSize;
+    private final Consumer<CapturedSqlInfo> sink;
+    private final ScheduledExecutorService timer;
+
+    public CaptureSpillReplayer(CaptureSpillLog spillLog, BooleanSupplier idle, int batchSize,
+                                long intervalMillis, Consumer<CapturedSqlInfo> sink) {
+        this.spillLog = spillLog;
+        this.idle = idle;
+        this.batchSize = Math.max(1, batchSize);
+        this.sink = sink;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sql-capture-spill-replayer");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, intervalMillis);
+        // 启动后首轮即回放上次遗留的段
+        timer.scheduleWithFixedDelay(this::replayWhileIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void replayWhileIdle() {
+        try {
+            // 每批之间重新检查负载，积压回升时让出
+            while (idle.getAsBoolean() && spillLog.replay(batchSize, sink) > 0) {
+                log.debug("已回放 SQL 监控溢出事件 {} 条", spillLog.getReplayedCount());
+            }
+        } catch (Throwable t) {
+            log.error("Spill replay failed", t);
+        }
+    }
+
+    public void close() {
+        timer.shutdown();
+        try {
+            // 等待进行中的一批回放结束，避免与溢出日志关闭并发
+            timer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
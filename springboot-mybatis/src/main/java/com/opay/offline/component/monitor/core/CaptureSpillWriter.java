@@ -0,0 +1,122 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 溢出写入线程：队列满时业务线程只把上下文放入无锁环形队列，由单独线程组装 SQL 并写入溢出日志
+ * <p>
+ * 业务线程不做 SQL 渲染 / 解析，也不竞争溢出段的写锁；写入队列也满时 offer 返回 false，由调用方丢弃
+ */
+@Slf4j
+public class CaptureSpillWriter {
+
+    private static final int DRAIN_BATCH = 64;
+    // park 等待 offer 唤醒，超时只是兜底 (停机检查)
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final CaptureRingBuffer<SqlCaptureContext> handoff;
+    private final Consumer<SqlCaptureContext> writer;
+    private final Thread thread;
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    /**
+     * @param writer 在写入线程内组装并写入溢出日志，需自行处理异常与资源释放
+     */
+    public CaptureSpillWriter(int capacity, Consumer<SqlCaptureContext> writer) {
+        this.handoff = new CaptureRingBuffer<>(capacity);
+        this.writer = writer;
+        this.thread = new Thread(this::writeLoop, "sql-capture-spill-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 交给写入线程，不阻塞、不加锁
+     *
+     * @return false 表示写入队列已满或已关闭
+     */
+    public boolean offer(SqlCaptureContext context) {
+        if (!running || !handoff.offer(context)) {
+            rejected.increment();
+            return false;
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void writeLoop() {
+        List<SqlCaptureContext> batch = new ArrayList<>(DRAIN_BATCH);
+        // 停机时继续写入，直到队列清空
+        while (running || handoff.size() > 0) {
+            if (handoff.drainTo(batch, DRAIN_BATCH) == 0) {
+                parked = true;
+                // 登记后再检查一次队列，避免与 offer 之间丢失唤醒
+                if (running && handoff.size() == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                parked = false;
+                continue;
+            }
+            for (SqlCaptureContext context : batch) {
+                write(context);
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(SqlCaptureContext context) {
+        try {
+            writer.accept(context);
+        } catch (Throwable t) {
+            log.error("Spill writing failed", t);
+        }
+    }
+
+    /**
+     * 待写入的事件数
+     */
+    public int getPendingCount() {
+        return handoff.size();
+    }
+
+    /**
+     * 写入队列满 (或已关闭) 而被拒绝的事件数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 停止接收并等待写入线程写完已接收的事件 (最多 5 秒)；线程结束后才入队的事件在当前线程补写
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("SQL 监控溢出写入线程未在 {}ms 内结束", SHUTDOWN_TIMEOUT_MILLIS);
+            return;
+        }
+        SqlCaptureContext context;
+        while ((context = handoff.poll()) != null) {
+            write(context);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * 线程池模式下的捕获任务，保留上下文引用，被拒绝 / 停机未执行时可取回事件
+ */
+@Getter
+public class CaptureTask implements Runnable {
+    private final SqlCaptureContext context;
+    private final Consumer<SqlCaptureContext> action;
+
+    public CaptureTask(SqlCaptureContext context, Consumer<SqlCaptureContext> action) {
+        this.context = context;
+        this.action = action;
+    }
+
+    @Override
+    public void run() {
+        action.accept(context);
+    }
+}
@@ -0,0 +1,203 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.handler.SqlCaptureBatchHandler;
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 单个 Handler 的独立投递通道：独立的有界队列、线程数与溢出策略
+ * <p>
+ * 慢 Handler 只会积压自己的通道，不影响其他 Handler 与共享队列 (CALLER_RUNS 策略除外)
+ */
+@Slf4j
+public class HandlerLane {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    @Getter
+    private final String name;
+    private final SqlCaptureBatchHandler handler;
+    private final CaptureMetrics.Stat handlerStat;
+    // 批次处理完或被丢弃后回调 (事件池确认)
+    private final Consumer<List<CapturedSqlInfo>> onComplete;
+    private final ThreadPoolExecutor executor;
+
+    // --- 指标 (单位：事件数) ---
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    // 排队等待 + 执行的总耗时 / 最大耗时 (纳秒，按批次)
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    // Handler 执行总耗时 (纳秒，按批次)
+    private final LongAdder totalHandleNanos = new LongAdder();
+
+    public HandlerLane(String name, SqlCaptureBatchHandler handler, CaptureMetrics.Stat handlerStat,
+                       SqlCaptureProperties.Lane config, Consumer<List<CapturedSqlInfo>> onComplete) {
+        this.name = name;
+        this.handler = handler;
+        this.handlerStat = handlerStat;
+        this.onComplete = onComplete;
+        int threads = Math.max(1, config.getConcurrency());
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "sql-capture-lane-" + name + "-" + seq.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                rejectionHandler(config.getOverflowPolicy()));
+    }
+
+    private RejectedExecutionHandler rejectionHandler(SqlCaptureProperties.LaneOverflowPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                // 反压：由分发线程直接执行，积压传导回共享队列
+                return (r, e) -> {
+                    if (!e.isShutdown()) {
+                        r.run();
+                    } else {
+                        drop(r);
+                    }
+                };
+            case DROP_OLDEST:
+                return (r, e) -> {
+                    if (e.isShutdown()) {
+                        drop(r);
+                        return;
+                    }
+                    BlockingQueue<Runnable> queue = e.getQueue();
+                    Runnable oldest = queue.poll();
+                    if (oldest != null) {
+                        drop(oldest);
+                    }
+                    if (!queue.offer(r)) {
+                        drop(r);
+                    }
+                };
+            case DROP_NEWEST:
+            default:
+                return (r, e) -> drop(r);
+        }
+    }
+
+    private void drop(Runnable r) {
+        if (r instanceof LaneTask) {
+            dropped.add(((LaneTask) r).batch.size());
+            onComplete.accept(((LaneTask) r).batch);
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @param batch  处理完 (或丢弃) 后确认的原始事件
+     * @param events 交给 Handler 的事件 (本通道独占的浅拷贝，或原始事件本身)
+     */
+    public void submit(List<CapturedSqlInfo> batch, List<CapturedSqlInfo> events) {
+        executor.execute(new LaneTask(batch, events));
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 批次平均延迟 (入队到处理完成，毫秒)
+     */
+    public double getAverageLatencyMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (double) count / 1_000_000;
+    }
+
+    /**
+     * 批次最大延迟 (入队到处理完成，毫秒)
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 批次平均处理耗时 (仅 Handler 执行，毫秒)
+     */
+    public double getAverageHandleMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0 : totalHandleNanos.sum() / (double) count / 1_000_000;
+    }
+
+    /**
+     * 停机：处理完已入队的批次，最多等待 5 秒
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow().forEach(this::drop);
+                log.warn("Handler 通道 [{}] 关闭超时，剩余批次已丢弃", name);
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow().forEach(this::drop);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class LaneTask implements Runnable {
+        private final List<CapturedSqlInfo> batch;
+        private final List<CapturedSqlInfo> events;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private LaneTask(List<CapturedSqlInfo> batch, List<CapturedSqlInfo> events) {
+            this.batch = batch;
+            this.events = events;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            boolean error = false;
+            try {
+                handler.onCaptureBatch(events);
+                processed.add(batch.size());
+            } catch (Exception e) {
+                error = true;
+                failed.add(batch.size());
+                log.error("Handler [{}] failed", name, e);
+            } finally {
+                long end = System.nanoTime();
+                handlerStat.record(end - start, error);
+                batches.increment();
+                totalHandleNanos.add(end - start);
+                totalLatencyNanos.add(end - enqueuedNanos);
+                maxLatencyNanos.accumulate(end - enqueuedNanos);
+                onComplete.accept(batch);
+            }
+        }
+    }
+}
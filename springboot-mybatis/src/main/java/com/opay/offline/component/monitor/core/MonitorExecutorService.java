@@ -1,34 +1,266 @@
 package com.opay.offline.component.monitor.core;
 
 import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Slf4j
 @Component
 public class MonitorExecutorService implements DisposableBean {
 
+    // 消费线程空转多少轮后进入 park
+    private static final int SPIN_TRIES = 100;
+    // park 等待 publish 唤醒，超时只是兜底 (停机检查)，空闲线程每秒最多醒来 10 次
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final SqlCaptureProperties properties;
     private final ExecutorService executor;
+    // THREAD_POOL 模式的任务队列，容量可运行时调整
+    private final ResizableCaptureQueue<Runnable> queue;
+    private final CaptureRingBuffer<SqlCaptureContext> ringBuffer;
+    private final List<Thread> consumers = new ArrayList<>();
+    // RING_BUFFER 模式下正在处理事件的消费线程数
+    private final AtomicInteger busyConsumers = new AtomicInteger();
+    // RING_BUFFER 模式下已 park 的消费线程 (按线程下标占位) 及其数量，publish 据此唤醒
+    private volatile AtomicReferenceArray<Thread> sleepers;
+    private final AtomicInteger sleeping = new AtomicInteger();
+    // 队列满 / 停机未处理且未被溢出处理接收的事件数
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicBoolean destroyed = new AtomicBoolean();
+    private volatile boolean running = true;
+    // 溢出处理 (如写入溢出日志)，返回 false 表示未接收；为 null 时直接丢弃
+    private volatile Predicate<SqlCaptureContext> overflowHandler;
 
     public MonitorExecutorService(SqlCaptureProperties properties) {
-        this.executor = new ThreadPoolExecutor(
-                properties.getCorePoolSize(),
-                properties.getMaxPoolSize(),
-                properties.getKeepAliveSeconds(), TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
-                r -> new Thread(r, "sql-capture-thread"),
-                new ThreadPoolExecutor.DiscardPolicy() // 队列满直接丢弃，绝不阻塞业务主线程
-        );
+        this.properties = properties;
+        if (properties.getExecutorMode() == SqlCaptureProperties.ExecutorMode.RING_BUFFER) {
+            this.executor = null;
+            this.queue = null;
+            this.ringBuffer = new CaptureRingBuffer<>(properties.getRingBufferSize());
+        } else {
+            this.ringBuffer = null;
+            this.queue = new ResizableCaptureQueue<>(properties.getQueueCapacity());
+            this.executor = new ThreadPoolExecutor(
+                    properties.getCorePoolSize(),
+                    properties.getMaxPoolSize(),
+                    properties.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                    queue,
+                    r -> new Thread(r, "sql-capture-thread"),
+                    (r, e) -> overflow(r) // 队列满交给溢出处理或丢弃计数，绝不阻塞业务主线程
+            );
+        }
+    }
+
+    public void setOverflowHandler(Predicate<SqlCaptureContext> overflowHandler) {
+        this.overflowHandler = overflowHandler;
+    }
+
+    public boolean isRingBufferMode() {
+        return ringBuffer != null;
     }
 
     public void execute(Runnable runnable) {
-        executor.execute(new TraceableExecutor(runnable));
+        // trace.copyMdc 的 MDC 快照随事件携带，不再包装任务
+        executor.execute(runnable);
+    }
+
+    /**
+     * RING_BUFFER 模式：直接发布上下文，不产生 Runnable 包装对象
+     *
+     * @return false 表示队列已满，事件已交给溢出处理或被丢弃
+     */
+    public boolean publish(SqlCaptureContext context) {
+        if (ringBuffer.offer(context)) {
+            if (sleeping.get() > 0) {
+                wakeConsumer();
+            }
+            return true;
+        }
+        overflow(context);
+        return false;
+    }
+
+    /**
+     * 唤醒一个已 park 的消费线程 (只在有线程 park 时调用，忙时 publish 不产生额外开销)
+     */
+    private void wakeConsumer() {
+        AtomicReferenceArray<Thread> parked = sleepers;
+        if (parked == null) {
+            return;
+        }
+        for (int i = 0; i < parked.length(); i++) {
+            Thread t = parked.getAndSet(i, null);
+            if (t != null) {
+                sleeping.decrementAndGet();
+                LockSupport.unpark(t);
+                return;
+            }
+        }
+    }
+
+    private void overflow(Runnable task) {
+        if (task instanceof CaptureTask) {
+            overflow(((CaptureTask) task).getContext());
+        } else if (task instanceof CaptureBatchTask) {
+            ((CaptureBatchTask) task).getContexts().forEach(this::overflow);
+        } else {
+            rejected.increment();
+        }
+    }
+
+    private void overflow(SqlCaptureContext context) {
+        Predicate<SqlCaptureContext> handler = overflowHandler;
+        try {
+            if (handler != null && handler.test(context)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Overflow handling failed", e);
+        }
+        rejected.increment();
+    }
+
+    /**
+     * RING_BUFFER 模式：启动消费线程，每个线程批量拉取后交给 batchConsumer 处理
+     */
+    public synchronized void startConsumers(Consumer<List<SqlCaptureContext>> batchConsumer) {
+        if (!isRingBufferMode() || !consumers.isEmpty()) {
+            return;
+        }
+        int threads = Math.max(1, properties.getCorePoolSize());
+        sleepers = new AtomicReferenceArray<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int slot = i;
+            Thread t = new Thread(() -> consumeLoop(slot, batchConsumer), "sql-capture-ring-" + i);
+            t.setDaemon(true);
+            consumers.add(t);
+            t.start();
+        }
+    }
+
+    private void consumeLoop(int slot, Consumer<List<SqlCaptureContext>> batchConsumer) {
+        int batchSize = Math.max(1, properties.getDrainBatchSize());
+        List<SqlCaptureContext> batch = new ArrayList<>(batchSize);
+        int idle = 0;
+        // 停机时继续消费，直到队列清空
+        while (running || ringBuffer.size() > 0) {
+            if (ringBuffer.drainTo(batch, batchSize) == 0) {
+                if (++idle < SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    park(slot);
+                }
+                continue;
+            }
+            idle = 0;
+            busyConsumers.incrementAndGet();
+            try {
+                batchConsumer.accept(batch);
+            } catch (Throwable t) {
+                log.error("Ring buffer consumer failed", t);
+            } finally {
+                busyConsumers.decrementAndGet();
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 登记后再检查一次队列，避免与 publish 之间丢失唤醒；被 publish 唤醒时占位已由其清除
+     */
+    private void park(int slot) {
+        Thread self = Thread.currentThread();
+        sleeping.incrementAndGet();
+        sleepers.set(slot, self);
+        if (running && ringBuffer.size() == 0) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        if (sleepers.compareAndSet(slot, self, null)) {
+            sleeping.decrementAndGet();
+        }
+    }
+
+    /**
+     * 丢弃的事件总数 (队列满 / 停机未处理，且未被溢出处理接收)
+     */
+    public long getDroppedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 当前积压的事件数
+     */
+    public int getQueueSize() {
+        if (ringBuffer != null) {
+            return ringBuffer.size();
+        }
+        return ((ThreadPoolExecutor) executor).getQueue().size();
+    }
+
+    /**
+     * 正在处理事件的工作线程数
+     */
+    public int getActiveWorkers() {
+        if (ringBuffer != null) {
+            return busyConsumers.get();
+        }
+        return ((ThreadPoolExecutor) executor).getActiveCount();
+    }
+
+    /**
+     * 队列容量
+     */
+    public int getQueueCapacity() {
+        return ringBuffer != null ? ringBuffer.capacity() : queue.getCapacity();
+    }
+
+    /**
+     * 核心线程数 (RING_BUFFER 模式下为消费线程数)
+     */
+    public int getCorePoolSize() {
+        return ringBuffer != null ? consumers.size() : ((ThreadPoolExecutor) executor).getCorePoolSize();
+    }
+
+    public int getMaxPoolSize() {
+        return ringBuffer != null ? consumers.size() : ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+    }
+
+    /**
+     * 运行时调整线程数与队列容量，仅 THREAD_POOL 模式支持 (环形队列与消费线程在启动时固定)
+     *
+     * @param corePoolSize 不大于 maxPoolSize
+     */
+    public synchronized void resize(int corePoolSize, int maxPoolSize, int queueCapacity) {
+        if (ringBuffer != null) {
+            throw new IllegalStateException("RING_BUFFER mode does not support resizing at runtime");
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        // 调整顺序保证任意时刻 core <= max
+        if (maxPoolSize >= pool.getCorePoolSize()) {
+            pool.setMaximumPoolSize(maxPoolSize);
+            pool.setCorePoolSize(corePoolSize);
+        } else {
+            pool.setCorePoolSize(corePoolSize);
+            pool.setMaximumPoolSize(maxPoolSize);
+        }
+        queue.setCapacity(queueCapacity);
+        log.info("SQL 监控线程池已调整: core={}, max={}, queueCapacity={}", corePoolSize, maxPoolSize, queueCapacity);
     }
 
     /**
@@ -36,18 +268,51 @@ public class MonitorExecutorService implements DisposableBean {
      */
     @Override
     public void destroy() {
+        // 分发器停机时会先行调用，容器回调时不再重复
+        if (!destroyed.compareAndSet(false, true)) {
+            return;
+        }
         log.info("正在关闭 SQL 监控线程池...");
+        if (ringBuffer != null) {
+            destroyRingBuffer();
+        } else {
+            destroyThreadPool();
+        }
+        log.info("SQL 监控线程池已关闭");
+    }
+
+    private void destroyThreadPool() {
         executor.shutdown();
         try {
             // 等待积压任务处理，最多等待 5 秒
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow().forEach(this::overflow);
             }
         } catch (InterruptedException e) {
-            executor.shutdownNow();
+            executor.shutdownNow().forEach(this::overflow);
             Thread.currentThread().interrupt();
         }
-        log.info("SQL 监控线程池已关闭");
     }
 
-}
\ No newline at end of file
+    private void destroyRingBuffer() {
+        running = false;
+        consumers.forEach(LockSupport::unpark);
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        try {
+            // 等待积压事件消费完，最多等待 5 秒
+            for (Thread t : consumers) {
+                t.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ringBuffer.size() > 0) {
+            log.warn("SQL 监控环形队列仍有 {} 条事件未处理", ringBuffer.size());
+            SqlCaptureContext context;
+            while ((context = ringBuffer.poll()) != null) {
+                overflow(context);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.model.RepeatedQueryFinding;
+import com.opay.offline.component.monitor.support.SqlFingerprint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * N+1 查询检测
+ * <p>
+ * 1. 在捕获线程内按事件上的 traceId 归组 (业务线程提交时从 MDC 复制)
+ * 2. 每个请求按 SQL 指纹计数，请求空闲超过 traceIdleMillis 视为结束，结算后立即释放
+ * 3. 同一指纹次数达到阈值时记录告警日志，并保留最近 maxFindings 条结果供端点查询
+ * <p>
+ * 内存上界：maxTraces x maxFingerprintsPerTrace 个计数器 + maxFindings 条结果
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RepeatedQueryDetector {
+
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+
+    private final SqlCaptureProperties properties;
+
+    private final ConcurrentMap<String, TraceState> traces = new ConcurrentHashMap<>();
+    // 最近的检测结果 (加锁访问)
+    private final Deque<RepeatedQueryFinding> findings = new ArrayDeque<>();
+    // 跟踪请求数达到上限后未纳入统计的事件数
+    private final LongAdder overflow = new LongAdder();
+    private final LongAdder detected = new LongAdder();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        SqlCaptureProperties.RepeatedQuery config = properties.getRepeatedQuery();
+        if (!config.isEnabled()) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sql-capture-repeated-query");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(100, config.getTraceIdleMillis() / 2);
+        sweeper.scheduleWithFixedDelay(() -> sweep(System.currentTimeMillis()), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            // 停机时结算所有未结束的请求
+            sweep(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 在捕获线程中调用
+     */
+    public void observe(CapturedSqlInfo info) {
+        if (sweeper == null || info.getRawSql() == null) {
+            return;
+        }
+        String traceId = info.getTraceId();
+        if (traceId == null) {
+            return;
+        }
+        SqlCaptureProperties.RepeatedQuery config = properties.getRepeatedQuery();
+        String fingerprint = SqlFingerprint.cached(info.getRawSql());
+        long now = System.currentTimeMillis();
+        for (; ; ) {
+            TraceState state = traces.get(traceId);
+            if (state == null) {
+                if (traces.size() >= config.getMaxTraces()) {
+                    overflow.increment();
+                    return;
+                }
+                String endpoint = info.getEndpoint();
+                state = traces.computeIfAbsent(traceId, id -> new TraceState(id, endpoint, now));
+            }
+            if (state.add(fingerprint, info.getMapperMethod(), info.getDurationMillis(), now, config.getMaxFingerprintsPerTrace())) {
+                return;
+            }
+            // 该请求刚被结算移除，按新请求重新计数
+        }
+    }
+
+    /**
+     * 结算空闲超时的请求
+     */
+    void sweep(long now) {
+        long idleMillis = properties.getRepeatedQuery().getTraceIdleMillis();
+        for (TraceState state : traces.values()) {
+            if (state.closeIfIdle(now, idleMillis)) {
+                traces.remove(state.traceId, state);
+                report(state);
+            }
+        }
+    }
+
+    private void report(TraceState state) {
+        SqlCaptureProperties.RepeatedQuery config = properties.getRepeatedQuery();
+        for (Map.Entry<String, Counter> entry : state.counters.entrySet()) {
+            Counter counter = entry.getValue();
+            if (counter.count < config.getThreshold()) {
+                continue;
+            }
+            RepeatedQueryFinding finding = new RepeatedQueryFinding();
+            finding.setTraceId(state.traceId);
+            finding.setEndpoint(state.endpoint != null ? state.endpoint : UNKNOWN_ENDPOINT);
+            finding.setMapperMethod(counter.mapperMethod);
+            finding.setFingerprint(entry.getKey());
+            finding.setCount(counter.count);
+            finding.setTotalMillis(counter.totalMillis);
+            detected.increment();
+            log.warn("疑似 N+1 查询: [{}] {} 在同一请求内执行 {} 次, 累计 {}ms, traceId={}",
+                    finding.getEndpoint(), finding.getMapperMethod(), finding.getCount(), finding.getTotalMillis(), finding.getTraceId());
+            synchronized (findings) {
+                findings.addLast(finding);
+                while (findings.size() > Math.max(0, config.getMaxFindings())) {
+                    findings.removeFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * 最近的检测结果，按时间倒序
+     */
+    public List<RepeatedQueryFinding> getRecentFindings() {
+        List<RepeatedQueryFinding> recent;
+        synchronized (findings) {
+            recent = new ArrayList<>(findings);
+        }
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    public int getActiveTraceCount() {
+        return traces.size();
+    }
+
+    public long getOverflowCount() {
+        return overflow.sum();
+    }
+
+    public long getDetectedCount() {
+        return detected.sum();
+    }
+
+    /**
+     * 单个请求的计数状态，多个捕获线程可能同时写入，按实例加锁
+     */
+    private static final class TraceState {
+        private final String traceId;
+        private final String endpoint;
+        private final Map<String, Counter> counters = new HashMap<>();
+        private long lastSeen;
+        private boolean closed;
+
+        private TraceState(String traceId, String endpoint, long now) {
+            this.traceId = traceId;
+            this.endpoint = endpoint;
+            this.lastSeen = now;
+        }
+
+        /**
+         * @return 已结算关闭时返回 false，调用方需重新获取
+         */
+        synchronized boolean add(String fingerprint, String mapperMethod, long durationMillis, long now, int maxFingerprints) {
+            if (closed) {
+                return false;
+            }
+            lastSeen = now;
+            Counter counter = counters.get(fingerprint);
+            if (counter == null) {
+                if (counters.size() >= maxFingerprints) {
+                    return true;
+                }
+                counter = new Counter(mapperMethod);
+                counters.put(fingerprint, counter);
+            }
+            counter.count++;
+            counter.totalMillis += durationMillis;
+            return true;
+        }
+
+        synchronized boolean closeIfIdle(long now, long idleMillis) {
+            if (now - lastSeen < idleMillis) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+    }
+
+    private static final class Counter {
+        private final String mapperMethod;
+        private int count;
+        private long totalMillis;
+
+        private Counter(String mapperMethod) {
+            this.mapperMethod = mapperMethod;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.opay.offline.component.monitor.core;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 容量可在运行时调整的线程池队列
+ * <p>
+ * ThreadPoolExecutor 只通过 offer 入队，在 offer 中按当前容量拒绝即可；底层为无界队列，
+ * 容量检查与入队在同一把锁内完成 (出队只会腾出空间，无需加锁)，积压不会超出当前容量。
+ * 调小容量不会丢弃已排队的任务，只是在积压降到新容量以下之前拒绝新任务
+ */
+class ResizableCaptureQueue<E> extends LinkedBlockingQueue<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ReentrantLock offerLock = new ReentrantLock();
+    private volatile int capacity;
+
+    ResizableCaptureQueue(int capacity) {
+        setCapacity(capacity);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        // 底层入队本就由 putLock 串行执行，多一把锁不改变业务线程间的竞争
+        offerLock.lock();
+        try {
+            return size() < capacity && super.offer(e);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 排队事件的结果快照全局字节预算
+ * <p>
+ * 业务线程快照后预占，事件离开队列 (分发 / 溢出 / 丢弃) 时释放；预算耗尽时只保留结果摘要
+ */
+@Component
+@RequiredArgsConstructor
+public class ResultMemoryBudget {
+
+    private final SqlCaptureProperties properties;
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public boolean tryReserve(SqlCaptureContext context, long bytes) {
+        long max = properties.getResult().getMaxTotalBytes();
+        for (;;) {
+            long current = reserved.get();
+            if (current + bytes > max) {
+                rejected.increment();
+                return false;
+            }
+            if (reserved.compareAndSet(current, current + bytes)) {
+                context.setResultBytes(bytes);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放该事件预占的字节，重复调用无副作用
+     */
+    public void release(SqlCaptureContext context) {
+        long bytes = context.getResultBytes();
+        if (bytes > 0) {
+            context.setResultBytes(0);
+            reserved.addAndGet(-bytes);
+        }
+    }
+
+    public long getReservedBytes() {
+        return reserved.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,298 @@
+package com.opay.offline.component.monitor.core;
+
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.SQLAllColumnExpr;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.alibaba.druid.sql.ast.statement.*;
+import com.alibaba.druid.sql.dialect.mysql.visitor.MySqlASTVisitorAdapter;
+import com.alibaba.druid.util.JdbcConstants;
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import com.opay.offline.component.monitor.model.SqlExplainPlan;
+import com.opay.offline.component.monitor.support.SqlBuilderUtils;
+import com.opay.offline.component.monitor.support.SqlFingerprint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢 SQL 自动 EXPLAIN
+ * <p>
+ * 1. 捕获事件组装完成后，耗时超过阈值的语句交给单个后台线程执行 EXPLAIN，队列满直接丢弃 (不占用该指纹的间隔名额)
+ * 2. 同一指纹在 explainIntervalSeconds 内最多 EXPLAIN 一次
+ * 3. UPDATE / DELETE 先转为相同条件的 SELECT，不在库上执行任何写语句；INSERT 不处理
+ * 4. 基于原始 SQL (带 ?) 构建，参数通过 ParameterMapping 的 TypeHandler 绑定 (与前镜像读取一致)，不拼接可执行 SQL
+ * 5. 结果挂到 {@link SqlDigestAggregator} 中对应语句的摘要上，摘要关闭时 EXPLAIN 不启用
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlowSqlExplainer {
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final SqlCaptureProperties properties;
+    private final SqlDigestAggregator digestAggregator;
+    // 延迟获取，避免 SqlSessionFactory -> Interceptor -> Dispatcher 的循环依赖
+    private final ObjectProvider<SqlSessionFactory> sqlSessionFactory;
+
+    // 指纹 -> 最近一次 EXPLAIN 的时间
+    private final ConcurrentMap<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isExplainEnabled()) {
+            return;
+        }
+        if (!properties.isDigestEnabled()) {
+            log.warn("monitor.sql.explain-enabled 需要同时开启 monitor.sql.digest-enabled (执行计划挂在摘要上)，慢 SQL EXPLAIN 未启用");
+            return;
+        }
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    Thread t = new Thread(r, "sql-capture-explain");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 在异步线程中调用 (事件已组装完成，MyBatis 对象尚未清理)
+     */
+    public void offer(SqlCaptureContext context) {
+        CapturedSqlInfo info = context.getInfo();
+        if (executor == null || !info.isSuccess() || info.getDurationMillis() < properties.getExplainThresholdMillis()) {
+            return;
+        }
+        SqlCommandType type = info.getSqlCommandType();
+        String rawSql = info.getRawSql();
+        BoundSql boundSql = context.getBoundSql();
+        List<Object> values = context.getParameterValues();
+        if (type != SqlCommandType.SELECT && type != SqlCommandType.UPDATE && type != SqlCommandType.DELETE
+                || rawSql == null || boundSql == null || context.getConfiguration() == null || values == null
+                || values.size() != boundSql.getParameterMappings().size() || values.contains(SqlBuilderUtils.OUT_PARAMETER)) {
+            return;
+        }
+        String fingerprint = SqlFingerprint.cached(rawSql);
+        long now = System.currentTimeMillis();
+        Long last = lastExplained.get(fingerprint);
+        if (!acquire(fingerprint, last, now)) {
+            return;
+        }
+        String statementId = info.getMapperMethod();
+        long durationMillis = info.getDurationMillis();
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        Configuration cfg = context.getConfiguration();
+        try {
+            executor.execute(() -> explain(statementId, fingerprint, type, rawSql, mappings, values, cfg, durationMillis));
+        } catch (RejectedExecutionException e) {
+            // 队列已满 (或已停机)：归还名额，该指纹下次慢执行时仍可触发
+            if (last == null) {
+                lastExplained.remove(fingerprint, now);
+            } else {
+                lastExplained.replace(fingerprint, now, last);
+            }
+        }
+    }
+
+    /**
+     * 每个指纹每个周期只放行一次
+     *
+     * @param last 该指纹上一次放行的时间，未放行过为 null
+     */
+    private boolean acquire(String fingerprint, Long last, long now) {
+        long interval = TimeUnit.SECONDS.toMillis(properties.getExplainIntervalSeconds());
+        if (last != null && now - last < interval) {
+            return false;
+        }
+        if (last == null) {
+            if (lastExplained.size() >= properties.getDigestMaxStatements()) {
+                return false;
+            }
+            return lastExplained.putIfAbsent(fingerprint, now) == null;
+        }
+        return lastExplained.replace(fingerprint, last, now);
+    }
+
+    private void explain(String statementId, String fingerprint, SqlCommandType type, String rawSql,
+                         List<ParameterMapping> mappings, List<Object> values, Configuration cfg, long durationMillis) {
+        SqlExplainPlan plan = new SqlExplainPlan();
+        plan.setStatementId(statementId);
+        plan.setFingerprint(fingerprint);
+        plan.setDurationMillis(durationMillis);
+
+        SelectTemplate select = type == SqlCommandType.SELECT ? SelectTemplate.of(rawSql, values.size()) : SelectTemplate.convert(rawSql);
+        SqlSessionFactory factory = sqlSessionFactory.getIfAvailable();
+        if (select == null || factory == null) {
+            return;
+        }
+        plan.setExplainedSql(select.sql);
+
+        try (SqlSession session = factory.openSession(true);
+             PreparedStatement statement = session.getConnection().prepareStatement("EXPLAIN " + select.sql)) {
+            statement.setQueryTimeout(properties.getExplainTimeoutSeconds());
+            statement.setMaxRows(properties.getExplainMaxRows());
+            for (int i = 0; i < select.paramIndexes.length; i++) {
+                int index = select.paramIndexes[i];
+                bind(statement, i + 1, mappings.get(index), values.get(index), cfg);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                plan.setRows(readRows(rs));
+            }
+            plan.setFullScan(isFullScan(plan.getRows()));
+            if (plan.isFullScan()) {
+                log.warn("慢 SQL 存在全表扫描 [{}] {}ms: {}", statementId, durationMillis, select.sql);
+            }
+        } catch (Exception e) {
+            plan.setError(e.getMessage());
+            log.debug("EXPLAIN failed: {}", select.sql, e);
+        }
+        digestAggregator.attachExplainPlan(plan);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void bind(PreparedStatement ps, int position, ParameterMapping pm, Object value, Configuration cfg) throws Exception {
+        TypeHandler typeHandler = pm.getTypeHandler();
+        JdbcType jdbcType = pm.getJdbcType();
+        if (value == null && jdbcType == null) {
+            jdbcType = cfg.getJdbcTypeForNull();
+        }
+        typeHandler.setParameter(ps, position, value, jdbcType);
+    }
+
+    private static List<Map<String, Object>> readRows(ResultSet rs) throws Exception {
+        ResultSetMetaData meta = rs.getMetaData();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (rs.next()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                row.put(meta.getColumnLabel(i), rs.getObject(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * MySQL：type = ALL；H2 等输出单列计划文本的库：包含 tableScan
+     */
+    private static boolean isFullScan(List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                Object value = entry.getValue();
+                if (value == null) {
+                    continue;
+                }
+                if ("type".equalsIgnoreCase(entry.getKey()) && "ALL".equalsIgnoreCase(value.toString())
+                        || value.toString().contains("tableScan")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 待 EXPLAIN 的 SELECT (带 ?) 及其各 ? 在原始 SQL 参数列表中的下标
+     */
+    private static class SelectTemplate {
+        private final String sql;
+        private final int[] paramIndexes;
+
+        private SelectTemplate(String sql, int[] paramIndexes) {
+            this.sql = sql;
+            this.paramIndexes = paramIndexes;
+        }
+
+        static SelectTemplate of(String selectSql, int paramCount) {
+            int[] indexes = new int[paramCount];
+            for (int i = 0; i < paramCount; i++) {
+                indexes[i] = i;
+            }
+            return new SelectTemplate(selectSql, indexes);
+        }
+
+        /**
+         * UPDATE / DELETE 转为相同 WHERE 的 SELECT *，只绑定 WHERE 中的参数
+         */
+        static SelectTemplate convert(String rawSql) {
+            try {
+                List<SQLStatement> statements = SQLUtils.parseStatements(rawSql, JdbcConstants.MYSQL);
+                if (statements.size() != 1) {
+                    return null;
+                }
+                SQLStatement statement = statements.get(0);
+                SQLTableSource tableSource;
+                SQLExpr where;
+                if (statement instanceof SQLUpdateStatement) {
+                    tableSource = ((SQLUpdateStatement) statement).getTableSource();
+                    where = ((SQLUpdateStatement) statement).getWhere();
+                } else if (statement instanceof SQLDeleteStatement) {
+                    tableSource = ((SQLDeleteStatement) statement).getTableSource();
+                    where = ((SQLDeleteStatement) statement).getWhere();
+                } else {
+                    return null;
+                }
+                List<Integer> indexes = new ArrayList<>();
+                if (where != null) {
+                    where.accept(new MySqlASTVisitorAdapter() {
+                        @Override
+                        public boolean visit(SQLVariantRefExpr x) {
+                            if ("?".equals(x.getName())) {
+                                indexes.add(x.getIndex());
+                            }
+                            return true;
+                        }
+                    });
+                }
+
+                SQLSelectQueryBlock queryBlock = new SQLSelectQueryBlock();
+                queryBlock.addSelectItem(new SQLAllColumnExpr());
+                queryBlock.setFrom(tableSource);
+                queryBlock.setWhere(where);
+                String selectSql = SQLUtils.toSQLString(new SQLSelectStatement(new SQLSelect(queryBlock)), JdbcConstants.MYSQL);
+                return new SelectTemplate(selectSql, indexes.stream().mapToInt(Integer::intValue).toArray());
+            } catch (Exception e) {
+                log.debug("EXPLAIN SQL 转换失败: {}", rawSql);
+                return null;
+            }
+        }
+    }
+}
@@ -3,15 +3,30 @@ package com.opay.offline.component.monitor.core;
 import com.opay.offline.component.monitor.config.SqlCaptureProperties;
 import com.opay.offline.component.monitor.model.CapturedSqlInfo;
 import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import com.opay.offline.component.monitor.handler.SqlCaptureBatchHandler;
 import com.opay.offline.component.monitor.handler.SqlCaptureHandler;
+import com.opay.offline.component.monitor.handler.SqlCaptureHandlerAdapter;
+import com.opay.offline.component.monitor.support.ExecutableSqlRenderer;
+import com.opay.offline.component.monitor.support.MultiRowInsertLayout;
 import com.opay.offline.component.monitor.support.SqlBuilderUtils;
 import com.opay.offline.component.monitor.support.DruidSqlParserHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -21,53 +36,501 @@ public class SqlCaptureDispatcher {
     private final List<SqlCaptureHandler> handlers;
     private final MonitorExecutorService threadPool;
     private final SqlCaptureProperties properties;
+    private final ResultMemoryBudget resultBudget;
+    private final CaptureMetrics metrics;
+    private final SlowSqlExplainer explainer;
+    private final RepeatedQueryDetector repeatedQueryDetector;
+    private final CaptureEventPool eventPool;
+
+    // 单条 Handler 统一适配为批量接口
+    private List<SqlCaptureBatchHandler> batchHandlers = Collections.emptyList();
+    // 与 batchHandlers 一一对应的耗时 / 失败统计
+    private List<CaptureMetrics.Stat> handlerStats = Collections.emptyList();
+    // 未开启 Handler 独立通道时为空，在分发线程内顺序执行
+    private List<HandlerLane> lanes = Collections.emptyList();
+    // batchSize <= 1 时为 null，逐条投递
+    private CaptureBatchAccumulator accumulator;
+    // 未开启溢出日志时为 null
+    private CaptureSpillLog spillLog;
+    private CaptureSpillWriter spillWriter;
+    private CaptureSpillReplayer spillReplayer;
+
+    @PostConstruct
+    public void init() {
+        batchHandlers = handlers.stream()
+                .map(SqlCaptureHandlerAdapter::adapt)
+                .collect(Collectors.toList());
+        handlerStats = batchHandlers.stream()
+                .map(this::handlerStat)
+                .collect(Collectors.toList());
+        if (properties.isHandlerLanesEnabled()) {
+            lanes = new ArrayList<>(batchHandlers.size());
+            for (int i = 0; i < batchHandlers.size(); i++) {
+                String name = handlerName(batchHandlers.get(i));
+                lanes.add(new HandlerLane(name, batchHandlers.get(i), handlerStats.get(i),
+                        properties.getHandlerLanes().getOrDefault(name, properties.getDefaultLane()), eventPool::release));
+            }
+        }
+        if (properties.getBatchSize() > 1) {
+            accumulator = new CaptureBatchAccumulator(properties.getBatchSize(), properties.getBatchLingerMillis(), this::deliver);
+        }
+        if (properties.isSpillEnabled()) {
+            initSpill();
+        }
+        threadPool.setOverflowHandler(this::overflow);
+        if (threadPool.isRingBufferMode()) {
+            threadPool.startConsumers(this::consumeBatch);
+        }
+    }
+
+    private CaptureMetrics.Stat handlerStat(SqlCaptureBatchHandler handler) {
+        CaptureMetrics.Stat stat = metrics.handler(handlerName(handler));
+        if (handler instanceof SqlCaptureHandlerAdapter) {
+            stat.includeErrors(((SqlCaptureHandlerAdapter) handler)::getFailedCount);
+        }
+        return stat;
+    }
+
+    private void initSpill() {
+        try {
+            spillLog = new CaptureSpillLog(properties.getSpillDir(), properties.getSpillSegmentBytes(), properties.getSpillMaxSegments());
+        } catch (IOException e) {
+            log.error("SQL 监控溢出日志初始化失败，队列满时将直接丢弃: {}", properties.getSpillDir(), e);
+            return;
+        }
+        spillWriter = new CaptureSpillWriter(properties.getSpillBufferSize(), this::spill);
+        spillReplayer = new CaptureSpillReplayer(spillLog, this::isReplayable, properties.getSpillReplayBatchSize(),
+                properties.getSpillReplayIntervalMillis(), this::handOff);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (spillReplayer != null) {
+            spillReplayer.close();
+        }
+        // 先停线程池 (积压事件处理完或交给溢出写入线程) 与溢出写入线程，再关闭攒批器与溢出日志
+        threadPool.destroy();
+        if (spillWriter != null) {
+            spillWriter.close();
+        }
+        if (accumulator != null) {
+            accumulator.close();
+        }
+        lanes.forEach(HandlerLane::close);
+        if (spillLog != null) {
+            spillLog.close();
+        }
+    }
 
     public void submit(SqlCaptureContext context) {
-        threadPool.execute(() -> {
-            try {
-                // 1. 利用 Context 构建可执行 SQL
-                processContext(context);
-
-                // 2. 获取纯净 DTO
-                CapturedSqlInfo info = context.getInfo();
-
-                // 3. 分发给所有 Handler
-                for (SqlCaptureHandler handler : handlers) {
-                    try {
-                        handler.onCapture(info);
-                    } catch (Exception e) {
-                        log.error("Handler [{}] failed", handler.getClass().getSimpleName(), e);
-                    }
+        snapshotTrace(context.getInfo());
+        if (properties.isTransactionBufferEnabled()) {
+            TransactionCaptureBuffer buffer = TransactionCaptureBuffer.current(this, properties.getTransactionMaxBuffered(), this::publishTransaction);
+            if (buffer != null) {
+                detachParameters(context);
+                buffer.add(context);
+                return;
+            }
+        }
+        metrics.submitted();
+        if (threadPool.isRingBufferMode()) {
+            // 直接发布到环形队列，不再为每个事件创建 Runnable
+            threadPool.publish(context);
+            return;
+        }
+        threadPool.execute(new CaptureTask(context, this::dispatchTraced));
+    }
+
+    /**
+     * 业务线程内只读取配置的几个 MDC key 写入事件字段，不复制整个 MDC
+     */
+    private void snapshotTrace(CapturedSqlInfo info) {
+        SqlCaptureProperties.Trace trace = properties.getTrace();
+        info.setTraceId(mdcValue(trace.getTraceIdKey()));
+        info.setSpanId(mdcValue(trace.getSpanIdKey()));
+        info.setEndpoint(mdcValue(trace.getEndpointKey()));
+        if (trace.isCopyMdc()) {
+            // 完整 MDC 随事件携带：捕获线程处理时与单条 Handler 回调时恢复
+            info.mdcContext(MDC.getCopyOfContextMap());
+        }
+    }
+
+    private static String mdcValue(String key) {
+        return key == null || key.isEmpty() ? null : MDC.get(key);
+    }
+
+    /**
+     * 事务结束时才组装，参数值须在业务线程内先行解析：同一事务内修改实体后再执行的语句不会改写之前语句的取值，
+     * 缓存期间也不再持有参数对象 (BoundSql 只保留 SQL 与占位符映射，供 EXPLAIN 绑定)
+     */
+    private void detachParameters(SqlCaptureContext ctx) {
+        if (ctx.getBatchParameterObjects() != null) {
+            resolveBatchParams(ctx);
+        } else {
+            CapturedSqlInfo info = ctx.getInfo();
+            BoundSql boundSql = ctx.getBoundSql();
+            if (boundSql == null && ctx.getMappedStatement() != null) {
+                try {
+                    boundSql = ctx.getMappedStatement().getBoundSql(ctx.getParameterObject());
+                } catch (Exception e) {
+                    log.debug("Failed to get BoundSql", e);
+                }
+            }
+            if (info.getRawSql() == null && boundSql != null) {
+                info.setRawSql(boundSql.getSql());
+            }
+            boolean resolved = ctx.getParameterValues() != null;
+            if (!resolved && boundSql != null && ctx.getConfiguration() != null) {
+                try {
+                    ctx.setParameterValues(SqlBuilderUtils.resolveParameterValues(ctx.getConfiguration(), boundSql, ctx.getParameterObject()));
+                    resolved = true;
+                } catch (Exception e) {
+                    log.warn("Parameter resolving failed", e);
                 }
+            }
+            if (resolved) {
+                ctx.setBoundSql(new BoundSql(ctx.getConfiguration(), boundSql.getSql(), boundSql.getParameterMappings(), null));
+            } else {
+                // 无法解析时放弃组装可执行 SQL，只按原始 SQL 解析参数
+                ctx.setBoundSql(null);
+                ctx.setMappedStatement(null);
+            }
+        }
+        ctx.setParameterObject(null);
+    }
+
+    /**
+     * 事务结束 (或缓存达到上限) 时发布整批事件：线程池模式合并为一个任务，环形队列模式依次发布
+     * <p>
+     * 回滚且策略为 DISCARD 时丢弃写语句 (查询照常发布)，并释放其结果快照预算
+     */
+    private void publishTransaction(List<SqlCaptureContext> contexts, CapturedSqlInfo.TransactionOutcome outcome) {
+        List<SqlCaptureContext> published = contexts;
+        if (outcome == CapturedSqlInfo.TransactionOutcome.ROLLED_BACK
+                && properties.getTransactionRollbackPolicy() == SqlCaptureProperties.TransactionRollbackPolicy.DISCARD) {
+            published = new ArrayList<>(contexts.size());
+            for (SqlCaptureContext context : contexts) {
+                if (context.getInfo().getSqlCommandType() == SqlCommandType.SELECT) {
+                    published.add(context);
+                } else {
+                    resultBudget.release(context);
+                    eventPool.release(context.getInfo());
+                }
+            }
+            metrics.rolledBack(contexts.size() - published.size());
+            if (published.isEmpty()) {
+                return;
+            }
+        }
+        for (SqlCaptureContext context : published) {
+            context.getInfo().setTransactionOutcome(outcome);
+            metrics.submitted();
+        }
+        if (threadPool.isRingBufferMode()) {
+            for (SqlCaptureContext context : published) {
+                threadPool.publish(context);
+            }
+            return;
+        }
+        threadPool.execute(new CaptureBatchTask(published, this::dispatchTraced));
+    }
+
+    /**
+     * 队列溢出 (业务线程调用)：开启溢出日志时交给溢出写入线程，否则丢弃；业务线程不组装 SQL、不竞争段锁
+     */
+    private boolean overflow(SqlCaptureContext context) {
+        if (spillWriter != null && spillWriter.offer(context)) {
+            return true;
+        }
+        resultBudget.release(context);
+        eventPool.release(context.getInfo());
+        return false;
+    }
+
+    /**
+     * 溢出写入线程：组装 SQL 后写入溢出日志 (MyBatis 上下文对象无法序列化)，回放时重新解码
+     */
+    private void spill(SqlCaptureContext context) {
+        try {
+            processContext(context);
+            spillLog.append(context.getInfo());
+        } catch (Exception e) {
+            log.warn("Spill processing failed", e);
+        } finally {
+            resultBudget.release(context);
+            eventPool.release(context.getInfo());
+        }
+    }
+
+    private boolean isReplayable() {
+        return threadPool.getQueueSize() < threadPool.getQueueCapacity() * properties.getSpillReplayQueueRatio();
+    }
+
+    /**
+     * 已完成组装的事件进入攒批投递 (溢出回放的事件同样由此进入)
+     */
+    private void handOff(CapturedSqlInfo info) {
+        if (accumulator != null) {
+            accumulator.add(info);
+        } else {
+            deliver(Collections.singletonList(info));
+        }
+    }
+
+    private void consumeBatch(List<SqlCaptureContext> batch) {
+        for (SqlCaptureContext context : batch) {
+            dispatchTraced(context);
+        }
+    }
+
+    /**
+     * 事件携带 MDC 快照 (开启 trace.copyMdc) 时，在捕获线程处理期间恢复
+     */
+    private void dispatchTraced(SqlCaptureContext context) {
+        Map<String, String> mdcContext = context.getInfo().mdcContext();
+        if (mdcContext == null) {
+            dispatch(context);
+            return;
+        }
+        MDC.setContextMap(mdcContext);
+        try {
+            dispatch(context);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private void dispatch(SqlCaptureContext context) {
+        // 获取纯净 DTO
+        CapturedSqlInfo info = context.getInfo();
+        boolean processed = false;
+        try {
+            // 1. 利用 Context 构建可执行 SQL
+            processContext(context);
+            // 2. 慢 SQL 交给 EXPLAIN 线程 (限频，队列满即丢弃)；绑定参数用到的 MyBatis 对象随后即被清理，须在此之前提交
+            explainer.offer(context);
+            processed = true;
+        } catch (Exception e) {
+            metrics.failed();
+            log.error("Async capture failed", e);
+        } finally {
+            // 事件已离开队列，释放结果快照预算与 MyBatis 重对象 (交给 Handler 后不能再访问 Context，事件池可能已将其回收复用)
+            resultBudget.release(context);
+            context.clearBuildState();
+        }
+        if (!processed) {
+            // 未交给 Handler，直接归还事件池 (须在释放预算之后，归还会清空上下文)
+            eventPool.release(info);
+            return;
+        }
+
+        boolean handedOff = false;
+        try {
+            // 按 traceId 统计 N+1
+            repeatedQueryDetector.observe(info);
+
+            // 3. 攒批后分发给所有 Handler (之后由 Handler 确认归还)
+            handedOff = true;
+            handOff(info);
+            metrics.processed();
+        } catch (Exception e) {
+            metrics.failed();
+            log.error("Async capture failed", e);
+            if (!handedOff) {
+                eventPool.release(info);
+            }
+        }
+    }
+
+    private void deliver(List<CapturedSqlInfo> batch) {
+        if (!lanes.isEmpty()) {
+            // 每个通道处理完 (或丢弃) 后各确认一次
+            eventPool.retain(batch, lanes.size());
+            // 通道并发执行：除第一个通道外各自拿到浅拷贝 (独立的 ext)，须在任何通道开始处理前全部复制完
+            List<List<CapturedSqlInfo>> views = new ArrayList<>(lanes.size());
+            views.add(batch);
+            for (int i = 1; i < lanes.size(); i++) {
+                List<CapturedSqlInfo> copies = new ArrayList<>(batch.size());
+                for (CapturedSqlInfo info : batch) {
+                    copies.add(info.shallowCopy());
+                }
+                views.add(copies);
+            }
+            for (int i = 0; i < lanes.size(); i++) {
+                lanes.get(i).submit(batch, views.get(i));
+            }
+            return;
+        }
+        for (int i = 0; i < batchHandlers.size(); i++) {
+            SqlCaptureBatchHandler handler = batchHandlers.get(i);
+            long start = System.nanoTime();
+            boolean error = false;
+            try {
+                handler.onCaptureBatch(batch);
             } catch (Exception e) {
-                log.error("Async capture failed", e);
+                error = true;
+                log.error("Handler [{}] failed", handlerName(handler), e);
+            } finally {
+                handlerStats.get(i).record(System.nanoTime() - start, error);
             }
-            // Context 在此作用域结束，帮助 GC 回收 MyBatis 重对象
-        });
+        }
+        eventPool.release(batch);
+    }
+
+    /**
+     * 溢出日志，未开启时为 null
+     */
+    public CaptureSpillLog getSpillLog() {
+        return spillLog;
+    }
+
+    /**
+     * 溢出写入线程，未开启溢出日志时为 null
+     */
+    public CaptureSpillWriter getSpillWriter() {
+        return spillWriter;
+    }
+
+    /**
+     * Handler 独立通道 (含队列深度、延迟等指标)，未开启时为空
+     */
+    public List<HandlerLane> getLanes() {
+        return lanes;
+    }
+
+    private static String handlerName(SqlCaptureBatchHandler handler) {
+        SqlCaptureHandler target = handler instanceof SqlCaptureHandlerAdapter
+                ? ((SqlCaptureHandlerAdapter) handler).getDelegate()
+                : handler;
+        return target.getClass().getSimpleName();
     }
 
     private void processContext(SqlCaptureContext ctx) {
         CapturedSqlInfo info = ctx.getInfo();
 
+        if (ctx.getBoundSql() == null && ctx.getMappedStatement() != null) {
+            // 兜底：命中缓存等未走到 StatementHandler 的语句，在异步线程中构建 BoundSql
+            try {
+                ctx.setBoundSql(ctx.getMappedStatement().getBoundSql(ctx.getParameterObject()));
+            } catch (Exception e) {
+                log.debug("Failed to get BoundSql", e);
+            }
+        }
+        if (info.getRawSql() == null && ctx.getBoundSql() != null) {
+            info.setRawSql(ctx.getBoundSql().getSql());
+        }
+        if (ctx.getBatchParameterObjects() != null) {
+            resolveBatchParams(ctx);
+        } else if (properties.isMultiRowInsertEnabled() && info.getSqlCommandType() == SqlCommandType.INSERT
+                && ctx.getBoundSql() != null && ctx.getConfiguration() != null && captureMultiRowInsert(ctx)) {
+            return;
+        }
+
+        List<Object> parameterValues = ctx.getParameterValues();
         if (ctx.getBoundSql() != null && ctx.getConfiguration() != null) {
-            // 组装 SQL
-            String executableSql = SqlBuilderUtils.buildExecutableSql(
-                    ctx.getConfiguration(),
-                    ctx.getBoundSql(),
-                    ctx.getParameterObject()
-            );
-
-            // 安全检查：超长 SQL 截断
-            if (executableSql != null && executableSql.length() > properties.getMaxSqlLength()) {
-                info.setExecutableSql(executableSql.substring(0, properties.getMaxSqlLength()) + " ...[TRUNCATED]");
-                // 超长 SQL 放弃解析参数，防止 Druid 卡死
-                return;
+            // 业务线程读取前镜像时已解析过参数值，直接复用
+            if (parameterValues == null) {
+                try {
+                    // 按 ? 顺序解析参数值，供 SQL 拼装、参数模板与 EXPLAIN 绑定共用
+                    parameterValues = SqlBuilderUtils.resolveParameterValues(
+                            ctx.getConfiguration(),
+                            ctx.getBoundSql(),
+                            ctx.getParameterObject()
+                    );
+                    ctx.setParameterValues(parameterValues);
+                } catch (Exception e) {
+                    log.warn("Parameter resolving failed", e);
+                }
             }
+
+            // 组装 SQL (单遍渲染，超长在渲染过程中即截断)
+            String executableSql = parameterValues == null
+                    ? "SQL_ASSEMBLY_ERROR"
+                    : SqlBuilderUtils.buildExecutableSql(info.getRawSql(), parameterValues, properties.getMaxSqlLength());
             info.setExecutableSql(executableSql);
+
+            if (ExecutableSqlRenderer.isTruncated(executableSql)) {
+                // 超长 SQL 放弃逐条解析参数，防止 Druid 卡死；模板可用时仍按位置填充
+                applyTemplate(info, parameterValues);
+                return;
+            }
+        }
+
+        // 优先使用参数模板 (原始 SQL 只解析一次)，不可用时回退到 Druid AST 逐条解析
+        long start = System.nanoTime();
+        if (applyTemplate(info, parameterValues)) {
+            metrics.recordParse(true, System.nanoTime() - start);
+        } else {
+            reparseParams(info);
+            metrics.recordParse(false, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * BATCH 聚合捕获：逐行参数按 ? 对应的属性名展开
+     */
+    private void resolveBatchParams(SqlCaptureContext ctx) {
+        List<Object> rows = ctx.getBatchParameterObjects();
+        List<Map<String, Object>> batchParams = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Map<String, Object> params = new LinkedHashMap<>();
+            try {
+                BoundSql boundSql = ctx.getMappedStatement().getBoundSql(row);
+                List<Object> values = SqlBuilderUtils.resolveParameterValues(ctx.getConfiguration(), boundSql, row);
+                List<ParameterMapping> mappings = boundSql.getParameterMappings();
+                for (int i = 0; i < mappings.size() && i < values.size(); i++) {
+                    params.put(mappings.get(i).getProperty(), values.get(i));
+                }
+            } catch (Exception e) {
+                log.debug("Batch row parameter resolving failed", e);
+            }
+            batchParams.add(params);
+        }
+        ctx.getInfo().setBatchParams(batchParams);
+        ctx.setBatchParameterObjects(null);
+    }
+
+    /**
+     * 多行 INSERT：按行组提取列值，只解析保留行的参数，可执行 SQL 只渲染保留的行
+     *
+     * @return 不是多行 INSERT 时返回 false，走通用路径
+     */
+    private boolean captureMultiRowInsert(SqlCaptureContext ctx) {
+        CapturedSqlInfo info = ctx.getInfo();
+        MultiRowInsertLayout layout = MultiRowInsertLayout.get(info.getRawSql(), properties.getBatchMaxRowParams());
+        if (layout == null || layout.getTotalRows() < 2) {
+            return false;
+        }
+        // 事务缓存的事件已在业务线程内解析全部参数值
+        List<Object> values = ctx.getParameterValues();
+        if (values == null) {
+            try {
+                values = SqlBuilderUtils.resolveParameterValues(ctx.getConfiguration(), ctx.getBoundSql(),
+                        ctx.getParameterObject(), layout.isComplete() ? Integer.MAX_VALUE : layout.getParameterCount());
+            } catch (Exception e) {
+                log.warn("Parameter resolving failed", e);
+                return false;
+            }
         }
+        List<Map<String, Object>> rows = layout.rows(values);
+        info.setExecutableSql(layout.render(values, properties.getMaxSqlLength()));
+        info.setBatchSize(layout.getTotalRows());
+        info.setBatchParams(properties.getBatchMaxRowParams() > 0 ? rows : null);
+        info.setParams(reuse(info.getParams(), rows.get(0)));
+        info.setWhereParams(reuse(info.getWhereParams(), Collections.emptyMap()));
+        return true;
+    }
 
-        // 核心：基于 Druid AST 解析参数 (区分 SET 和 WHERE)
-        reparseParams(info);
+    private boolean applyTemplate(CapturedSqlInfo info, List<Object> parameterValues) {
+        if (parameterValues == null) {
+            return false;
+        }
+        DruidSqlParserHelper.SqlParamTemplate template = DruidSqlParserHelper.getTemplate(info.getRawSql());
+        if (template == null) {
+            return false;
+        }
+        applyAnalysis(info, template.fill(parameterValues));
+        return true;
     }
 
     private void reparseParams(CapturedSqlInfo info) {
@@ -79,16 +542,30 @@ public class SqlCaptureDispatcher {
         if (sql != null && !sql.trim().isEmpty()) {
             try {
                 // 使用 ExecutorSqlHelper 中的 Druid 逻辑
-                DruidSqlParserHelper.SqlParamAnalysis analysis = DruidSqlParserHelper.analyzeSqlParams(sql);
-
-                // 设置全量参数 (SET + WHERE)
-                info.setParams(new LinkedHashMap<>(analysis.getAllParams()));
-
-                // 设置条件参数 (仅 WHERE)
-                info.setWhereParams(new LinkedHashMap<>(analysis.getWhereParams()));
+                applyAnalysis(info, DruidSqlParserHelper.analyzeSqlParams(sql));
             } catch (Exception e) {
                 log.warn("Param parsing failed for SQL", e);
             }
         }
     }
-}
\ No newline at end of file
+
+    private void applyAnalysis(CapturedSqlInfo info, DruidSqlParserHelper.SqlParamAnalysis analysis) {
+        // 设置全量参数 (SET + WHERE)
+        info.setParams(reuse(info.getParams(), analysis.getAllParams()));
+
+        // 设置条件参数 (仅 WHERE)
+        info.setWhereParams(reuse(info.getWhereParams(), analysis.getWhereParams()));
+    }
+
+    /**
+     * 事件池回收的事件保留了上次的 Map，清空后复用
+     */
+    private static LinkedHashMap<String, Object> reuse(LinkedHashMap<String, Object> map, Map<String, Object> values) {
+        if (map == null) {
+            return new LinkedHashMap<>(values);
+        }
+        map.clear();
+        map.putAll(values);
+        return map;
+    }
+}
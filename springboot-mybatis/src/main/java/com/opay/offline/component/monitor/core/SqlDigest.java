@@ -0,0 +1,123 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.SqlExplainPlan;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单条语句的滚动窗口统计
+ * <p>
+ * 两级环形时间桶：10 秒桶 x 30 (覆盖 5 分钟) + 1 分钟桶 x 60 (覆盖 1 小时)，每次记录同时写入两级。
+ * 桶按需创建，时间走到新周期时整体替换旧桶 (CAS)，不加锁；替换瞬间写入旧桶的少量记录会丢失，对统计可忽略
+ */
+class SqlDigest {
+
+    static final long FINE_MILLIS = 10_000;
+    static final int FINE_SLOTS = 30;
+    static final long COARSE_MILLIS = 60_000;
+    static final int COARSE_SLOTS = 60;
+
+    @Getter
+    private final String statementId;
+    @Getter
+    private final String fingerprint;
+    // 最近一次慢 SQL EXPLAIN 结果
+    @Getter
+    @Setter
+    private volatile SqlExplainPlan explainPlan;
+
+    private final AtomicReferenceArray<Bucket> fine = new AtomicReferenceArray<>(FINE_SLOTS);
+    private final AtomicReferenceArray<Bucket> coarse = new AtomicReferenceArray<>(COARSE_SLOTS);
+
+    SqlDigest(String statementId, String fingerprint) {
+        this.statementId = statementId;
+        this.fingerprint = fingerprint;
+    }
+
+    void record(long nowMillis, long nanos, boolean error, long rows) {
+        bucket(fine, nowMillis / FINE_MILLIS).add(nanos, error, rows);
+        bucket(coarse, nowMillis / COARSE_MILLIS).add(nanos, error, rows);
+    }
+
+    /**
+     * 把最近 buckets 个周期 (含当前未结束的周期) 累加到 totals
+     */
+    void sumInto(Totals totals, long nowMillis, boolean coarseTier, int buckets) {
+        AtomicReferenceArray<Bucket> ring = coarseTier ? coarse : fine;
+        long current = nowMillis / (coarseTier ? COARSE_MILLIS : FINE_MILLIS);
+        for (int i = 0; i < buckets && i < ring.length(); i++) {
+            long epoch = current - i;
+            Bucket bucket = ring.get(slot(ring, epoch));
+            if (bucket != null && bucket.epoch == epoch) {
+                totals.add(bucket);
+            }
+        }
+    }
+
+    private static Bucket bucket(AtomicReferenceArray<Bucket> ring, long epoch) {
+        int slot = slot(ring, epoch);
+        Bucket bucket = ring.get(slot);
+        // 时钟回拨时 (bucket.epoch > epoch) 直接写入较新的桶
+        while (bucket == null || bucket.epoch < epoch) {
+            Bucket fresh = new Bucket(epoch);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+            bucket = ring.get(slot);
+        }
+        return bucket;
+    }
+
+    private static int slot(AtomicReferenceArray<Bucket> ring, long epoch) {
+        return (int) Math.floorMod(epoch, (long) ring.length());
+    }
+
+    static final class Bucket {
+        private final long epoch;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+
+        void add(long nanos, boolean error, long affectedRows) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (error) {
+                errors.increment();
+            }
+            if (affectedRows > 0) {
+                rows.add(affectedRows);
+            }
+        }
+    }
+
+    /**
+     * 窗口内的累计值 (报表时按指纹合并多条语句)
+     */
+    @Getter
+    static final class Totals {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long errors;
+        private long rows;
+
+        void add(Bucket bucket) {
+            count += bucket.count.sum();
+            totalNanos += bucket.totalNanos.sum();
+            maxNanos = Math.max(maxNanos, bucket.maxNanos.get());
+            errors += bucket.errors.sum();
+            rows += bucket.rows.sum();
+        }
+    }
+}
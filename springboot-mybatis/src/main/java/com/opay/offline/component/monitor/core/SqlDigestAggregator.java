@@ -0,0 +1,185 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.model.SqlExplainPlan;
+import com.opay.offline.component.monitor.support.SqlFingerprint;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 摘要聚合：按语句累计滚动窗口内的次数、耗时、失败数、影响行数
+ * <p>
+ * 在拦截器内直接记录 (不经过采样与异步队列)，被采样丢弃的语句同样计入。
+ * 热路径按语句 ID 查找，每条语句首次出现时计算一次 SQL 指纹；报表时按指纹合并 (动态 SQL 的不同分支合并到同一语句下)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlDigestAggregator {
+
+    private final SqlCaptureProperties properties;
+
+    private final ConcurrentMap<String, SqlDigest> digests = new ConcurrentHashMap<>();
+    // 语句数达到上限后未纳入统计的记录数
+    private final LongAdder overflow = new LongAdder();
+
+    /**
+     * 统计窗口
+     */
+    public enum Window {
+        M1("1m", false, 6),
+        M5("5m", false, SqlDigest.FINE_SLOTS),
+        H1("1h", true, SqlDigest.COARSE_SLOTS);
+
+        @Getter
+        private final String label;
+        private final boolean coarse;
+        private final int buckets;
+
+        Window(String label, boolean coarse, int buckets) {
+            this.label = label;
+            this.coarse = coarse;
+            this.buckets = buckets;
+        }
+
+        public static Window of(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Unknown window: " + label + ", expected 1m / 5m / 1h");
+        }
+    }
+
+    /**
+     * @param parameterObject 仅在语句首次出现时用于构建 SQL 计算指纹
+     */
+    public void record(MappedStatement ms, Object parameterObject, long nanos, boolean success, long rows) {
+        if (!properties.isDigestEnabled()) {
+            return;
+        }
+        SqlDigest digest = digests.get(ms.getId());
+        if (digest == null) {
+            digest = register(ms, parameterObject);
+            if (digest == null) {
+                overflow.increment();
+                return;
+            }
+        }
+        digest.record(System.currentTimeMillis(), nanos, !success, rows);
+    }
+
+    private SqlDigest register(MappedStatement ms, Object parameterObject) {
+        if (digests.size() >= properties.getDigestMaxStatements()) {
+            return digests.get(ms.getId());
+        }
+        return digests.computeIfAbsent(ms.getId(), id -> new SqlDigest(id, fingerprint(ms, parameterObject)));
+    }
+
+    private static String fingerprint(MappedStatement ms, Object parameterObject) {
+        try {
+            return SqlFingerprint.of(ms.getBoundSql(parameterObject).getSql());
+        } catch (Exception e) {
+            log.debug("Fingerprint failed, fallback to statement id: {}", ms.getId(), e);
+            return ms.getId();
+        }
+    }
+
+    /**
+     * 按窗口内总耗时倒序的前 limit 个指纹
+     */
+    public List<Map<String, Object>> top(Window window, int limit) {
+        long now = System.currentTimeMillis();
+        Map<String, Entry> byFingerprint = new LinkedHashMap<>();
+        for (SqlDigest digest : digests.values()) {
+            Entry entry = byFingerprint.computeIfAbsent(digest.getFingerprint(), Entry::new);
+            entry.statements.add(digest.getStatementId());
+            entry.attach(digest.getExplainPlan());
+            digest.sumInto(entry.totals, now, window.coarse, window.buckets);
+        }
+
+        List<Entry> entries = new ArrayList<>(byFingerprint.size());
+        for (Entry entry : byFingerprint.values()) {
+            if (entry.totals.getCount() > 0) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparingLong((Entry e) -> e.totals.getTotalNanos()).reversed());
+
+        List<Map<String, Object>> top = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : entries.subList(0, Math.min(Math.max(0, limit), entries.size()))) {
+            top.add(entry.toMap());
+        }
+        return top;
+    }
+
+    /**
+     * 慢 SQL EXPLAIN 结果挂到对应语句的摘要上
+     */
+    public void attachExplainPlan(SqlExplainPlan plan) {
+        SqlDigest digest = digests.get(plan.getStatementId());
+        if (digest != null) {
+            digest.setExplainPlan(plan);
+        }
+    }
+
+    public int getStatementCount() {
+        return digests.size();
+    }
+
+    public long getOverflowCount() {
+        return overflow.sum();
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final Set<String> statements = new LinkedHashSet<>();
+        private final SqlDigest.Totals totals = new SqlDigest.Totals();
+        private SqlExplainPlan explainPlan;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * 合并多条语句时保留最新的执行计划
+         */
+        private void attach(SqlExplainPlan plan) {
+            if (plan != null && (explainPlan == null || plan.getTimestamp().isAfter(explainPlan.getTimestamp()))) {
+                explainPlan = plan;
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            long count = totals.getCount();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("fingerprint", fingerprint);
+            map.put("statements", statements);
+            map.put("count", count);
+            map.put("totalMillis", totals.getTotalNanos() / 1_000_000.0);
+            map.put("avgMillis", totals.getTotalNanos() / (double) count / 1_000_000);
+            map.put("maxMillis", totals.getMaxNanos() / 1_000_000.0);
+            map.put("errors", totals.getErrors());
+            map.put("rows", totals.getRows());
+            if (explainPlan != null) {
+                map.put("explain", explainPlan);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 事务内的捕获缓存，绑定到当前 Spring 事务
+ * <p>
+ * 1. 首次捕获时以 key 绑定为事务资源并注册同步回调，之后同一事务内的捕获直接追加
+ * 2. 事务挂起 / 恢复时随之解绑 / 重新绑定 (同 mybatis-spring 的 SqlSessionSynchronization)，REQUIRES_NEW 的内层事务独立缓存
+ * 3. 事务结束 (afterCompletion) 时把整批事件连同结果交给 publisher，由其决定发布或丢弃
+ * <p>
+ * 只在业务线程内访问，不需要同步
+ */
+class TransactionCaptureBuffer extends TransactionSynchronizationAdapter {
+
+    // 进程内唯一的事务 ID：启动时间 + 自增序号
+    private static final String ID_PREFIX = Long.toHexString(System.currentTimeMillis()) + "-";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final Object key;
+    private final String transactionId = ID_PREFIX + Long.toHexString(SEQUENCE.incrementAndGet());
+    private final int maxBuffered;
+    private final BiConsumer<List<SqlCaptureContext>, CapturedSqlInfo.TransactionOutcome> publisher;
+    private List<SqlCaptureContext> buffered = new ArrayList<>();
+
+    private TransactionCaptureBuffer(Object key, int maxBuffered,
+                                     BiConsumer<List<SqlCaptureContext>, CapturedSqlInfo.TransactionOutcome> publisher) {
+        this.key = key;
+        this.maxBuffered = Math.max(1, maxBuffered);
+        this.publisher = publisher;
+    }
+
+    /**
+     * 当前线程处于实际事务中时返回绑定的缓存 (不存在则创建并注册)，否则返回 null
+     */
+    static TransactionCaptureBuffer current(Object key, int maxBuffered,
+                                            BiConsumer<List<SqlCaptureContext>, CapturedSqlInfo.TransactionOutcome> publisher) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        TransactionCaptureBuffer buffer = (TransactionCaptureBuffer) TransactionSynchronizationManager.getResource(key);
+        if (buffer == null) {
+            buffer = new TransactionCaptureBuffer(key, maxBuffered, publisher);
+            TransactionSynchronizationManager.bindResource(key, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        return buffer;
+    }
+
+    void add(SqlCaptureContext context) {
+        context.getInfo().setTransactionId(transactionId);
+        buffered.add(context);
+        if (buffered.size() >= maxBuffered) {
+            // 长事务：已缓存的事件提前发布，不带事务结果
+            List<SqlCaptureContext> drained = buffered;
+            buffered = new ArrayList<>();
+            publisher.accept(drained, null);
+        }
+    }
+
+    @Override
+    public void suspend() {
+        TransactionSynchronizationManager.unbindResource(key);
+    }
+
+    @Override
+    public void resume() {
+        TransactionSynchronizationManager.bindResource(key, this);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(key);
+        List<SqlCaptureContext> drained = buffered;
+        buffered = Collections.emptyList();
+        if (drained.isEmpty()) {
+            return;
+        }
+        publisher.accept(drained, status == TransactionSynchronization.STATUS_COMMITTED ? CapturedSqlInfo.TransactionOutcome.COMMITTED
+                : status == TransactionSynchronization.STATUS_ROLLED_BACK ? CapturedSqlInfo.TransactionOutcome.ROLLED_BACK
+                : CapturedSqlInfo.TransactionOutcome.UNKNOWN);
+    }
+}
@@ -0,0 +1,191 @@
+package com.opay.offline.component.monitor.endpoint;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.CaptureDecisionTable;
+import com.opay.offline.component.monitor.core.CaptureSampler;
+import com.opay.offline.component.monitor.core.MonitorExecutorService;
+import com.opay.offline.component.monitor.interceptor.SqlCaptureInterceptor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 运行时调整捕获配置，无需重启：
+ * <pre>
+ * GET    /actuator/sqlcaptureconfig                      查看当前配置
+ * POST   /actuator/sqlcaptureconfig                      修改，JSON 中只需包含要修改的字段，如
+ *        {"enabled": false}
+ *        {"entity": "City", "entityEnabled": false}
+ *        {"mapper": "com.xx.CityRepository.findByName", "mapperEnabled": true, "mapperRate": 0.1}
+ *        {"defaultRate": 0.2, "maxEventsPerSecond": 500, "maxSqlLength": 2000}
+ *        {"corePoolSize": 2, "maxPoolSize": 8, "queueCapacity": 500}
+ * DELETE /actuator/sqlcaptureconfig/{key}                清除 key (实体名 / 语句 id / 命名空间) 上的开关与采样率
+ * </pre>
+ * 开关与采样率修改后整表重建决策表并替换，拦截器只读取 volatile 引用；修改只在内存中生效，重启后恢复为配置文件的值。
+ * 需在 management.endpoints.web.exposure.include 中加入 sqlcaptureconfig
+ */
+@Slf4j
+@Component
+@Endpoint(id = "sqlcaptureconfig")
+@RequiredArgsConstructor
+public class SqlCaptureConfigEndpoint {
+
+    private final SqlCaptureProperties properties;
+    private final SqlCaptureInterceptor interceptor;
+    private final CaptureSampler sampler;
+    private final MonitorExecutorService threadPool;
+
+    @ReadOperation
+    public Map<String, Object> config() {
+        Map<String, Object> sampling = new LinkedHashMap<>();
+        sampling.put("defaultRate", properties.getSampling().getDefaultRate());
+        sampling.put("mapperRates", properties.getSampling().getMapperRates());
+        sampling.put("commandTypeRates", properties.getSampling().getCommandTypeRates());
+        sampling.put("maxEventsPerSecond", properties.getSampling().getMaxEventsPerSecond());
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("mode", properties.getExecutorMode());
+        pool.put("corePoolSize", threadPool.getCorePoolSize());
+        pool.put("maxPoolSize", threadPool.getMaxPoolSize());
+        pool.put("queueCapacity", threadPool.getQueueCapacity());
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("enabled", properties.isEnabled());
+        config.put("entityEnabled", properties.getEntityEnabled());
+        config.put("mapperEnabled", properties.getMapperEnabled());
+        config.put("sampling", sampling);
+        config.put("maxSqlLength", properties.getMaxSqlLength());
+        config.put("pool", pool);
+        CaptureDecisionTable table = interceptor.getDecisionTable();
+        if (table != null) {
+            Map<String, Object> decisions = new LinkedHashMap<>();
+            decisions.put("statements", table.size());
+            decisions.put("capturing", table.captureCount());
+            config.put("decisionTable", decisions);
+        }
+        return config;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> update(@Nullable Boolean enabled,
+                                                   @Nullable String entity, @Nullable Boolean entityEnabled,
+                                                   @Nullable String mapper, @Nullable Boolean mapperEnabled,
+                                                   @Nullable Double mapperRate, @Nullable Double defaultRate,
+                                                   @Nullable Integer maxEventsPerSecond, @Nullable Integer maxSqlLength,
+                                                   @Nullable Integer corePoolSize, @Nullable Integer maxPoolSize,
+                                                   @Nullable Integer queueCapacity) {
+        // 先校验全部参数，避免只生效一部分
+        if (entityEnabled != null && isBlank(entity)) {
+            throw new IllegalArgumentException("entityEnabled requires entity");
+        }
+        if ((mapperEnabled != null || mapperRate != null) && isBlank(mapper)) {
+            throw new IllegalArgumentException("mapperEnabled / mapperRate requires mapper");
+        }
+        checkRate("mapperRate", mapperRate);
+        checkRate("defaultRate", defaultRate);
+        if (maxSqlLength != null && maxSqlLength <= 0) {
+            throw new IllegalArgumentException("maxSqlLength must be positive");
+        }
+        boolean resize = corePoolSize != null || maxPoolSize != null || queueCapacity != null;
+        int core = corePoolSize != null ? corePoolSize : threadPool.getCorePoolSize();
+        int max = maxPoolSize != null ? maxPoolSize : threadPool.getMaxPoolSize();
+        int capacity = queueCapacity != null ? queueCapacity : threadPool.getQueueCapacity();
+        if (resize) {
+            if (threadPool.isRingBufferMode()) {
+                throw new IllegalArgumentException("corePoolSize / maxPoolSize / queueCapacity cannot be changed in RING_BUFFER mode");
+            }
+            if (core <= 0 || max < core || capacity <= 0) {
+                throw new IllegalArgumentException("Require 0 < corePoolSize <= maxPoolSize and queueCapacity > 0");
+            }
+        }
+
+        // Map 整体替换 (写时复制)，重建决策表时读到的始终是完整的一份
+        boolean rebuild = false;
+        if (enabled != null) {
+            properties.setEnabled(enabled);
+            rebuild = true;
+        }
+        if (entityEnabled != null) {
+            properties.setEntityEnabled(copyWith(properties.getEntityEnabled(), entity, entityEnabled));
+            rebuild = true;
+        }
+        if (mapperEnabled != null) {
+            properties.setMapperEnabled(copyWith(properties.getMapperEnabled(), mapper, mapperEnabled));
+            rebuild = true;
+        }
+        SqlCaptureProperties.Sampling sampling = properties.getSampling();
+        if (mapperRate != null) {
+            sampling.setMapperRates(copyWith(sampling.getMapperRates(), mapper, mapperRate));
+            rebuild = true;
+        }
+        if (defaultRate != null) {
+            sampling.setDefaultRate(defaultRate);
+            rebuild = true;
+        }
+        if (maxEventsPerSecond != null) {
+            sampler.setMaxEventsPerSecond(maxEventsPerSecond);
+        }
+        if (maxSqlLength != null) {
+            properties.setMaxSqlLength(maxSqlLength);
+        }
+        if (resize) {
+            threadPool.resize(core, max, capacity);
+            properties.setCorePoolSize(core);
+            properties.setMaxPoolSize(max);
+            properties.setQueueCapacity(capacity);
+        }
+        if (rebuild) {
+            interceptor.refreshDecisionTable();
+        }
+        log.info("SQL 捕获配置已修改: enabled={}, entity={}:{}, mapper={}:{}/{}, defaultRate={}, maxEventsPerSecond={}, maxSqlLength={}, pool={}",
+                enabled, entity, entityEnabled, mapper, mapperEnabled, mapperRate, defaultRate, maxEventsPerSecond,
+                maxSqlLength, resize ? core + "/" + max + "/" + capacity : null);
+        return config();
+    }
+
+    /**
+     * 清除实体名 / 语句 id / 命名空间上的开关与采样率，恢复按 @MonitorSql 与默认采样率捕获
+     */
+    @DeleteOperation
+    public synchronized Map<String, Object> clear(@Selector String key) {
+        properties.setEntityEnabled(copyWithout(properties.getEntityEnabled(), key));
+        properties.setMapperEnabled(copyWithout(properties.getMapperEnabled(), key));
+        SqlCaptureProperties.Sampling sampling = properties.getSampling();
+        sampling.setMapperRates(copyWithout(sampling.getMapperRates(), key));
+        interceptor.refreshDecisionTable();
+        log.info("SQL 捕获配置已清除: {}", key);
+        return config();
+    }
+
+    private static void checkRate(String name, Double rate) {
+        if (rate != null && (rate < 0 || rate > 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static <V> Map<String, V> copyWith(Map<String, V> values, String key, V value) {
+        Map<String, V> copy = new HashMap<>(values);
+        copy.put(key.trim(), value);
+        return copy;
+    }
+
+    private static <V> Map<String, V> copyWithout(Map<String, V> values, String key) {
+        Map<String, V> copy = new HashMap<>(values);
+        copy.remove(key);
+        return copy;
+    }
+}
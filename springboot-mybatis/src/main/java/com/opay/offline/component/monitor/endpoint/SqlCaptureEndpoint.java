@@ -0,0 +1,99 @@
+package com.opay.offline.component.monitor.endpoint;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.CaptureEventPool;
+import com.opay.offline.component.monitor.core.CaptureMetrics;
+import com.opay.offline.component.monitor.core.CaptureSampler;
+import com.opay.offline.component.monitor.core.CaptureSpillLog;
+import com.opay.offline.component.monitor.core.CaptureSpillWriter;
+import com.opay.offline.component.monitor.core.HandlerLane;
+import com.opay.offline.component.monitor.core.MonitorExecutorService;
+import com.opay.offline.component.monitor.core.ResultMemoryBudget;
+import com.opay.offline.component.monitor.core.SqlCaptureDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL 监控组件运行状态端点：GET /actuator/sqlcapture
+ * <p>
+ * 需在 management.endpoints.web.exposure.include 中加入 sqlcapture
+ */
+@Component
+@Endpoint(id = "sqlcapture")
+@RequiredArgsConstructor
+public class SqlCaptureEndpoint {
+
+    private final SqlCaptureProperties properties;
+    private final MonitorExecutorService threadPool;
+    private final CaptureSampler sampler;
+    private final ResultMemoryBudget resultBudget;
+    private final SqlCaptureDispatcher dispatcher;
+    private final CaptureMetrics metrics;
+    private final CaptureEventPool eventPool;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        Map<String, Object> queue = new LinkedHashMap<>();
+        queue.put("mode", properties.getExecutorMode());
+        queue.put("depth", threadPool.getQueueSize());
+        queue.put("capacity", threadPool.getQueueCapacity());
+        queue.put("activeWorkers", threadPool.getActiveWorkers());
+        queue.put("dropped", threadPool.getDroppedCount());
+
+        Map<String, Object> sampling = new LinkedHashMap<>();
+        sampling.put("sampledOut", sampler.getSampledOutCount());
+        sampling.put("rateLimited", sampler.getRateLimitedCount());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", properties.getResult().getMode());
+        result.put("reservedBytes", resultBudget.getReservedBytes());
+        result.put("maxTotalBytes", properties.getResult().getMaxTotalBytes());
+        result.put("rejected", resultBudget.getRejectedCount());
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("enabled", properties.isEnabled());
+        state.put("queue", queue);
+        state.put("sampling", sampling);
+        state.put("result", result);
+        if (eventPool.isEnabled()) {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("created", eventPool.getCreatedCount());
+            pool.put("reused", eventPool.getReusedCount());
+            pool.put("idle", eventPool.getIdleCount());
+            state.put("eventPool", pool);
+        }
+        CaptureSpillLog spillLog = dispatcher.getSpillLog();
+        if (spillLog != null) {
+            Map<String, Object> spill = new LinkedHashMap<>();
+            spill.put("pending", spillLog.hasPending());
+            spill.put("spilled", spillLog.getSpilledCount());
+            spill.put("replayed", spillLog.getReplayedCount());
+            spill.put("dropped", spillLog.getDroppedCount());
+            CaptureSpillWriter spillWriter = dispatcher.getSpillWriter();
+            spill.put("pendingWrites", spillWriter.getPendingCount());
+            spill.put("writeRejected", spillWriter.getRejectedCount());
+            state.put("spill", spill);
+        }
+        if (!dispatcher.getLanes().isEmpty()) {
+            Map<String, Object> lanes = new LinkedHashMap<>();
+            for (HandlerLane lane : dispatcher.getLanes()) {
+                Map<String, Object> laneState = new LinkedHashMap<>();
+                laneState.put("depth", lane.getQueueDepth());
+                laneState.put("processed", lane.getProcessedCount());
+                laneState.put("failed", lane.getFailedCount());
+                laneState.put("dropped", lane.getDroppedCount());
+                laneState.put("avgLatencyMillis", lane.getAverageLatencyMillis());
+                laneState.put("maxLatencyMillis", lane.getMaxLatencyMillis());
+                lanes.put(lane.getName(), laneState);
+            }
+            state.put("lanes", lanes);
+        }
+        state.put("metrics", metrics.snapshot());
+        return state;
+    }
+}
@@ -0,0 +1,37 @@
+package com.opay.offline.component.monitor.endpoint;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.SqlDigestAggregator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL 摘要端点：GET /actuator/sqldigest?window=5m&amp;limit=20
+ * <p>
+ * 按窗口内总耗时倒序返回前 N 个 SQL 指纹；window 可选 1m / 5m / 1h，默认 5m
+ */
+@Component
+@Endpoint(id = "sqldigest")
+@RequiredArgsConstructor
+public class SqlDigestEndpoint {
+
+    private final SqlDigestAggregator aggregator;
+    private final SqlCaptureProperties properties;
+
+    @ReadOperation
+    public Map<String, Object> top(@Nullable String window, @Nullable Integer limit) {
+        SqlDigestAggregator.Window w = window == null ? SqlDigestAggregator.Window.M5 : SqlDigestAggregator.Window.of(window);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", w.getLabel());
+        result.put("statements", aggregator.getStatementCount());
+        result.put("overflow", aggregator.getOverflowCount());
+        result.put("top", aggregator.top(w, limit == null ? properties.getDigestTopN() : limit));
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package com.opay.offline.component.monitor.endpoint;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.RepeatedQueryDetector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * N+1 查询检测端点：GET /actuator/sqlnplusone
+ * <p>
+ * 返回最近的检测结果 (请求入口、Mapper、次数)，按时间倒序
+ */
+@Component
+@Endpoint(id = "sqlnplusone")
+@RequiredArgsConstructor
+public class SqlRepeatedQueryEndpoint {
+
+    private final RepeatedQueryDetector detector;
+    private final SqlCaptureProperties properties;
+
+    @ReadOperation
+    public Map<String, Object> findings() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", properties.getRepeatedQuery().isEnabled());
+        result.put("threshold", properties.getRepeatedQuery().getThreshold());
+        result.put("activeTraces", detector.getActiveTraceCount());
+        result.put("overflow", detector.getOverflowCount());
+        result.put("detected", detector.getDetectedCount());
+        result.put("findings", detector.getRecentFindings());
+        return result;
+    }
+}
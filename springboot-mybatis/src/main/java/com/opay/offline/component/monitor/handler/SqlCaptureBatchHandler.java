@@ -0,0 +1,20 @@
+package com.opay.offline.component.monitor.handler;
+
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量处理器：Dispatcher 按条数 / 等待时间攒批后一次性投递，适合日志、审计等可批量写入的下游
+ */
+public interface SqlCaptureBatchHandler extends SqlCaptureHandler {
+
+    void onCaptureBatch(List<CapturedSqlInfo> infos);
+
+    @Override
+    default void onCapture(CapturedSqlInfo info) {
+        onCaptureBatch(Collections.singletonList(info));
+    }
+}
@@ -0,0 +1,61 @@
+package com.opay.offline.component.monitor.handler;
+
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 将单条处理器适配为批量处理器，批内逐条回调，单条失败不影响同批其余事件
+ * <p>
+ * 事件携带 MDC 快照 (开启 trace.copyMdc) 时，回调期间恢复该事件提交时的 MDC
+ */
+@Slf4j
+public class SqlCaptureHandlerAdapter implements SqlCaptureBatchHandler {
+
+    private final SqlCaptureHandler delegate;
+    // 处理失败的事件数
+    private final LongAdder failed = new LongAdder();
+
+    public SqlCaptureHandlerAdapter(SqlCaptureHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    public static SqlCaptureBatchHandler adapt(SqlCaptureHandler handler) {
+        return handler instanceof SqlCaptureBatchHandler
+                ? (SqlCaptureBatchHandler) handler
+                : new SqlCaptureHandlerAdapter(handler);
+    }
+
+    @Override
+    public void onCaptureBatch(List<CapturedSqlInfo> infos) {
+        for (CapturedSqlInfo info : infos) {
+            Map<String, String> mdcContext = info.mdcContext();
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                delegate.onCapture(info);
+            } catch (Exception e) {
+                failed.increment();
+                log.error("Handler [{}] failed", delegate.getClass().getSimpleName(), e);
+            } finally {
+                if (mdcContext != null) {
+                    MDC.clear();
+                }
+            }
+        }
+    }
+
+    public SqlCaptureHandler getDelegate() {
+        return delegate;
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+}
@@ -1,77 +1,213 @@
 package com.opay.offline.component.monitor.interceptor;
 
-import com.opay.offline.component.monitor.annotation.MonitorSql;
+import com.baomidou.mybatisplus.core.executor.MybatisBatchExecutor;
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.CaptureDecision;
+import com.opay.offline.component.monitor.core.CaptureDecisionTable;
+import com.opay.offline.component.monitor.core.CaptureEventPool;
+import com.opay.offline.component.monitor.core.CaptureSampler;
+import com.opay.offline.component.monitor.core.ResultMemoryBudget;
 import com.opay.offline.component.monitor.core.SqlCaptureDispatcher;
+import com.opay.offline.component.monitor.core.SqlDigestAggregator;
 import com.opay.offline.component.monitor.model.CapturedSqlInfo;
 import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import com.opay.offline.component.monitor.support.BeforeImageReader;
+import com.opay.offline.component.monitor.support.ResultProjector;
 import com.opay.offline.component.monitor.support.SqlBuilderUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.BaseStatementHandler;
+import org.apache.ibatis.executor.statement.RoutingStatementHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @Intercepts({
         @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
-        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "flushStatements", args = {}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class}),
+        @Signature(type = StatementHandler.class, method = "parameterize", args = {Statement.class})
 })
-public class SqlCaptureInterceptor implements Interceptor {
+public class SqlCaptureInterceptor implements Interceptor, ApplicationListener<ContextRefreshedEvent> {
+
+    // 当前线程正在执行的捕获上下文，供 StatementHandler.parameterize 回填 MyBatis 已构建好的 BoundSql
+    private static final ThreadLocal<SqlCaptureContext> CURRENT_CONTEXT = new ThreadLocal<>();
+
+    private static final Field ROUTING_DELEGATE_FIELD = accessibleField(RoutingStatementHandler.class, "delegate");
+    private static final Field MAPPED_STATEMENT_FIELD = accessibleField(BaseStatementHandler.class, "mappedStatement");
+    private static final Field CACHING_DELEGATE_FIELD = accessibleField(CachingExecutor.class, "delegate");
+
+    // 当前线程上存在未 flush 的待捕获批量语句的执行器 (弱引用，会话未正常关闭也不会泄漏)
+    private static final ThreadLocal<Map<Executor, Configuration>> PENDING_BATCHES = new ThreadLocal<>();
+    // 执行器类型 -> 是否为 BATCH 执行器 (MyBatis / mybatis-plus 两套实现)
+    private static final Map<Class<?>, Boolean> BATCH_EXECUTOR_TYPES = new ConcurrentHashMap<>();
 
     // ✅ 核心：使用 @Lazy 打破循环依赖 (Interceptor -> Collector -> Handler -> Enricher -> SqlSessionFactory -> Interceptor)
     @Autowired
     @Lazy
     private SqlCaptureDispatcher sqlCaptureDispatcher;
 
+    @Autowired
+    private SqlCaptureProperties properties;
+
+    @Autowired
+    private CaptureSampler captureSampler;
+
+    @Autowired
+    private ResultMemoryBudget resultBudget;
+
+    @Autowired
+    private SqlDigestAggregator digestAggregator;
+
+    @Autowired
+    private CaptureEventPool eventPool;
+
+    // 捕获决策表，启动完成及运行时修改配置后整体替换 (热路径只读这一个 volatile 引用，不加锁)
+    private volatile CaptureDecisionTable decisionTable;
+    // 启动完成后记录，运行时重建决策表使用
+    private List<Configuration> configurations = Collections.emptyList();
+
+    /**
+     * 所有 Mapper (含 mybatis-plus 注入的 BaseMapper 方法) 注册完毕后构建决策表
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        Collection<SqlSessionFactory> factories = event.getApplicationContext()
+                .getBeansOfType(SqlSessionFactory.class).values();
+        if (factories.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            configurations = factories.stream().map(SqlSessionFactory::getConfiguration).collect(Collectors.toList());
+        }
+        refreshDecisionTable();
+    }
+
+    /**
+     * 按当前配置重建决策表 (总开关、实体 / Mapper 开关、采样率、结果快照列)
+     * <p>
+     * 与 {@link #registerDecision} 互斥，重建期间补充的语句不会丢失；启动完成前调用时清空，之后按需懒加载
+     */
+    public synchronized void refreshDecisionTable() {
+        if (configurations.isEmpty()) {
+            decisionTable = null;
+            return;
+        }
+        CaptureDecisionTable table = CaptureDecisionTable.build(configurations, properties);
+        decisionTable = table;
+        log.info("SQL 捕获决策表已构建, statements: {}, capturing: {}", table.size(), table.captureCount());
+    }
+
+    /**
+     * 当前决策表，启动完成前可能为 null
+     */
+    public CaptureDecisionTable getDecisionTable() {
+        return decisionTable;
+    }
+
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof StatementHandler) {
+            return interceptParameterize(invocation);
+        }
+
+        Executor executor = (Executor) invocation.getTarget();
+        String method = invocation.getMethod().getName();
+        switch (method) {
+            case "flushStatements":
+                return interceptFlush(invocation, executor);
+            case "commit":
+                // BaseExecutor.commit 内部的 flush 不经过插件，提前 flush 以便计时与聚合
+                flushPending(executor);
+                return invocation.proceed();
+            case "rollback":
+            case "close":
+                // 未 flush 的批量语句随回滚丢弃，从未执行，不产生捕获
+                takePending(executor);
+                return invocation.proceed();
+            case "query":
+                // BATCH 执行器查询前同样会先 flush
+                flushPending(executor);
+                break;
+            default:
+                break;
+        }
+
         Object[] args = invocation.getArgs();
         MappedStatement ms = (MappedStatement) args[0];
 
-        // 1. 快速判断是否需要拦截 (基于缓存)
-        Class<?> entityClass = SqlBuilderUtils.getEntityClass(ms.getId());
-        if (entityClass == null || !entityClass.isAnnotationPresent(MonitorSql.class)) {
+        // 1. 快速判断是否需要拦截 (决策表一次查找)
+        CaptureDecision decision = decisionOf(ms);
+        if (!decision.isCapture()) {
             return invocation.proceed();
         }
 
-        // 2. 准备上下文
-        CapturedSqlInfo info = new CapturedSqlInfo();
-        info.setEntityClassName(entityClass.getSimpleName());
-        info.setMapperMethod(ms.getId());
-        info.setSqlCommandType(ms.getSqlCommandType());
-
-        // 使用 Context 包装 MyBatis 重对象，避免在 DTO 中长期持有
-        SqlCaptureContext context = new SqlCaptureContext(info);
-        context.setConfiguration(ms.getConfiguration());
-        context.setMappedStatement(ms);
-        context.setParameterObject(args.length > 1 ? args[1] : null);
+        // BATCH 执行器的 update 只是 addBatch，耗时没有意义；flush 时按批次聚合捕获
+        if ("update".equals(method) && isBatchExecutor(executor)) {
+            Object result = invocation.proceed();
+            markPending(executor, ms.getConfiguration());
+            return result;
+        }
 
-        try {
-            // 尝试获取 BoundSql (轻微计算)
-            context.setBoundSql(ms.getBoundSql(context.getParameterObject()));
-            info.setRawSql(context.getBoundSql().getSql());
-        } catch (Exception e) {
-            log.debug("Failed to get BoundSql", e);
+        // 2. 采样 / 限流 (未命中时不分配任何上下文对象)
+        if (!captureSampler.sample(decision)) {
+            return proceedUnsampled(invocation, ms, decision);
         }
 
+        // 3. 准备上下文
+        SqlCaptureContext context = newContext(ms, decision, args);
+        CapturedSqlInfo info = context.getInfo();
+
         boolean success = true;
         Object result = null;
-        long start = System.currentTimeMillis();
+        SqlCaptureContext previous = CURRENT_CONTEXT.get();
+        CURRENT_CONTEXT.set(context);
+        long start = System.nanoTime();
 
         try {
-            // 3. 执行原业务逻辑
+            // 4. 执行原业务逻辑
             result = invocation.proceed();
 
-            // 4. 处理结果 (截断大列表)
-            handleResultPolicy(info, result);
+            // 5. 处理结果 (截断大列表)
+            handleResultPolicy(context, decision, result);
 
             return result;
         } catch (Throwable t) {
@@ -79,41 +215,373 @@ public class SqlCaptureInterceptor implements Interceptor {
             info.setResult("Exception: " + t.getMessage());
             throw t;
         } finally {
-            info.setDurationMillis(System.currentTimeMillis() - start);
+            long nanos = System.nanoTime() - start;
+            digestAggregator.record(ms, context.getParameterObject(), nanos, success, rowsOf(result));
+            info.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(nanos));
             info.setSuccess(success);
+            if (previous == null) {
+                CURRENT_CONTEXT.remove();
+            } else {
+                CURRENT_CONTEXT.set(previous);
+            }
 
-            // 5. 异步提交
+            // 6. 异步提交
+            sqlCaptureDispatcher.submit(context);
+        }
+    }
+
+    /**
+     * 未被采样的语句：只计时，失败或慢 SQL 时再补建上下文强制捕获
+     */
+    private Object proceedUnsampled(Invocation invocation, MappedStatement ms, CaptureDecision decision) throws Throwable {
+        Object parameterObject = invocation.getArgs()[1];
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable t) {
+            long nanos = System.nanoTime() - start;
+            digestAggregator.record(ms, parameterObject, nanos, false, 0);
+            long duration = TimeUnit.NANOSECONDS.toMillis(nanos);
+            if (captureSampler.forceCapture(false, duration)) {
+                SqlCaptureContext context = newContext(ms, decision, invocation.getArgs());
+                context.getInfo().setResult("Exception: " + t.getMessage());
+                context.getInfo().setDurationMillis(duration);
+                context.getInfo().setSuccess(false);
+                sqlCaptureDispatcher.submit(context);
+            }
+            throw t;
+        }
+        long nanos = System.nanoTime() - start;
+        digestAggregator.record(ms, parameterObject, nanos, true, rowsOf(result));
+        long duration = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (captureSampler.forceCapture(true, duration)) {
+            SqlCaptureContext context = newContext(ms, decision, invocation.getArgs());
+            handleResultPolicy(context, decision, result);
+            context.getInfo().setDurationMillis(duration);
+            context.getInfo().setSuccess(true);
             sqlCaptureDispatcher.submit(context);
         }
+        return result;
+    }
+
+    /**
+     * 拦截 SqlSession.flushStatements (mybatis-plus saveBatch 每批及结束时调用)
+     */
+    private Object interceptFlush(Invocation invocation, Executor executor) throws Throwable {
+        Configuration configuration = takePending(executor);
+        if (configuration == null) {
+            return invocation.proceed();
+        }
+        return flushAndCapture(configuration, invocation::proceed);
+    }
+
+    /**
+     * commit / query 前主动 flush：执行器内部调用 flushStatements 不经过插件，无法计时
+     */
+    private void flushPending(Executor executor) throws Throwable {
+        Configuration configuration = takePending(executor);
+        if (configuration != null) {
+            flushAndCapture(configuration, executor::flushStatements);
+        }
     }
 
-    private void handleResultPolicy(CapturedSqlInfo info, Object result) {
-        if (result == null) {
-            info.setResult(null);
+    private Object flushAndCapture(Configuration configuration, FlushAction flush) throws Throwable {
+        long start = System.currentTimeMillis();
+        try {
+            @SuppressWarnings("unchecked")
+            List<BatchResult> results = (List<BatchResult>) flush.flush();
+            long duration = System.currentTimeMillis() - start;
+            for (BatchResult batch : results) {
+                captureBatch(batch.getMappedStatement(), batch.getSql(), batch.getParameterObjects(),
+                        batch.getUpdateCounts(), duration, null);
+            }
+            return results;
+        } catch (Throwable t) {
+            Throwable cause = ExceptionUtil.unwrapThrowable(t);
+            if (cause instanceof BatchExecutorException) {
+                // 失败批次之前的批次已成功执行 (随后通常被回滚)
+                BatchExecutorException e = (BatchExecutorException) cause;
+                long duration = System.currentTimeMillis() - start;
+                for (BatchResult batch : e.getSuccessfulBatchResults()) {
+                    captureBatch(batch.getMappedStatement(), batch.getSql(), batch.getParameterObjects(),
+                            batch.getUpdateCounts(), duration, null);
+                }
+                // 失败批次只能拿到语句 ID 与 SQL，不含参数
+                if (configuration.hasStatement(e.getFailingStatementId(), false)) {
+                    captureBatch(configuration.getMappedStatement(e.getFailingStatementId(), false),
+                            e.getFailingSqlStatement(), Collections.emptyList(), null, duration, e);
+                }
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * 每个 BatchResult (同一语句、同一 SQL 的连续 addBatch) 聚合为一条捕获
+     * <p>
+     * 一次 flush 包含多个批次时，各批次的耗时均为整次 flush 的耗时 (JDBC 不提供单批次耗时)
+     */
+    private void captureBatch(MappedStatement ms, String sql, List<Object> rows, int[] updateCounts,
+                              long duration, Throwable error) {
+        boolean success = error == null;
+        CaptureDecision decision = decisionOf(ms);
+        if (!decision.isCapture()) {
+            return;
+        }
+        digestAggregator.record(ms, rows.isEmpty() ? null : rows.get(0), TimeUnit.MILLISECONDS.toNanos(duration),
+                success, Math.max(0, updatedRows(updateCounts)));
+        if (!captureSampler.sample(decision) && !captureSampler.forceCapture(success, duration)) {
             return;
         }
+        // 以首行参数拼装 SQL 与参数
+        SqlCaptureContext context = newContext(ms, decision, new Object[]{ms, rows.isEmpty() ? null : rows.get(0)});
+        context.setBeforeImageRequired(false);
+        if (rows.isEmpty()) {
+            // 没有参数时只保留原始 SQL，不拼装可执行 SQL
+            context.setMappedStatement(null);
+            context.setBoundSql(null);
+        } else if (properties.isBatchRowParamsEnabled()) {
+            context.setBatchParameterObjects(new ArrayList<>(
+                    rows.subList(0, Math.min(rows.size(), Math.max(0, properties.getBatchMaxRowParams())))));
+        }
+        CapturedSqlInfo info = context.getInfo();
+        info.setRawSql(sql);
+        info.setBatchSize(rows.size());
+        info.setDurationMillis(duration);
+        info.setSuccess(success);
+        if (!success) {
+            info.setResult("Exception: " + error.getMessage());
+        } else if (properties.getResult().getMode() != SqlCaptureProperties.ResultMode.NONE) {
+            long updated = updatedRows(updateCounts);
+            info.setResultSummary("Batch Size: " + rows.size() + (updated >= 0 ? ", Updated: " + updated : ""));
+        }
+        sqlCaptureDispatcher.submit(context);
+    }
+
+    /**
+     * 查询返回行数 / 写操作影响行数
+     */
+    private static long rowsOf(Object result) {
+        if (result instanceof Integer) {
+            return Math.max(0, (Integer) result);
+        }
         if (result instanceof Collection) {
-            Collection<?> col = (Collection<?>) result;
-            int size = col.size();
-            // 策略：超过 10 条不记录详细内容，防止内存溢出
-            if (size > 10) {
-                // 只记录第一条作为参考，或者干脆 null
-                Object first = col.isEmpty() ? null : col.iterator().next();
-                info.setResult(first != null ? "First: " + first + " ... (Total: " + size + ")" : "Size: " + size);
-                info.setResultSummary("List Size: " + size + " (Truncated)");
-            } else {
-                info.setResult(result);
-                info.setResultSummary("List Size: " + size);
+            return ((Collection<?>) result).size();
+        }
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * @return 影响行数合计，驱动返回 SUCCESS_NO_INFO (如 rewriteBatchedStatements) 时为 -1
+     */
+    private static long updatedRows(int[] updateCounts) {
+        if (updateCounts == null) {
+            return -1;
+        }
+        long total = 0;
+        for (int count : updateCounts) {
+            if (count < 0) {
+                return -1;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private static boolean isBatchExecutor(Executor executor) {
+        Object target = executor instanceof CachingExecutor && CACHING_DELEGATE_FIELD != null
+                ? ReflectionUtils.getField(CACHING_DELEGATE_FIELD, executor)
+                : executor;
+        return target != null && BATCH_EXECUTOR_TYPES.computeIfAbsent(target.getClass(),
+                type -> BatchExecutor.class.isAssignableFrom(type) || MybatisBatchExecutor.class.isAssignableFrom(type));
+    }
+
+    private static void markPending(Executor executor, Configuration configuration) {
+        Map<Executor, Configuration> pending = PENDING_BATCHES.get();
+        if (pending == null) {
+            pending = new WeakHashMap<>();
+            PENDING_BATCHES.set(pending);
+        }
+        pending.put(executor, configuration);
+    }
+
+    /**
+     * @return 该执行器有待捕获的批量语句时返回其 Configuration，否则为 null
+     */
+    private static Configuration takePending(Executor executor) {
+        Map<Executor, Configuration> pending = PENDING_BATCHES.get();
+        if (pending == null) {
+            return null;
+        }
+        Configuration configuration = pending.remove(executor);
+        if (pending.isEmpty()) {
+            PENDING_BATCHES.remove();
+        }
+        return configuration;
+    }
+
+    @FunctionalInterface
+    private interface FlushAction {
+        Object flush() throws Throwable;
+    }
+
+    private SqlCaptureContext newContext(MappedStatement ms, CaptureDecision decision, Object[] args) {
+        // 使用 Context 包装 MyBatis 重对象，避免在 DTO 中长期持有 (开启事件池时成对复用)
+        SqlCaptureContext context = eventPool.borrow();
+        CapturedSqlInfo info = context.getInfo();
+        info.setEntityClassName(decision.getEntityName());
+        info.setMapperMethod(ms.getId());
+        info.setSqlCommandType(ms.getSqlCommandType());
+
+        context.setConfiguration(ms.getConfiguration());
+        context.setMappedStatement(ms);
+        context.setParameterObject(args.length > 1 ? args[1] : null);
+        context.setEntityClass(decision.getEntityClass());
+        SqlCommandType commandType = ms.getSqlCommandType();
+        context.setBeforeImageRequired(properties.isBeforeImageEnabled()
+                && (commandType == SqlCommandType.UPDATE || commandType == SqlCommandType.DELETE));
+
+        if (args.length == 6) {
+            // 6 参 query 已携带 MyBatis 构建好的 BoundSql
+            context.setBoundSql((BoundSql) args[5]);
+        } else if (!properties.isReuseBoundSql()) {
+            try {
+                // 提前获取 BoundSql (会与 Executor 重复解析一次动态 SQL)
+                context.setBoundSql(ms.getBoundSql(context.getParameterObject()));
+            } catch (Exception e) {
+                log.debug("Failed to get BoundSql", e);
             }
-        } else {
-            info.setResult(result);
-            info.setResultSummary(String.valueOf(result));
         }
+        // 否则由 StatementHandler.parameterize 回填；命中缓存时异步线程再兜底构建
+        return context;
+    }
+
+    private CaptureDecision decisionOf(MappedStatement ms) {
+        CaptureDecisionTable table = decisionTable;
+        CaptureDecision decision = table == null ? null : table.get(ms.getId());
+        return decision != null ? decision : registerDecision(ms);
+    }
+
+    /**
+     * 决策表中不存在的语句 (启动前执行或动态注册)，写时复制补充进表
+     */
+    private synchronized CaptureDecision registerDecision(MappedStatement ms) {
+        CaptureDecisionTable table = decisionTable;
+        if (table == null) {
+            table = CaptureDecisionTable.empty(properties);
+        }
+        CaptureDecision decision = table.get(ms.getId());
+        if (decision == null) {
+            table = table.with(ms);
+            decision = table.get(ms.getId());
+        }
+        decisionTable = table;
+        return decision;
+    }
+
+    /**
+     * 复用 MyBatis 在 prepare 阶段已构建的 BoundSql，避免重复解析动态 SQL (foreach / if)
+     */
+    private Object interceptParameterize(Invocation invocation) throws Throwable {
+        SqlCaptureContext context = CURRENT_CONTEXT.get();
+        if (context != null && (context.getBoundSql() == null || context.isBeforeImageRequired())) {
+            StatementHandler handler = (StatementHandler) invocation.getTarget();
+            MappedStatement handlerMs = mappedStatementOf(handler);
+            // selectKey 等嵌套语句会共用同一线程，只回填属于当前语句的 BoundSql
+            if (handlerMs == null || handlerMs == context.getMappedStatement()) {
+                if (context.getBoundSql() == null) {
+                    context.setBoundSql(handler.getBoundSql());
+                }
+                if (context.isBeforeImageRequired()) {
+                    context.setBeforeImageRequired(false);
+                    captureBeforeImage(context, ((Statement) invocation.getArgs()[0]).getConnection());
+                }
+            }
+        }
+        return invocation.proceed();
+    }
+
+    /**
+     * 写操作执行前，在同一事务连接上读取前镜像 (无需额外获取连接，读到的是修改前的数据)
+     */
+    private void captureBeforeImage(SqlCaptureContext context, Connection connection) {
+        try {
+            List<Object> values = SqlBuilderUtils.resolveParameterValues(
+                    context.getConfiguration(), context.getBoundSql(), context.getParameterObject());
+            // 参数值快照，异步线程拼装 SQL 时直接复用
+            context.setParameterValues(values);
+            context.getInfo().setBeforeImage(BeforeImageReader.read(connection, context.getConfiguration(),
+                    context.getBoundSql(), values, context.getEntityClass(), properties.getBeforeImageMaxRows()));
+        } catch (Exception e) {
+            log.warn("Before image capture failed: {}", context.getMappedStatement().getId(), e);
+        }
+    }
+
+    private static MappedStatement mappedStatementOf(StatementHandler handler) {
+        if (ROUTING_DELEGATE_FIELD == null || MAPPED_STATEMENT_FIELD == null) {
+            return null;
+        }
+        Object target = handler instanceof RoutingStatementHandler
+                ? ReflectionUtils.getField(ROUTING_DELEGATE_FIELD, handler)
+                : handler;
+        return target instanceof BaseStatementHandler
+                ? (MappedStatement) ReflectionUtils.getField(MAPPED_STATEMENT_FIELD, target)
+                : null;
+    }
+
+    private static Field accessibleField(Class<?> type, String name) {
+        Field field = ReflectionUtils.findField(type, name);
+        if (field != null) {
+            ReflectionUtils.makeAccessible(field);
+        }
+        return field;
+    }
+
+    /**
+     * 结果捕获策略：在业务线程内按列复制快照，不把实体对象图留到异步线程
+     */
+    private void handleResultPolicy(SqlCaptureContext context, CaptureDecision decision, Object result) {
+        CapturedSqlInfo info = context.getInfo();
+        SqlCaptureProperties.Result policy = properties.getResult();
+        info.setResult(null);
+        if (policy.getMode() == SqlCaptureProperties.ResultMode.NONE || result == null) {
+            return;
+        }
+        String summary = result instanceof Collection
+                ? "List Size: " + ((Collection<?>) result).size()
+                : String.valueOf(result);
+        if (policy.getMode() == SqlCaptureProperties.ResultMode.SUMMARY) {
+            info.setResultSummary(summary);
+            return;
+        }
+
+        ResultProjector.ResultProjection projection = ResultProjector.project(context.getConfiguration(), result,
+                decision.getResultColumns(), policy.getMaxRows(), policy.getMaxEventBytes());
+        if (!resultBudget.tryReserve(context, projection.getBytes())) {
+            // 全局预算耗尽 (队列严重积压)，只保留摘要
+            info.setResultSummary(summary + " (Budget Exceeded)");
+            return;
+        }
+        info.setResult(projection.getSnapshot());
+        info.setResultSummary(projection.isTruncated() ? summary + " (Truncated)" : summary);
     }
 
     @Override
     public Object plugin(Object target) {
-        return Plugin.wrap(target, this);
+        // 只包装拦截的类型；Plugin.wrap 每次都会重新解析 @Intercepts，ParameterHandler / ResultSetHandler 无需走这一步
+        if (target instanceof Executor) {
+            return Plugin.wrap(target, this);
+        }
+        // StatementHandler 在 Executor 拦截内创建：只有当前语句被捕获、且仍需回填 BoundSql 或读取前镜像时才包装，
+        // 其余语句 (未捕获 / 未采样 / reuseBoundSql 关闭且未开启前镜像) 不产生代理，也不经过 Plugin.invoke
+        if (target instanceof StatementHandler) {
+            SqlCaptureContext context = CURRENT_CONTEXT.get();
+            if (context != null && (context.getBoundSql() == null || context.isBeforeImageRequired())) {
+                return Plugin.wrap(target, this);
+            }
+        }
+        return target;
     }
 
     @Override
@@ -1,12 +1,19 @@
 package com.opay.offline.component.monitor.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.apache.ibatis.mapping.SqlCommandType;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,7 +27,8 @@ public class CapturedSqlInfo implements Serializable {
     private String entityClassName;
     private String mapperMethod;
     private SqlCommandType sqlCommandType;
-    private LocalDateTime timestamp = LocalDateTime.now();
+    // 捕获时间 (epoch 毫秒，0 表示未设置)；getTimestamp() 按需转换为 LocalDateTime
+    private long timestampMillis = System.currentTimeMillis();
 
     // --- SQL 数据 ---
     private String rawSql;          // 原始 SQL (带 ?)
@@ -31,6 +39,24 @@ public class CapturedSqlInfo implements Serializable {
     private LinkedHashMap<String, Object> params;
     // 有序 Map，专存 WHERE 条件参数 (用于审计)
     private LinkedHashMap<String, Object> whereParams;
+    // 前镜像：UPDATE / DELETE 执行前按相同条件读取的实体字段 (需开启 beforeImageEnabled)
+    private List<Map<String, Object>> beforeImage;
+    // BATCH 执行器聚合捕获：本次 flush 的语句条数 (非批量时为 0)
+    private int batchSize;
+    // BATCH 执行器聚合捕获：逐行参数 (需开启 batchRowParamsEnabled)
+    private List<Map<String, Object>> batchParams;
+
+    // --- 链路 (业务线程提交时按 trace 配置从 MDC 复制) ---
+    private String traceId;
+    private String spanId;
+    // 请求入口 (如 URI / 接口名)
+    private String endpoint;
+
+    // --- 事务 (开启 transactionBufferEnabled 且处于 Spring 事务中时填充) ---
+    // 同一事务内的捕获共享同一个 ID
+    private String transactionId;
+    // 事务结果；缓存超出上限提前发布的事件为 null
+    private TransactionOutcome transactionOutcome;
 
     // --- 执行结果 ---
     private boolean success;
@@ -44,6 +70,116 @@ public class CapturedSqlInfo implements Serializable {
     // 用于多个 Handler 之间传递中间结果 (例如：敏感词命中标记、风险评分等)
     private Map<String, Object> ext = new HashMap<>();
 
+    // 开启事件池时指向成对复用的上下文，不作为 Bean 属性暴露 (避免被序列化)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient SqlCaptureContext pooledContext;
+
+    // 开启 trace.copyMdc 时业务线程提交时的完整 MDC 快照，同样不作为 Bean 属性暴露，不写入溢出日志
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient Map<String, String> mdcContext;
+
+    public LocalDateTime getTimestamp() {
+        return timestampMillis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault());
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestampMillis = timestamp == null ? 0 : timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public SqlCaptureContext pooledContext() {
+        return pooledContext;
+    }
+
+    public void pooledContext(SqlCaptureContext context) {
+        this.pooledContext = context;
+    }
+
+    /**
+     * 提交时的 MDC 快照，未开启 trace.copyMdc 时为 null；批量 Handler 可据此自行恢复 MDC
+     */
+    public Map<String, String> mdcContext() {
+        return mdcContext;
+    }
+
+    public void mdcContext(Map<String, String> mdcContext) {
+        this.mdcContext = mdcContext;
+    }
+
+    /**
+     * 回收前清空所有字段；params / whereParams / ext 只清空内容，保留已分配的容量
+     */
+    public void clear() {
+        entityClassName = null;
+        mapperMethod = null;
+        sqlCommandType = null;
+        timestampMillis = 0;
+        rawSql = null;
+        executableSql = null;
+        if (params != null) {
+            params.clear();
+        }
+        if (whereParams != null) {
+            whereParams.clear();
+        }
+        beforeImage = null;
+        batchSize = 0;
+        batchParams = null;
+        traceId = null;
+        spanId = null;
+        endpoint = null;
+        transactionId = null;
+        transactionOutcome = null;
+        mdcContext = null;
+        success = false;
+        durationMillis = 0;
+        result = null;
+        ResultSummary = null;
+        ext.clear();
+    }
+
+    /**
+     * 浅拷贝：字段与 params / whereParams 等集合共享，ext 为独立副本；不关联事件池
+     * <p>
+     * 用于 Handler 独立通道，每个通道各自写入 ext，互不干扰
+     */
+    public CapturedSqlInfo shallowCopy() {
+        CapturedSqlInfo copy = new CapturedSqlInfo();
+        copy.entityClassName = entityClassName;
+        copy.mapperMethod = mapperMethod;
+        copy.sqlCommandType = sqlCommandType;
+        copy.timestampMillis = timestampMillis;
+        copy.rawSql = rawSql;
+        copy.executableSql = executableSql;
+        copy.params = params;
+        copy.whereParams = whereParams;
+        copy.beforeImage = beforeImage;
+        copy.batchSize = batchSize;
+        copy.batchParams = batchParams;
+        copy.traceId = traceId;
+        copy.spanId = spanId;
+        copy.endpoint = endpoint;
+        copy.transactionId = transactionId;
+        copy.transactionOutcome = transactionOutcome;
+        copy.mdcContext = mdcContext;
+        copy.success = success;
+        copy.durationMillis = durationMillis;
+        copy.result = result;
+        copy.ResultSummary = ResultSummary;
+        copy.ext = new HashMap<>(ext);
+        return copy;
+    }
+
+    public enum TransactionOutcome {
+        COMMITTED,
+        ROLLED_BACK,
+        // 事务管理器无法确定提交结果 (如提交时连接异常)
+        UNKNOWN
+    }
+
     /**
      * 链式调用辅助方法：设置扩展属性
      */
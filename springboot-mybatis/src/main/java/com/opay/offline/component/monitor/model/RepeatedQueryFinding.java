@@ -0,0 +1,22 @@
+package com.opay.offline.component.monitor.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * N+1 查询检测结果：同一请求内同一 SQL 指纹重复执行
+ */
+@Data
+public class RepeatedQueryFinding {
+
+    private String traceId;
+    // 请求入口 (事件的 endpoint)
+    private String endpoint;
+    // 首次出现该指纹的 MappedStatement ID
+    private String mapperMethod;
+    private String fingerprint;
+    private int count;
+    private long totalMillis;
+    private LocalDateTime timestamp = LocalDateTime.now();
+}
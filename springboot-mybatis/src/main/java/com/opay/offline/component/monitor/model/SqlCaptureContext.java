@@ -5,6 +5,9 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * 内部使用的上下文对象
  * 仅在 "拦截器 -> 异步解析" 阶段存活，解析完即丢弃，不传给 Handler
@@ -18,10 +21,53 @@ public class SqlCaptureContext {
     // --- 构建期需要的 MyBatis 重型对象 ---
     private Configuration configuration;
     private MappedStatement mappedStatement;
+    // 事务缓存的事件在入缓存前已解析出 parameterValues，随后置空
     private Object parameterObject;
     private BoundSql boundSql;
+    // 已解析的参数值 (与 ? 一一对应)，为 null 时由异步线程解析
+    private List<Object> parameterValues;
+
+    // --- 前镜像 ---
+    private Class<?> entityClass;
+    // 是否需要在 StatementHandler.parameterize 时读取前镜像 (只读取一次)
+    private boolean beforeImageRequired;
+
+    // BATCH 聚合捕获的逐行参数对象，由异步线程解析为 batchParams
+    private List<Object> batchParameterObjects;
+
+    // 结果快照预占的全局预算字节数，事件离开队列时释放
+    private long resultBytes;
+
+    // --- 事件池 (开启 eventPoolEnabled 时使用) ---
+    // 归还时放回的条带，-1 表示非池化对象
+    private int poolStripe = -1;
+    // 待确认的 Handler 数：>= 0 表示使用中，-1 表示已在池中
+    private final AtomicInteger pendingAcks = new AtomicInteger();
 
     public SqlCaptureContext(CapturedSqlInfo info) {
         this.info = info;
     }
+
+    /**
+     * 异步组装完成后释放 MyBatis 重对象 (池化时上下文会随事件存活到 Handler 确认)
+     */
+    public void clearBuildState() {
+        configuration = null;
+        mappedStatement = null;
+        parameterObject = null;
+        boundSql = null;
+        parameterValues = null;
+        entityClass = null;
+        batchParameterObjects = null;
+    }
+
+    /**
+     * 回收前清空 (结果快照预算须已释放)
+     */
+    public void clear() {
+        clearBuildState();
+        beforeImageRequired = false;
+        resultBytes = 0;
+        info.clear();
+    }
 }
\ No newline at end of file
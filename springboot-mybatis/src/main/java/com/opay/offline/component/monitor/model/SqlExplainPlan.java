@@ -0,0 +1,27 @@
+package com.opay.offline.component.monitor.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 慢 SQL 的执行计划 (EXPLAIN 结果)，挂在对应语句的摘要统计上
+ */
+@Data
+public class SqlExplainPlan {
+
+    private String statementId;
+    private String fingerprint;
+    // 触发 EXPLAIN 的那次执行耗时
+    private long durationMillis;
+    // 实际 EXPLAIN 的 SQL (UPDATE / DELETE 已转为 SELECT)
+    private String explainedSql;
+    // EXPLAIN 输出，每行为列名 -> 值
+    private List<Map<String, Object>> rows;
+    // 是否存在全表扫描 (MySQL type = ALL)
+    private boolean fullScan;
+    private String error;
+    private LocalDateTime timestamp = LocalDateTime.now();
+}
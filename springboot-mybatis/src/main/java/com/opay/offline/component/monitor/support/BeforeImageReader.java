@@ -0,0 +1,196 @@
+package com.opay.offline.component.monitor.support;
+
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.alibaba.druid.sql.ast.statement.*;
+import com.alibaba.druid.sql.dialect.mysql.visitor.MySqlASTVisitorAdapter;
+import com.alibaba.druid.util.JdbcConstants;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 前镜像读取：在写操作执行前，于同一事务连接上按相同 WHERE 条件查询实体声明的字段
+ * <p>
+ * 1. 原始 SQL (带 ?) 只解析一次，缓存改写后的 SELECT 及 WHERE 中占位符的下标
+ * 2. 参数通过 ParameterMapping 自带的 TypeHandler 绑定，与 MyBatis 执行时一致
+ * 3. 不使用 FOR UPDATE，不会额外加锁
+ */
+@Slf4j
+public class BeforeImageReader {
+
+    private static final int MAX_TEMPLATE_CACHE_SIZE = 1024;
+    private static final Map<String, Optional<SelectTemplate>> TEMPLATE_CACHE = new ConcurrentHashMap<>(128);
+    private static final Map<Class<?>, List<String>> ENTITY_COLUMN_CACHE = new ConcurrentHashMap<>(64);
+
+    /**
+     * @return 前镜像行 (列名 -> 值)；语句不支持时返回 null
+     */
+    public static List<Map<String, Object>> read(Connection conn, Configuration cfg, BoundSql boundSql,
+                                                 List<Object> values, Class<?> entityClass, int maxRows) {
+        List<String> columns = entityColumns(entityClass);
+        if (columns.isEmpty()) {
+            return null;
+        }
+        SelectTemplate template = template(boundSql.getSql(), columns);
+        if (template == null) {
+            return null;
+        }
+
+        long start = System.currentTimeMillis();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(template.selectSql)) {
+            ps.setMaxRows(maxRows);
+            List<ParameterMapping> mappings = boundSql.getParameterMappings();
+            for (int i = 0; i < template.whereParamIndexes.length; i++) {
+                int index = template.whereParamIndexes[i];
+                bind(ps, i + 1, mappings.get(index), values.get(index), cfg);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int c = 0; c < columns.size(); c++) {
+                        row.put(columns.get(c), rs.getObject(c + 1));
+                    }
+                    rows.add(row);
+                }
+            }
+            log.debug("前镜像查询耗时: {}ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("前镜像查询失败: {}", template.selectSql, e);
+            return null;
+        }
+        return rows;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void bind(PreparedStatement ps, int position, ParameterMapping pm, Object value, Configuration cfg) throws Exception {
+        TypeHandler typeHandler = pm.getTypeHandler();
+        JdbcType jdbcType = pm.getJdbcType();
+        if (value == null && jdbcType == null) {
+            jdbcType = cfg.getJdbcTypeForNull();
+        }
+        typeHandler.setParameter(ps, position, value, jdbcType);
+    }
+
+    private static SelectTemplate template(String rawSql, List<String> columns) {
+        Optional<SelectTemplate> cached = TEMPLATE_CACHE.get(rawSql);
+        if (cached == null) {
+            cached = Optional.ofNullable(buildTemplate(rawSql, columns));
+            if (TEMPLATE_CACHE.size() < MAX_TEMPLATE_CACHE_SIZE) {
+                TEMPLATE_CACHE.putIfAbsent(rawSql, cached);
+            }
+        }
+        return cached.orElse(null);
+    }
+
+    private static SelectTemplate buildTemplate(String rawSql, List<String> columns) {
+        try {
+            List<SQLStatement> statements = SQLUtils.parseStatements(rawSql, JdbcConstants.MYSQL);
+            if (statements.size() != 1) {
+                return null;
+            }
+            SQLStatement statement = statements.get(0);
+            SQLTableSource tableSource;
+            SQLExpr where;
+            if (statement instanceof SQLUpdateStatement) {
+                tableSource = ((SQLUpdateStatement) statement).getTableSource();
+                where = ((SQLUpdateStatement) statement).getWhere();
+            } else if (statement instanceof SQLDeleteStatement) {
+                tableSource = ((SQLDeleteStatement) statement).getTableSource();
+                where = ((SQLDeleteStatement) statement).getWhere();
+            } else {
+                return null;
+            }
+            // 只支持单表且带 WHERE 的语句，避免全表读取
+            if (!(tableSource instanceof SQLExprTableSource) || where == null) {
+                return null;
+            }
+
+            List<Integer> indexes = new ArrayList<>();
+            where.accept(new MySqlASTVisitorAdapter() {
+                @Override
+                public boolean visit(SQLVariantRefExpr x) {
+                    if ("?".equals(x.getName())) {
+                        indexes.add(x.getIndex());
+                    }
+                    return true;
+                }
+            });
+
+            SQLSelectQueryBlock queryBlock = new SQLSelectQueryBlock();
+            for (String col : columns) {
+                queryBlock.addSelectItem(SQLUtils.toSQLExpr(col));
+            }
+            queryBlock.setFrom(tableSource);
+            queryBlock.setWhere(where);
+            SQLSelectStatement select = new SQLSelectStatement(new SQLSelect(queryBlock));
+
+            int[] whereParamIndexes = new int[indexes.size()];
+            for (int i = 0; i < whereParamIndexes.length; i++) {
+                whereParamIndexes[i] = indexes.get(i);
+            }
+            return new SelectTemplate(SQLUtils.toSQLString(select, JdbcConstants.MYSQL), whereParamIndexes);
+        } catch (Exception e) {
+            log.debug("前镜像 SQL 转换失败: {}", rawSql);
+            return null;
+        }
+    }
+
+    /**
+     * 实体声明的字段：优先取 mybatis-plus 的 TableInfo，其次按属性名转下划线
+     */
+    static List<String> entityColumns(Class<?> entityClass) {
+        if (entityClass == null) {
+            return Collections.emptyList();
+        }
+        return ENTITY_COLUMN_CACHE.computeIfAbsent(entityClass, type -> {
+            List<String> columns = new ArrayList<>();
+            TableInfo tableInfo = TableInfoHelper.getTableInfo(type);
+            if (tableInfo != null) {
+                if (tableInfo.getKeyColumn() != null) {
+                    columns.add(tableInfo.getKeyColumn());
+                }
+                for (TableFieldInfo field : tableInfo.getFieldList()) {
+                    columns.add(field.getColumn());
+                }
+                return Collections.unmodifiableList(columns);
+            }
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                        columns.add(BeanColumnUtil.toSnakeCase(field.getName()));
+                    }
+                }
+            }
+            return Collections.unmodifiableList(columns);
+        });
+    }
+
+    private static class SelectTemplate {
+        private final String selectSql;
+        // WHERE 中各 ? 在原始 SQL 参数列表中的下标
+        private final int[] whereParamIndexes;
+
+        SelectTemplate(String selectSql, int[] whereParamIndexes) {
+            this.selectSql = selectSql;
+            this.whereParamIndexes = whereParamIndexes;
+        }
+    }
+}
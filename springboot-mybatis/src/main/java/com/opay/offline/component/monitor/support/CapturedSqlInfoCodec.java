@@ -0,0 +1,623 @@
+package com.opay.offline.component.monitor.support;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import org.apache.ibatis.mapping.SqlCommandType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CapturedSqlInfo 二进制编解码 (按字段顺序编码，不依赖反射)
+ * <p>
+ * 1. 整数使用 varint (有符号数先 zigzag)，时间戳编码为 epochDay + nanoOfDay
+ * 2. entityClassName / mapperMethod / endpoint 使用流内字典：首次出现写入全文并登记编号，之后只写编号；
+ *    同一个流的 Encoder / Decoder 必须按相同顺序处理记录，换流 (如换段文件) 时双方都要 reset
+ * 3. Encoder 直接写入复用的字节数组，单线程使用
+ * 4. 参数值按类型打标签；无法识别的对象 (如实体) 按 toString 编码，解码后为字符串
+ */
+public final class CapturedSqlInfoCodec {
+
+    private static final byte VERSION = 1;
+
+    // 字典引用标签：0 = null，1 = 内联 (不登记)，2 = 定义并登记，>= 3 为引用 (编号 = 标签 - 3)
+    private static final int DICT_NULL = 0;
+    private static final int DICT_INLINE = 1;
+    private static final int DICT_DEFINE = 2;
+    private static final int DICT_REF_BASE = 3;
+    // 字典上限，超出后改为内联，防止 mapper 数异常多时无限增长
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+
+    private static final int FLAG_SUCCESS = 1;
+    private static final int FLAG_TIMESTAMP = 1 << 1;
+
+    // 值类型标签
+    private static final int T_NULL = 0;
+    private static final int T_STRING = 1;
+    private static final int T_TRUE = 2;
+    private static final int T_FALSE = 3;
+    private static final int T_INT = 4;
+    private static final int T_LONG = 5;
+    private static final int T_DOUBLE = 6;
+    private static final int T_FLOAT = 7;
+    private static final int T_DECIMAL = 8;
+    private static final int T_BIG_INTEGER = 9;
+    private static final int T_DATE = 10;
+    private static final int T_TIMESTAMP = 11;
+    private static final int T_LOCAL_DATE_TIME = 12;
+    private static final int T_LOCAL_DATE = 13;
+    private static final int T_LOCAL_TIME = 14;
+    private static final int T_BYTES = 15;
+    private static final int T_LIST = 16;
+    private static final int T_MAP = 17;
+
+    // 嵌套容器最大深度，超出后按 toString 编码
+    private static final int MAX_DEPTH = 8;
+
+    private static final SqlCommandType[] COMMAND_TYPES = SqlCommandType.values();
+    private static final CapturedSqlInfo.TransactionOutcome[] TRANSACTION_OUTCOMES = CapturedSqlInfo.TransactionOutcome.values();
+
+    private CapturedSqlInfoCodec() {
+    }
+
+    public static final class Encoder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+        // 超过该容量的缓冲区在下次编码时释放，避免偶发大事件长期占用内存
+        private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        // 最近一次 encode 新登记的字典项，用于 discardLast 撤销
+        private final List<String> lastDefined = new ArrayList<>();
+        private byte[] buf = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * 编码到内部缓冲区
+         *
+         * @return 编码后的字节数
+         */
+        public int encode(CapturedSqlInfo info) {
+            if (buf.length > MAX_RETAINED_CAPACITY) {
+                buf = new byte[INITIAL_CAPACITY];
+            }
+            size = 0;
+            lastDefined.clear();
+
+            buf[size++] = VERSION;
+            int flags = (info.isSuccess() ? FLAG_SUCCESS : 0) | (info.getTimestamp() != null ? FLAG_TIMESTAMP : 0);
+            writeVarInt(flags);
+            writeDictString(info.getEntityClassName());
+            writeDictString(info.getMapperMethod());
+            ensure(1);
+            buf[size++] = (byte) (info.getSqlCommandType() == null ? 0 : info.getSqlCommandType().ordinal() + 1);
+            if (info.getTimestamp() != null) {
+                writeLocalDateTime(info.getTimestamp());
+            }
+            writeString(info.getRawSql());
+            writeString(info.getExecutableSql());
+            writeMap(info.getParams(), 0);
+            writeMap(info.getWhereParams(), 0);
+            writeRows(info.getBeforeImage());
+            writeVarInt(info.getBatchSize());
+            writeRows(info.getBatchParams());
+            writeString(info.getTransactionId());
+            ensure(1);
+            buf[size++] = (byte) (info.getTransactionOutcome() == null ? 0 : info.getTransactionOutcome().ordinal() + 1);
+            writeString(info.getTraceId());
+            writeString(info.getSpanId());
+            writeDictString(info.getEndpoint());
+            writeVarLong(zigzag(info.getDurationMillis()));
+            writeValue(info.getResult(), 0);
+            writeString(info.getResultSummary());
+            writeMap(info.getExt(), 0);
+            return size;
+        }
+
+        private void writeRows(List<Map<String, Object>> rows) {
+            if (rows == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(rows.size() + 1);
+            for (Map<String, Object> row : rows) {
+                writeMap(row, 0);
+            }
+        }
+
+        /**
+         * 撤销最近一次 encode 登记的字典项 (该记录最终未写出时调用，保证与 Decoder 一致)
+         */
+        public void discardLast() {
+            for (String value : lastDefined) {
+                dictionary.remove(value);
+            }
+            lastDefined.clear();
+        }
+
+        /**
+         * 换流时清空字典
+         */
+        public void reset() {
+            dictionary.clear();
+            lastDefined.clear();
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void writeTo(ByteBuffer target) {
+            target.put(buf, 0, size);
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void writeDictString(String value) {
+            if (value == null) {
+                writeVarInt(DICT_NULL);
+                return;
+            }
+            Integer id = dictionary.get(value);
+            if (id != null) {
+                writeVarInt(DICT_REF_BASE + id);
+            } else if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(value, dictionary.size());
+                lastDefined.add(value);
+                writeVarInt(DICT_DEFINE);
+                writeUtf8(value);
+            } else {
+                writeVarInt(DICT_INLINE);
+                writeUtf8(value);
+            }
+        }
+
+        private void writeMap(Map<?, ?> map, int depth) {
+            if (map == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(map.size() + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(entry.getKey() == null ? null : entry.getKey().toString());
+                writeValue(entry.getValue(), depth + 1);
+            }
+        }
+
+        private void writeValue(Object value, int depth) {
+            if (value == null) {
+                writeVarInt(T_NULL);
+            } else if (value instanceof String) {
+                writeVarInt(T_STRING);
+                writeUtf8((String) value);
+            } else if (value instanceof Boolean) {
+                writeVarInt((Boolean) value ? T_TRUE : T_FALSE);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                writeVarInt(T_INT);
+                writeVarLong(zigzag(((Number) value).intValue()));
+            } else if (value instanceof Long) {
+                writeVarInt(T_LONG);
+                writeVarLong(zigzag((Long) value));
+            } else if (value instanceof Double) {
+                writeVarInt(T_DOUBLE);
+                writeFixedLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeVarInt(T_FLOAT);
+                writeVarInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof BigDecimal) {
+                writeVarInt(T_DECIMAL);
+                writeUtf8(((BigDecimal) value).toString());
+            } else if (value instanceof BigInteger) {
+                writeVarInt(T_BIG_INTEGER);
+                writeUtf8(value.toString());
+            } else if (value instanceof Timestamp) {
+                writeVarInt(T_TIMESTAMP);
+                writeVarLong(zigzag(((Timestamp) value).getTime()));
+                writeVarInt(((Timestamp) value).getNanos());
+            } else if (value instanceof Date) {
+                writeVarInt(T_DATE);
+                writeVarLong(zigzag(((Date) value).getTime()));
+            } else if (value instanceof LocalDateTime) {
+                writeVarInt(T_LOCAL_DATE_TIME);
+                writeLocalDateTime((LocalDateTime) value);
+            } else if (value instanceof LocalDate) {
+                writeVarInt(T_LOCAL_DATE);
+                writeVarLong(zigzag(((LocalDate) value).toEpochDay()));
+            } else if (value instanceof LocalTime) {
+                writeVarInt(T_LOCAL_TIME);
+                writeVarLong(((LocalTime) value).toNanoOfDay());
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                writeVarInt(T_BYTES);
+                writeVarInt(bytes.length);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buf, size, bytes.length);
+                size += bytes.length;
+            } else if (value instanceof Character || value instanceof Enum) {
+                writeVarInt(T_STRING);
+                writeUtf8(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+            } else if (value instanceof Collection && depth < MAX_DEPTH) {
+                Collection<?> collection = (Collection<?>) value;
+                writeVarInt(T_LIST);
+                writeVarInt(collection.size());
+                for (Object element : collection) {
+                    writeValue(element, depth + 1);
+                }
+            } else if (value instanceof Map && depth < MAX_DEPTH) {
+                writeVarInt(T_MAP);
+                writeMap((Map<?, ?>) value, depth);
+            } else {
+                // 实体等未知类型不做反射，按 toString 编码
+                writeVarInt(T_STRING);
+                writeUtf8(String.valueOf(value));
+            }
+        }
+
+        private void writeLocalDateTime(LocalDateTime value) {
+            writeVarLong(zigzag(value.toLocalDate().toEpochDay()));
+            writeVarLong(value.toLocalTime().toNanoOfDay());
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeUtf8Prefixed(value, 1);
+        }
+
+        private void writeUtf8(String value) {
+            writeUtf8Prefixed(value, 0);
+        }
+
+        /**
+         * 写入 [varint(字节数 + bias)][UTF-8]，直接编码进缓冲区，不生成中间 byte[]
+         */
+        private void writeUtf8Prefixed(String value, int bias) {
+            int length = value.length();
+            int utf8Length = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    utf8Length++;
+                } else if (c < 0x800) {
+                    utf8Length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    utf8Length += 4;
+                    i++;
+                } else {
+                    utf8Length += 3;
+                }
+            }
+            writeVarInt(utf8Length + bias);
+            ensure(utf8Length);
+            byte[] b = buf;
+            int p = size;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    b[p++] = (byte) c;
+                } else if (c < 0x800) {
+                    b[p++] = (byte) (0xC0 | (c >> 6));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    b[p++] = (byte) (0xF0 | (codePoint >> 18));
+                    b[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    b[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // 孤立代理项与 JDK 编码器一致，替换为 '?'
+                    if (Character.isSurrogate(c)) {
+                        c = '?';
+                    }
+                    b[p++] = (byte) (0xE0 | (c >> 12));
+                    b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[p++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            size = p;
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        private void writeFixedLong(long value) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                buf[size++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + extra));
+            }
+        }
+    }
+
+    public static final class Decoder {
+
+        private final List<String> dictionary = new ArrayList<>();
+        private byte[] buf;
+        private int pos;
+        private int limit;
+
+        /**
+         * @throws IllegalArgumentException 数据损坏或字典引用不存在
+         */
+        public CapturedSqlInfo decode(byte[] data, int offset, int length) {
+            buf = data;
+            pos = offset;
+            limit = offset + length;
+            try {
+                return readInfo();
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Truncated CapturedSqlInfo record", e);
+            } finally {
+                buf = null;
+            }
+        }
+
+        /**
+         * 换流时清空字典
+         */
+        public void reset() {
+            dictionary.clear();
+        }
+
+        private CapturedSqlInfo readInfo() {
+            byte version = readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported CapturedSqlInfo codec version: " + version);
+            }
+            int flags = readVarInt();
+            CapturedSqlInfo info = new CapturedSqlInfo();
+            info.setSuccess((flags & FLAG_SUCCESS) != 0);
+            info.setEntityClassName(readDictString());
+            info.setMapperMethod(readDictString());
+            int commandType = readByte();
+            if (commandType < 0 || commandType > COMMAND_TYPES.length) {
+                throw new IllegalArgumentException("Bad SqlCommandType: " + commandType);
+            }
+            info.setSqlCommandType(commandType == 0 ? null : COMMAND_TYPES[commandType - 1]);
+            info.setTimestamp((flags & FLAG_TIMESTAMP) != 0 ? readLocalDateTime() : null);
+            info.setRawSql(readString());
+            info.setExecutableSql(readString());
+            info.setParams(readMap(0));
+            info.setWhereParams(readMap(0));
+            info.setBeforeImage(readRows());
+            info.setBatchSize(readVarInt());
+            info.setBatchParams(readRows());
+            info.setTransactionId(readString());
+            int outcome = readByte();
+            if (outcome < 0 || outcome > TRANSACTION_OUTCOMES.length) {
+                throw new IllegalArgumentException("Bad TransactionOutcome: " + outcome);
+            }
+            info.setTransactionOutcome(outcome == 0 ? null : TRANSACTION_OUTCOMES[outcome - 1]);
+            info.setTraceId(readString());
+            info.setSpanId(readString());
+            info.setEndpoint(readDictString());
+            info.setDurationMillis(unzigzag(readVarLong()));
+            info.setResult(readValue(0));
+            info.setResultSummary(readString());
+            LinkedHashMap<String, Object> ext = readMap(0);
+            info.setExt(ext == null ? new HashMap<>() : ext);
+            if (pos != limit) {
+                throw new IllegalArgumentException("Trailing bytes in CapturedSqlInfo record: " + (limit - pos));
+            }
+            return info;
+        }
+
+        private List<Map<String, Object>> readRows() {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            List<Map<String, Object>> rows = new ArrayList<>(Math.min(size - 1, remaining()));
+            for (int i = 1; i < size; i++) {
+                rows.add(readMap(0));
+            }
+            return rows;
+        }
+
+        private String readDictString() {
+            int tag = readVarInt();
+            switch (tag) {
+                case DICT_NULL:
+                    return null;
+                case DICT_INLINE:
+                    return readUtf8(readVarInt());
+                case DICT_DEFINE:
+                    String value = readUtf8(readVarInt());
+                    dictionary.add(value);
+                    return value;
+                default:
+                    int id = tag - DICT_REF_BASE;
+                    if (id >= dictionary.size()) {
+                        throw new IllegalArgumentException("Unknown dictionary reference: " + id);
+                    }
+                    return dictionary.get(id);
+            }
+        }
+
+        private LinkedHashMap<String, Object> readMap(int depth) {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            LinkedHashMap<String, Object> map = new LinkedHashMap<>(Math.min(size - 1, remaining()) * 4 / 3 + 1);
+            for (int i = 1; i < size; i++) {
+                String key = readString();
+                map.put(key, readValue(depth + 1));
+            }
+            return map;
+        }
+
+        private Object readValue(int depth) {
+            if (depth > MAX_DEPTH + 1) {
+                throw new IllegalArgumentException("CapturedSqlInfo value nested too deep");
+            }
+            int tag = readVarInt();
+            switch (tag) {
+                case T_NULL:
+                    return null;
+                case T_STRING:
+                    return readUtf8(readVarInt());
+                case T_TRUE:
+                    return Boolean.TRUE;
+                case T_FALSE:
+                    return Boolean.FALSE;
+                case T_INT:
+                    return (int) unzigzag(readVarLong());
+                case T_LONG:
+                    return unzigzag(readVarLong());
+                case T_DOUBLE:
+                    return Double.longBitsToDouble(readFixedLong());
+                case T_FLOAT:
+                    return Float.intBitsToFloat(readVarInt());
+                case T_DECIMAL:
+                    return new BigDecimal(readUtf8(readVarInt()));
+                case T_BIG_INTEGER:
+                    return new BigInteger(readUtf8(readVarInt()));
+                case T_DATE:
+                    return new Date(unzigzag(readVarLong()));
+                case T_TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(unzigzag(readVarLong()));
+                    timestamp.setNanos(readVarInt());
+                    return timestamp;
+                case T_LOCAL_DATE_TIME:
+                    return readLocalDateTime();
+                case T_LOCAL_DATE:
+                    return LocalDate.ofEpochDay(unzigzag(readVarLong()));
+                case T_LOCAL_TIME:
+                    return LocalTime.ofNanoOfDay(readVarLong());
+                case T_BYTES:
+                    int length = readLength();
+                    byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+                    pos += length;
+                    return bytes;
+                case T_LIST:
+                    int count = readVarInt();
+                    List<Object> list = new ArrayList<>(Math.min(count, remaining()));
+                    for (int i = 0; i < count; i++) {
+                        list.add(readValue(depth + 1));
+                    }
+                    return list;
+                case T_MAP:
+                    return readMap(depth);
+                default:
+                    throw new IllegalArgumentException("Unknown value tag: " + tag);
+            }
+        }
+
+        private LocalDateTime readLocalDateTime() {
+            LocalDate date = LocalDate.ofEpochDay(unzigzag(readVarLong()));
+            return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong()));
+        }
+
+        private String readString() {
+            int prefix = readVarInt();
+            return prefix == 0 ? null : readUtf8(prefix - 1);
+        }
+
+        private String readUtf8(int length) {
+            if (length < 0 || length > remaining()) {
+                throw new IllegalArgumentException("Bad string length: " + length);
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private int readLength() {
+            int length = readVarInt();
+            if (length < 0 || length > remaining()) {
+                throw new IllegalArgumentException("Bad length: " + length);
+            }
+            return length;
+        }
+
+        private int remaining() {
+            return limit - pos;
+        }
+
+        private byte readByte() {
+            if (pos >= limit) {
+                throw new IllegalArgumentException("Truncated CapturedSqlInfo record");
+            }
+            return buf[pos++];
+        }
+
+        private int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                result |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varlong");
+        }
+
+        private long readFixedLong() {
+            long result = 0;
+            for (int i = 0; i < 8; i++) {
+                result |= (long) (readByte() & 0xFF) << (i * 8);
+            }
+            return result;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.opay.offline.component.monitor.support;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * CapturedSqlInfo 文本渲染 (JSON 格式，按字段顺序输出，不依赖反射)
+ * <p>
+ * 与 fastjson 输出保持一致的约定：null 字段省略，Date 输出毫秒数；
+ * 实体等未知类型按 toString 输出为字符串
+ */
+public final class CapturedSqlInfoTextRenderer {
+
+    private static final int INITIAL_CAPACITY = 512;
+    // 超过该容量的线程缓冲区用完即丢弃
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    // 嵌套容器最大深度，超出后按 toString 输出
+    private static final int MAX_DEPTH = 8;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private CapturedSqlInfoTextRenderer() {
+    }
+
+    /**
+     * 使用线程内复用的缓冲区渲染
+     */
+    public static String render(CapturedSqlInfo info) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        try {
+            return appendTo(sb, info).toString();
+        } finally {
+            if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    public static StringBuilder appendTo(StringBuilder sb, CapturedSqlInfo info) {
+        if (info == null) {
+            return sb.append("null");
+        }
+        sb.append('{');
+        int start = sb.length();
+        field(sb, start, "entityClassName", info.getEntityClassName());
+        field(sb, start, "mapperMethod", info.getMapperMethod());
+        field(sb, start, "sqlCommandType", info.getSqlCommandType());
+        field(sb, start, "timestamp", info.getTimestamp());
+        field(sb, start, "rawSql", info.getRawSql());
+        field(sb, start, "executableSql", info.getExecutableSql());
+        field(sb, start, "params", info.getParams());
+        field(sb, start, "whereParams", info.getWhereParams());
+        field(sb, start, "beforeImage", info.getBeforeImage());
+        if (info.getBatchSize() > 0) {
+            field(sb, start, "batchSize", info.getBatchSize());
+        }
+        field(sb, start, "batchParams", info.getBatchParams());
+        field(sb, start, "traceId", info.getTraceId());
+        field(sb, start, "spanId", info.getSpanId());
+        field(sb, start, "endpoint", info.getEndpoint());
+        field(sb, start, "transactionId", info.getTransactionId());
+        field(sb, start, "transactionOutcome", info.getTransactionOutcome());
+        field(sb, start, "success", info.isSuccess());
+        field(sb, start, "durationMillis", info.getDurationMillis());
+        field(sb, start, "result", info.getResult());
+        field(sb, start, "resultSummary", info.getResultSummary());
+        field(sb, start, "ext", info.getExt());
+        return sb.append('}');
+    }
+
+    private static void field(StringBuilder sb, int start, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (sb.length() > start) {
+            sb.append(',');
+        }
+        sb.append('"').append(name).append("\":");
+        appendValue(sb, value, 0);
+    }
+
+    private static void appendValue(StringBuilder sb, Object value, int depth) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            appendString(sb, (String) value);
+        } else if (value instanceof Boolean) {
+            sb.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Number) {
+            appendNumber(sb, (Number) value);
+        } else if (value instanceof Date) {
+            sb.append(((Date) value).getTime());
+        } else if (value instanceof Enum) {
+            appendString(sb, ((Enum<?>) value).name());
+        } else if (value instanceof TemporalAccessor || value instanceof Character) {
+            appendString(sb, value.toString());
+        } else if (depth >= MAX_DEPTH) {
+            appendString(sb, String.valueOf(value));
+        } else if (value instanceof Map) {
+            appendMap(sb, (Map<?, ?>) value, depth);
+        } else if (value instanceof Collection) {
+            appendCollection(sb, (Collection<?>) value, depth);
+        } else if (value instanceof Object[]) {
+            appendCollection(sb, Arrays.asList((Object[]) value), depth);
+        } else if (value instanceof byte[]) {
+            // 与 fastjson 一致，字节数组输出为 Base64
+            appendString(sb, Base64.getEncoder().encodeToString((byte[]) value));
+        } else {
+            // 实体等未知类型不做反射
+            appendString(sb, String.valueOf(value));
+        }
+    }
+
+    private static void appendMap(StringBuilder sb, Map<?, ?> map, int depth) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendString(sb, String.valueOf(entry.getKey()));
+            sb.append(':');
+            appendValue(sb, entry.getValue(), depth + 1);
+        }
+        sb.append('}');
+    }
+
+    private static void appendCollection(StringBuilder sb, Collection<?> collection, int depth) {
+        sb.append('[');
+        boolean first = true;
+        for (Object element : collection) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendValue(sb, element, depth + 1);
+        }
+        sb.append(']');
+    }
+
+    private static void appendNumber(StringBuilder sb, Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            // NaN / Infinity 不是合法 JSON 数字
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                appendString(sb, number.toString());
+                return;
+            }
+        }
+        sb.append(number.toString());
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
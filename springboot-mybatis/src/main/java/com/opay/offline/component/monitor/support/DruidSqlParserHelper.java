@@ -10,13 +10,22 @@ import com.alibaba.druid.util.JdbcConstants;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class DruidSqlParserHelper {
 
+    // 模板缓存上限，防止动态 SQL (如不同长度的 foreach) 撑爆内存
+    private static final int MAX_TEMPLATE_CACHE_SIZE = 2048;
+    // 超长 SQL 不缓存模板 (如大批量 INSERT)，避免缓存 key 占用过多内存
+    private static final int MAX_CACHEABLE_SQL_LENGTH = 8192;
+    private static final Map<String, SqlParamTemplate> TEMPLATE_CACHE = new ConcurrentHashMap<>(256);
+
     /**
      * 解析结果载体
      */
@@ -32,11 +41,34 @@ public class DruidSqlParserHelper {
      * 全量解析 SQL 中的参数，并区分 Where 条件
      */
     public static SqlParamAnalysis analyzeSqlParams(String executableSql) {
+        return analyzeSqlParams(executableSql, true);
+    }
+
+    /**
+     * @param fastPath 是否先尝试 {@link SimpleSqlLexer} 识别简单单表语句 (命中时不构建 Druid AST)；
+     *                 false 时总是走 Druid 全量解析，用于对比
+     */
+    public static SqlParamAnalysis analyzeSqlParams(String executableSql, boolean fastPath) {
         SqlParamAnalysis result = new SqlParamAnalysis();
         if (executableSql == null || executableSql.trim().isEmpty()) {
             return result;
         }
 
+        if (fastPath) {
+            List<SimpleSqlLexer.Condition> conditions = SimpleSqlLexer.parse(executableSql);
+            if (conditions != null) {
+                for (SimpleSqlLexer.Condition condition : conditions) {
+                    String col = cleanName(condition.column);
+                    String val = joinValues(condition);
+                    if (condition.where) {
+                        result.getWhereParams().put(col, val);
+                    }
+                    result.getAllParams().put(col, val);
+                }
+                return result;
+            }
+        }
+
         try {
             List<SQLStatement> statements = SQLUtils.parseStatements(executableSql, JdbcConstants.MYSQL);
             if (statements == null || statements.isEmpty()) return result;
@@ -52,6 +84,254 @@ public class DruidSqlParserHelper {
         return result;
     }
 
+    /**
+     * 获取原始 SQL (带 ?) 的参数模板，同一 SQL 只解析一次
+     *
+     * @return 无法解析或 SQL 过长时返回 null，调用方应回退到 {@link #analyzeSqlParams}
+     */
+    public static SqlParamTemplate getTemplate(String rawSql) {
+        if (rawSql == null || rawSql.isEmpty() || rawSql.length() > MAX_CACHEABLE_SQL_LENGTH) {
+            return null;
+        }
+        SqlParamTemplate template = TEMPLATE_CACHE.get(rawSql);
+        if (template == null) {
+            template = buildTemplate(rawSql);
+            if (TEMPLATE_CACHE.size() < MAX_TEMPLATE_CACHE_SIZE) {
+                TEMPLATE_CACHE.putIfAbsent(rawSql, template);
+            }
+        }
+        return template.isUsable() ? template : null;
+    }
+
+    /**
+     * 快速路径下占位符按 Druid 的输出记为 "?"，与 FullParamVisitor 一致
+     */
+    private static String joinValues(SimpleSqlLexer.Condition condition) {
+        if (condition.values.length == 1) {
+            return condition.placeholders[0] >= 0 ? "?" : condition.values[0];
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < condition.values.length; i++) {
+            sb.append(condition.placeholders[i] >= 0 ? "?" : condition.values[i]);
+            if (i < condition.values.length - 1) sb.append(",");
+        }
+        return sb.toString();
+    }
+
+    private static SqlParamTemplate buildTemplate(String rawSql) {
+        List<SimpleSqlLexer.Condition> conditions = SimpleSqlLexer.parse(rawSql);
+        if (conditions != null) {
+            List<ParamSlot> slots = new ArrayList<>(conditions.size());
+            for (SimpleSqlLexer.Condition condition : conditions) {
+                ValueTemplate[] values = new ValueTemplate[condition.values.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = condition.placeholders[i] >= 0
+                            ? new ValueTemplate(new String[]{"", ""}, new int[]{condition.placeholders[i]})
+                            : new ValueTemplate(new String[]{condition.values[i]}, new int[0]);
+                }
+                slots.add(new ParamSlot(cleanName(condition.column), condition.where, values));
+            }
+            return new SqlParamTemplate(slots);
+        }
+        try {
+            List<SQLStatement> statements = SQLUtils.parseStatements(rawSql, JdbcConstants.MYSQL);
+            if (statements == null || statements.isEmpty()) {
+                return SqlParamTemplate.UNUSABLE;
+            }
+            TemplateVisitor visitor = new TemplateVisitor();
+            statements.get(0).accept(visitor);
+            return visitor.usable ? new SqlParamTemplate(visitor.slots) : SqlParamTemplate.UNUSABLE;
+        } catch (Exception e) {
+            log.debug("SQL 模板解析失败: {}", rawSql);
+            return SqlParamTemplate.UNUSABLE;
+        }
+    }
+
+    /**
+     * 参数模板：记录每个列条件所在位置 (SET / WHERE / IN) 及其值由哪些 ? 组成
+     */
+    public static class SqlParamTemplate {
+        static final SqlParamTemplate UNUSABLE = new SqlParamTemplate(null);
+
+        private final List<ParamSlot> slots;
+
+        SqlParamTemplate(List<ParamSlot> slots) {
+            this.slots = slots;
+        }
+
+        boolean isUsable() {
+            return slots != null;
+        }
+
+        /**
+         * 按位置填充绑定值，结果与 {@link #analyzeSqlParams} 解析可执行 SQL 一致
+         *
+         * @param boundValues 与 ? 一一对应的参数值
+         */
+        public SqlParamAnalysis fill(List<Object> boundValues) {
+            SqlParamAnalysis result = new SqlParamAnalysis();
+            for (ParamSlot slot : slots) {
+                String val = slot.render(boundValues);
+                if (slot.where) {
+                    result.getWhereParams().put(slot.column, val);
+                }
+                result.getAllParams().put(slot.column, val);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 一个列条件：SET col = v / WHERE col op v / col IN (v1, v2)
+     */
+    private static class ParamSlot {
+        private final String column;
+        private final boolean where;
+        // IN 列表有多个值，其余只有一个
+        private final ValueTemplate[] values;
+
+        ParamSlot(String column, boolean where, ValueTemplate[] values) {
+            this.column = column;
+            this.where = where;
+            this.values = values;
+        }
+
+        String render(List<Object> boundValues) {
+            if (values.length == 1) {
+                return values[0].render(boundValues);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                sb.append(values[i].render(boundValues));
+                if (i < values.length - 1) sb.append(",");
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 值表达式模板：文本片段与 ? 交替，如 "concat(" ? ", 'x')"
+     */
+    private static class ValueTemplate {
+        private final String[] segments;
+        private final int[] placeholders;
+
+        ValueTemplate(String[] segments, int[] placeholders) {
+            this.segments = segments;
+            this.placeholders = placeholders;
+        }
+
+        String render(List<Object> boundValues) {
+            if (placeholders.length == 0) {
+                return segments[0];
+            }
+            StringBuilder sb = new StringBuilder(segments[0]);
+            for (int i = 0; i < placeholders.length; i++) {
+                int index = placeholders[i];
+                Object value = index < boundValues.size() ? boundValues.get(index) : null;
+                sb.append(SqlBuilderUtils.formatValue(value)).append(segments[i + 1]);
+            }
+            return cleanValue(sb.toString());
+        }
+
+        static ValueTemplate of(SQLExpr expr) {
+            List<Integer> indexes = new ArrayList<>();
+            expr.accept(new MySqlASTVisitorAdapter() {
+                @Override
+                public boolean visit(SQLVariantRefExpr x) {
+                    if ("?".equals(x.getName())) {
+                        indexes.add(x.getIndex());
+                    }
+                    return true;
+                }
+            });
+            String text = expr.toString();
+            if (indexes.isEmpty()) {
+                return new ValueTemplate(new String[]{cleanValue(text)}, new int[0]);
+            }
+            List<String> segments = splitOnPlaceholders(text);
+            if (segments.size() != indexes.size() + 1) {
+                return null;
+            }
+            int[] placeholders = new int[indexes.size()];
+            for (int i = 0; i < placeholders.length; i++) {
+                placeholders[i] = indexes.get(i);
+            }
+            return new ValueTemplate(segments.toArray(new String[0]), placeholders);
+        }
+
+        /**
+         * 按引号外的 ? 切分文本
+         */
+        private static List<String> splitOnPlaceholders(String text) {
+            List<String> segments = new ArrayList<>();
+            int start = 0;
+            boolean inQuote = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\\' && inQuote) {
+                    i++;
+                } else if (c == '\'') {
+                    inQuote = !inQuote;
+                } else if (c == '?' && !inQuote) {
+                    segments.add(text.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            segments.add(text.substring(start));
+            return segments;
+        }
+    }
+
+    /**
+     * 模板 Visitor：与 FullParamVisitor 识别相同的列条件，但记录占位符位置而不是具体值
+     */
+    private static class TemplateVisitor extends MySqlASTVisitorAdapter {
+        private final List<ParamSlot> slots = new ArrayList<>();
+        private boolean usable = true;
+
+        @Override
+        public boolean visit(SQLUpdateSetItem x) {
+            if (isColumn(x.getColumn())) {
+                addSlot(x.getColumn(), false, Collections.singletonList(x.getValue()));
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visit(SQLBinaryOpExpr x) {
+            SQLExpr left = x.getLeft();
+            SQLExpr right = x.getRight();
+            if (isColumn(left) && !isColumn(right)) {
+                addSlot(left, true, Collections.singletonList(right));
+            } else if (isColumn(right) && !isColumn(left)) {
+                addSlot(right, true, Collections.singletonList(left));
+            }
+            return true;
+        }
+
+        @Override
+        public boolean visit(SQLInListExpr x) {
+            if (isColumn(x.getExpr())) {
+                addSlot(x.getExpr(), true, x.getTargetList());
+            }
+            return true;
+        }
+
+        private void addSlot(SQLExpr column, boolean where, List<SQLExpr> valueExprs) {
+            ValueTemplate[] values = new ValueTemplate[valueExprs.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ValueTemplate.of(valueExprs.get(i));
+                if (values[i] == null) {
+                    // 无法可靠定位占位符，整条 SQL 回退到逐条解析
+                    usable = false;
+                    return;
+                }
+            }
+            slots.add(new ParamSlot(cleanName(column.toString()), where, values));
+        }
+    }
+
     /**
      * 内部 Visitor：区分 SET 和 WHERE
      */
@@ -129,13 +409,16 @@ public class DruidSqlParserHelper {
             }
         }
 
-        private boolean isColumn(SQLExpr expr) {
-            return expr instanceof SQLIdentifierExpr || expr instanceof SQLPropertyExpr;
-        }
+    }
+
+    private static boolean isColumn(SQLExpr expr) {
+        return expr instanceof SQLIdentifierExpr || expr instanceof SQLPropertyExpr;
     }
 
     private static String cleanName(String name) {
         if (name == null) return "";
+        // 绝大多数列名不带引号；Java 8 的 String.replace(CharSequence, ...) 每次都会编译正则
+        if (name.indexOf('`') < 0 && name.indexOf('\'') < 0 && name.indexOf('"') < 0) return name;
         // 移除 MySQL 反引号 ` 和可能存在的单引号
         return name.replace("`", "").replace("'", "").replace("\"", "");
     }
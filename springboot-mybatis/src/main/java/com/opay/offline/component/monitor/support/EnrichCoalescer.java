@@ -0,0 +1,355 @@
+package com.opay.offline.component.monitor.support;
+
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.expr.*;
+import com.alibaba.druid.sql.ast.statement.SQLUpdateStatement;
+import com.alibaba.druid.util.JdbcConstants;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * DB 补全查询合并器
+ * <p>
+ * 同一张表、同一 WHERE 形状 (key = 常量) 且查询相同字段的补全请求，在一个短窗口内合并为一条
+ * SELECT key, cols FROM table WHERE key IN (...)，查询结果按 key 分发回各个等待的事件
+ * <p>
+ * 批量 Handler 已持有一批事件时改用 {@link #query}，在调用线程直接合并执行，不经过窗口
+ */
+@Slf4j
+public class EnrichCoalescer {
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final long windowMillis;
+    private final int maxKeys;
+    private final ConcurrentMap<Shape, Group> pending = new ConcurrentHashMap<>();
+    // 合并窗口 <= 0 时为 null，只支持批量查询
+    private final ScheduledExecutorService flusher;
+
+    public EnrichCoalescer(SqlSessionFactory sqlSessionFactory, long windowMillis, int maxKeys) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.windowMillis = windowMillis;
+        this.maxKeys = Math.max(1, maxKeys);
+        this.flusher = windowMillis <= 0 ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sql-capture-enrich-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 提交补全请求，在合并窗口结束 (或达到 maxKeys) 后执行
+     *
+     * @return 未开启合并窗口或无法合并 (非单 key 等值条件的 UPDATE) 时返回 null，调用方应走逐条查询
+     */
+    public CompletableFuture<Map<String, Object>> submit(String updateSql, List<String> columns) {
+        if (flusher == null) {
+            return null;
+        }
+        KeyedRequest request = KeyedRequest.parse(updateSql);
+        if (request == null) {
+            return null;
+        }
+        Shape shape = new Shape(request.table, request.keyColumn, columns);
+        for (; ; ) {
+            Group group = pending.computeIfAbsent(shape, s -> {
+                Group created = new Group();
+                flusher.schedule(() -> flush(s, created), windowMillis, TimeUnit.MILLISECONDS);
+                return created;
+            });
+            CompletableFuture<Map<String, Object>> future = group.add(request);
+            if (future == null) {
+                // 该批次已开始执行，重新取新批次
+                pending.remove(shape, group);
+                continue;
+            }
+            if (group.size() >= maxKeys) {
+                flusher.execute(() -> flush(shape, group));
+            }
+            return future;
+        }
+    }
+
+    /**
+     * 同步批量补全：同形状的请求合并为 IN 查询 (每条最多 maxKeys 个 key)，在调用线程执行
+     *
+     * @param updateSqls 可执行 SQL
+     * @param columns    与 updateSqls 一一对应的待查询字段
+     * @return 与 updateSqls 一一对应，无法合并的位置为 null，调用方应走逐条查询
+     */
+    public List<Map<String, Object>> query(List<String> updateSqls, List<List<String>> columns) {
+        List<KeyedRequest> resolved = new ArrayList<>(updateSqls.size());
+        Map<Shape, Map<String, KeyedRequest>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < updateSqls.size(); i++) {
+            KeyedRequest request = updateSqls.get(i) == null ? null : KeyedRequest.parse(updateSqls.get(i));
+            if (request != null) {
+                Shape shape = new Shape(request.table, request.keyColumn, columns.get(i));
+                Map<String, KeyedRequest> group = groups.computeIfAbsent(shape, s -> new LinkedHashMap<>());
+                // 同一 key 共享一次查询
+                KeyedRequest existing = group.putIfAbsent(request.keyValue, request);
+                if (existing == null && group.size() >= maxKeys) {
+                    execute(shape, groups.remove(shape));
+                }
+                if (existing != null) {
+                    request = existing;
+                }
+            }
+            resolved.add(request);
+        }
+        for (Map.Entry<Shape, Map<String, KeyedRequest>> entry : groups.entrySet()) {
+            execute(entry.getKey(), entry.getValue());
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(resolved.size());
+        for (KeyedRequest request : resolved) {
+            results.add(request == null ? null : request.future.getNow(null));
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdownNow();
+        for (Map.Entry<Shape, Group> entry : pending.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void flush(Shape shape, Group group) {
+        pending.remove(shape, group);
+        Map<String, KeyedRequest> requests = group.close();
+        if (requests == null || requests.isEmpty()) {
+            return;
+        }
+        execute(shape, requests);
+    }
+
+    /**
+     * 执行一条 IN 查询，并完成各请求的 Future
+     */
+    private void execute(Shape shape, Map<String, KeyedRequest> requests) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(shape.keyColumn);
+        for (String col : shape.columns) {
+            sql.append(", ").append(col);
+        }
+        sql.append(" FROM ").append(shape.table).append(" WHERE ").append(shape.keyColumn).append(" IN (");
+        int i = 0;
+        for (KeyedRequest request : requests.values()) {
+            if (i++ > 0) sql.append(", ");
+            sql.append(request.keyLiteral);
+        }
+        sql.append(")");
+
+        // 按精确 key 保存查询结果 (数字按数值比较，字符串原样)
+        Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+        boolean failed = false;
+        long start = System.currentTimeMillis();
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Connection conn = session.getConnection();
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString());
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String key = exactKey(rs.getObject(1));
+                    // 与逐条查询保持一致：同一 key 只取第一行
+                    if (rows.containsKey(key)) {
+                        continue;
+                    }
+                    Map<String, Object> row = new HashMap<>();
+                    for (int c = 0; c < shape.columns.size(); c++) {
+                        Object val = rs.getObject(c + 2);
+                        if (val != null) row.put(shape.columns.get(c), val);
+                    }
+                    rows.put(key, row);
+                }
+            }
+            log.debug("DB合并补全耗时: {}ms, keys: {}", System.currentTimeMillis() - start, requests.size());
+        } catch (Exception e) {
+            failed = true;
+            log.error("DB合并补全查询失败: {}", sql, e);
+        }
+
+        // 精确匹配不到的请求再按宽松 key 匹配 (忽略大小写 / CHAR 尾部空格，字符串形式的数字按数值)，
+        // 只使用没有被任何请求精确认领的行，避免大小写敏感的排序规则下错配
+        Map<String, Map<String, Object>> looseRows = null;
+        for (Map.Entry<String, KeyedRequest> entry : requests.entrySet()) {
+            KeyedRequest request = entry.getValue();
+            Map<String, Object> row = rows.get(entry.getKey());
+            if (row == null && !failed) {
+                if (looseRows == null) {
+                    looseRows = looseRows(rows, requests);
+                }
+                row = looseRows.get(looseKey(request.key));
+            }
+            // 仍匹配不到时以 null 完成，由调用方回退到逐条查询；查询失败时不再回退，避免逐条压垮数据库
+            request.future.complete(row != null ? row : failed ? new HashMap<>() : null);
+        }
+    }
+
+    private static Map<String, Map<String, Object>> looseRows(Map<String, Map<String, Object>> rows,
+                                                            Map<String, KeyedRequest> requests) {
+        Map<String, Map<String, Object>> loose = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : rows.entrySet()) {
+            if (!requests.containsKey(entry.getKey())) {
+                loose.putIfAbsent(looseKey(entry.getKey()), entry.getValue());
+            }
+        }
+        return loose;
+    }
+
+    /**
+     * 精确 key：数字按数值 (1.50 与 1.5、BIGINT 与 DECIMAL 相同)，其余取字符串形式
+     */
+    private static String exactKey(Object value) {
+        if (value instanceof Number) {
+            return decimalKey((Number) value);
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * 宽松 key：字符串去掉尾部空格后，可解析为数字的按数值，否则忽略大小写
+     */
+    private static String looseKey(Object value) {
+        if (value instanceof Number) {
+            return decimalKey((Number) value);
+        }
+        String text = String.valueOf(value);
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        text = text.substring(0, end);
+        try {
+            return decimalKey(new BigDecimal(text));
+        } catch (NumberFormatException e) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static String decimalKey(Number number) {
+        try {
+            BigDecimal decimal = number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+            return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            // NaN / Infinity
+            return number.toString();
+        }
+    }
+
+    /**
+     * 合并维度：表 + key 列 + 查询字段
+     */
+    @EqualsAndHashCode
+    private static class Shape {
+        private final String table;
+        private final String keyColumn;
+        private final List<String> columns;
+
+        Shape(String table, String keyColumn, List<String> columns) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * 一个窗口内的待合并请求，相同 key 的请求共享同一个 Future
+     */
+    private static class Group {
+        private Map<String, KeyedRequest> requests = new LinkedHashMap<>();
+
+        synchronized CompletableFuture<Map<String, Object>> add(KeyedRequest request) {
+            if (requests == null) {
+                return null;
+            }
+            KeyedRequest existing = requests.putIfAbsent(request.keyValue, request);
+            return existing != null ? existing.future : request.future;
+        }
+
+        synchronized int size() {
+            return requests == null ? 0 : requests.size();
+        }
+
+        synchronized Map<String, KeyedRequest> close() {
+            Map<String, KeyedRequest> closed = requests;
+            requests = null;
+            return closed;
+        }
+    }
+
+    /**
+     * UPDATE table SET ... WHERE key = 常量 形状的补全请求
+     */
+    private static class KeyedRequest {
+        private final String table;
+        private final String keyColumn;
+        // SQL 字面量，如 'abc' / 1
+        private final String keyLiteral;
+        // 字面量的值：字符串或 BigDecimal
+        private final Object key;
+        // 精确 key，与 ResultSet 取值比较并用于合并相同 key 的请求
+        private final String keyValue;
+        private final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+
+        private KeyedRequest(String table, String keyColumn, String keyLiteral, Object key) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.keyLiteral = keyLiteral;
+            this.key = key;
+            this.keyValue = exactKey(key);
+        }
+
+        static KeyedRequest parse(String updateSql) {
+            try {
+                List<SQLStatement> statements = SQLUtils.parseStatements(updateSql, JdbcConstants.MYSQL);
+                if (statements.size() != 1 || !(statements.get(0) instanceof SQLUpdateStatement)) {
+                    return null;
+                }
+                SQLUpdateStatement update = (SQLUpdateStatement) statements.get(0);
+                if (!(update.getWhere() instanceof SQLBinaryOpExpr) || update.getTableSource() == null) {
+                    return null;
+                }
+                SQLBinaryOpExpr where = (SQLBinaryOpExpr) update.getWhere();
+                if (where.getOperator() != SQLBinaryOperator.Equality
+                        || !(where.getLeft() instanceof SQLIdentifierExpr)) {
+                    return null;
+                }
+                Object key = literalValue(where.getRight());
+                if (key == null) {
+                    return null;
+                }
+                return new KeyedRequest(update.getTableSource().toString(), where.getLeft().toString(),
+                        where.getRight().toString(), key);
+            } catch (Exception e) {
+                log.debug("补全合并解析失败: {}", updateSql);
+                return null;
+            }
+        }
+
+        private static Object literalValue(SQLExpr expr) {
+            if (expr instanceof SQLCharExpr) {
+                return ((SQLCharExpr) expr).getText();
+            }
+            if (expr instanceof SQLIntegerExpr) {
+                return new BigDecimal(((SQLIntegerExpr) expr).getNumber().toString());
+            }
+            if (expr instanceof SQLNumberExpr) {
+                Number number = ((SQLNumberExpr) expr).getNumber();
+                return number instanceof BigDecimal ? number : new BigDecimal(number.toString());
+            }
+            return null;
+        }
+    }
+}
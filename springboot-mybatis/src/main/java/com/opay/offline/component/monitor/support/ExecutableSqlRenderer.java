@@ -0,0 +1,158 @@
+package com.opay.offline.component.monitor.support;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 单遍扫描的可执行 SQL 渲染器
+ * <p>
+ * 替代逐个 replaceFirst 的拼装方式：
+ * 1. 一次扫描原始 SQL，直接写入预估容量的 StringBuilder，复杂度 O(n)
+ * 2. 识别引号 ('' "" ``) 与注释 (-- # /* *&#47;)，其中的 ? 不会被当作占位符
+ * 3. 渲染过程中检查长度上限，超长立即截断，不会先生成完整大字符串
+ * 4. 引号外的连续空白折叠为一个空格，行注释直接丢弃 (折叠换行后会吞掉后续 SQL)
+ */
+public final class ExecutableSqlRenderer {
+
+    public static final String TRUNCATED_SUFFIX = " ...[TRUNCATED]";
+
+    // 单个参数值最大长度，防止大字符串导致内存问题
+    private static final int MAX_VALUE_LENGTH = 500;
+    // 预估每个参数值渲染后的平均长度
+    private static final int ESTIMATED_VALUE_LENGTH = 8;
+
+    private ExecutableSqlRenderer() {
+    }
+
+    /**
+     * @param rawSql    带 ? 的原始 SQL
+     * @param values    与 ? 一一对应的参数值
+     * @param maxLength 最大长度，超出后截断并追加 {@link #TRUNCATED_SUFFIX}；小于等于 0 表示不限制
+     */
+    public static String render(String rawSql, List<Object> values, int maxLength) {
+        if (rawSql == null) {
+            return "";
+        }
+        int limit = maxLength <= 0 ? Integer.MAX_VALUE : maxLength;
+        int length = rawSql.length();
+        int valueCount = values == null ? 0 : values.size();
+        long estimated = (long) length + (long) valueCount * ESTIMATED_VALUE_LENGTH;
+        StringBuilder sb = new StringBuilder((int) Math.min(estimated, (long) limit + TRUNCATED_SUFFIX.length()));
+
+        int valueIndex = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = rawSql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (isLineCommentStart(rawSql, i)) {
+                i = skipLineComment(rawSql, i);
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+
+            if (c == '\'' || c == '"' || c == '`') {
+                i = copyQuoted(rawSql, i, c, sb);
+            } else if (c == '/' && i + 1 < length && rawSql.charAt(i + 1) == '*') {
+                i = copyBlockComment(rawSql, i, sb);
+            } else if (c == '?') {
+                if (valueIndex < valueCount) {
+                    Object value = values.get(valueIndex++);
+                    if (value == SqlBuilderUtils.OUT_PARAMETER) {
+                        sb.append('?');
+                    } else {
+                        appendValue(sb, value);
+                    }
+                } else {
+                    sb.append('?');
+                }
+            } else {
+                sb.append(c);
+            }
+
+            if (sb.length() > limit) {
+                sb.setLength(limit);
+                return sb.append(TRUNCATED_SUFFIX).toString();
+            }
+        }
+        return sb.toString();
+    }
+
+    public static boolean isTruncated(String sql) {
+        return sql != null && sql.endsWith(TRUNCATED_SUFFIX);
+    }
+
+    /**
+     * 将参数值按 SQL 字面量格式写入 sb
+     */
+    static StringBuilder appendValue(StringBuilder sb, Object value) {
+        if (value == null) return sb.append("NULL");
+        if (value instanceof Number) return sb.append(value.toString());
+        if (value instanceof Boolean) return sb.append(((Boolean) value) ? '1' : '0');
+        if (value instanceof Date || value instanceof java.time.temporal.Temporal) {
+            return sb.append('\'').append(value.toString()).append('\'');
+        }
+        String strVal = value.toString();
+        int end = Math.min(strVal.length(), MAX_VALUE_LENGTH);
+        sb.append('\'');
+        for (int i = 0; i < end; i++) {
+            char c = strVal.charAt(i);
+            if (c == '\'') {
+                sb.append('\'');
+            }
+            sb.append(c);
+        }
+        if (strVal.length() > MAX_VALUE_LENGTH) {
+            sb.append("...(truncated)");
+        }
+        return sb.append('\'');
+    }
+
+    private static int copyQuoted(String sql, int start, char quote, StringBuilder sb) {
+        sb.append(quote);
+        int length = sql.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            sb.append(c);
+            if (c == '\\' && quote != '`' && i + 1 < length) {
+                sb.append(sql.charAt(++i));
+            } else if (c == quote) {
+                // 连续两个引号表示转义
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    sb.append(sql.charAt(++i));
+                } else {
+                    return i;
+                }
+            }
+        }
+        return length - 1;
+    }
+
+    private static int copyBlockComment(String sql, int start, StringBuilder sb) {
+        int end = sql.indexOf("*/", start + 2);
+        int stop = end < 0 ? sql.length() : end + 2;
+        sb.append(sql, start, stop);
+        return stop - 1;
+    }
+
+    private static boolean isLineCommentStart(String sql, int i) {
+        char c = sql.charAt(i);
+        if (c == '#') {
+            return true;
+        }
+        // MySQL 要求 -- 后跟空白才是注释
+        return c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-'
+                && (i + 2 == sql.length() || Character.isWhitespace(sql.charAt(i + 2)));
+    }
+
+    private static int skipLineComment(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() - 1 : end;
+    }
+}
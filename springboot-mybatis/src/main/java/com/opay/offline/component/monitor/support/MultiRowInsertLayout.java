@@ -0,0 +1,370 @@
+package com.opay.offline.component.monitor.support;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多行 INSERT (INSERT INTO t (c1, c2) VALUES (?, ?), (?, ?) ...) 的行结构
+ * <p>
+ * 1. 单遍扫描原始 SQL，不做 AST 解析；只保留前 maxRows 行每列对应的 ? 下标 (或字面量)，其余行只计数
+ * 2. 调用方只需解析前 {@link #getParameterCount()} 个参数值，再按行展开为列名 -> 值
+ * 3. 可执行 SQL 只渲染保留的行，不生成完整大字符串
+ * <p>
+ * 无列清单、INSERT ... SELECT、列数与值个数不一致等形状返回 null，由调用方走通用路径
+ * <p>
+ * 同一原始 SQL 的结构只扫描一次 (见 {@link #get})
+ */
+public final class MultiRowInsertLayout {
+
+    // 缓存上限，防止不同行数的 foreach 撑爆内存
+    private static final int MAX_LAYOUT_CACHE_SIZE = 2048;
+    // 超长 SQL 不缓存 (如大批量 INSERT)，避免缓存 key 占用过多内存
+    private static final int MAX_CACHEABLE_SQL_LENGTH = 8192;
+    private static final Map<String, MultiRowInsertLayout> LAYOUT_CACHE = new ConcurrentHashMap<>(256);
+    // 无法按行展开的 SQL 也缓存，避免重复扫描
+    private static final MultiRowInsertLayout UNUSABLE = new MultiRowInsertLayout(null, null, null, null, 0, 0, 0, 0);
+
+    private final String sql;
+    @Getter
+    private final List<String> columns;
+    // 保留行：每列对应的 ? 下标，-1 表示字面量
+    private final List<int[]> slots;
+    private final List<String[]> literals;
+    @Getter
+    private final int totalRows;
+    // 保留行用到的参数个数 (前缀)
+    @Getter
+    private final int parameterCount;
+    // 最后一个保留行 ')' 之后的位置
+    private final int keptEnd;
+    // 扫描时的保留行数上限，配置变更后缓存项按新上限重新扫描
+    private final int maxRows;
+
+    private MultiRowInsertLayout(String sql, List<String> columns, List<int[]> slots, List<String[]> literals,
+                                 int totalRows, int parameterCount, int keptEnd, int maxRows) {
+        this.sql = sql;
+        this.columns = columns;
+        this.slots = slots;
+        this.literals = literals;
+        this.totalRows = totalRows;
+        this.parameterCount = parameterCount;
+        this.keptEnd = keptEnd;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 获取原始 SQL 的行结构，同一 SQL 只扫描一次
+     *
+     * @param maxRows 最多保留的行数 (至少 1 行)
+     * @return 不是带列清单的 INSERT ... VALUES 时返回 null
+     */
+    public static MultiRowInsertLayout get(String rawSql, int maxRows) {
+        if (rawSql == null || rawSql.isEmpty() || rawSql.length() > MAX_CACHEABLE_SQL_LENGTH) {
+            return parse(rawSql, maxRows);
+        }
+        int rows = Math.max(1, maxRows);
+        MultiRowInsertLayout layout = LAYOUT_CACHE.get(rawSql);
+        if (layout == null || layout != UNUSABLE && layout.maxRows != rows) {
+            MultiRowInsertLayout parsed = parse(rawSql, rows);
+            MultiRowInsertLayout cached = parsed == null ? UNUSABLE : parsed;
+            if (layout != null) {
+                LAYOUT_CACHE.replace(rawSql, layout, cached);
+            } else if (LAYOUT_CACHE.size() < MAX_LAYOUT_CACHE_SIZE) {
+                LAYOUT_CACHE.putIfAbsent(rawSql, cached);
+            }
+            return parsed;
+        }
+        return layout == UNUSABLE ? null : layout;
+    }
+
+    /**
+     * 扫描原始 SQL，不经过缓存
+     *
+     * @param maxRows 最多保留的行数 (至少 1 行)
+     * @return 不是带列清单的 INSERT ... VALUES 时返回 null
+     */
+    public static MultiRowInsertLayout parse(String sql, int maxRows) {
+        if (sql == null) {
+            return null;
+        }
+        return new Scanner(sql).scan(Math.max(1, maxRows));
+    }
+
+    /**
+     * 是否所有行都已保留 (此时调用方可按完整 SQL 渲染)
+     */
+    public boolean isComplete() {
+        return slots.size() == totalRows;
+    }
+
+    /**
+     * 按行展开为列名 -> 值
+     *
+     * @param values 前 {@link #getParameterCount()} 个 ? 对应的参数值
+     */
+    public List<Map<String, Object>> rows(List<Object> values) {
+        List<Map<String, Object>> rows = new ArrayList<>(slots.size());
+        for (int r = 0; r < slots.size(); r++) {
+            int[] rowSlots = slots.get(r);
+            String[] rowLiterals = literals.get(r);
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int c = 0; c < rowSlots.length; c++) {
+                if (rowSlots[c] < 0) {
+                    row.put(columns.get(c), rowLiterals[c]);
+                } else if (rowSlots[c] < values.size() && values.get(rowSlots[c]) != SqlBuilderUtils.OUT_PARAMETER) {
+                    row.put(columns.get(c), values.get(rowSlots[c]));
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 只渲染保留的行；有行被省略时追加截断标记
+     */
+    public String render(List<Object> values, int maxLength) {
+        if (isComplete()) {
+            return SqlBuilderUtils.buildExecutableSql(sql, values, maxLength);
+        }
+        String executableSql = SqlBuilderUtils.buildExecutableSql(sql.substring(0, keptEnd), values, maxLength);
+        return ExecutableSqlRenderer.isTruncated(executableSql)
+                ? executableSql
+                : executableSql + ExecutableSqlRenderer.TRUNCATED_SUFFIX;
+    }
+
+    private static final class Scanner {
+        private final String sql;
+        private final int length;
+        private int pos;
+        // 已经过的 ? 个数
+        private int parameterIndex;
+
+        Scanner(String sql) {
+            this.sql = sql;
+            this.length = sql.length();
+        }
+
+        MultiRowInsertLayout scan(int maxRows) {
+            skipSpace();
+            if (!keyword("INSERT") && !keyword("REPLACE")) {
+                return null;
+            }
+            keyword("LOW_PRIORITY");
+            keyword("DELAYED");
+            keyword("HIGH_PRIORITY");
+            keyword("IGNORE");
+            keyword("INTO");
+            if (!skipTableName()) {
+                return null;
+            }
+            List<String> columns = columnList();
+            if (columns == null || columns.isEmpty()) {
+                return null;
+            }
+            if (!keyword("VALUES") && !keyword("VALUE")) {
+                return null;
+            }
+
+            List<int[]> slots = new ArrayList<>(Math.min(maxRows, 64));
+            List<String[]> literals = new ArrayList<>(Math.min(maxRows, 64));
+            int totalRows = 0;
+            int parameterCount = 0;
+            int keptEnd = 0;
+            while (true) {
+                skipSpace();
+                if (pos >= length || sql.charAt(pos) != '(') {
+                    return null;
+                }
+                pos++;
+                boolean keep = totalRows < maxRows;
+                int[] rowSlots = keep ? new int[columns.size()] : null;
+                String[] rowLiterals = keep ? new String[columns.size()] : null;
+                if (!valueGroup(columns.size(), rowSlots, rowLiterals)) {
+                    return null;
+                }
+                totalRows++;
+                if (keep) {
+                    slots.add(rowSlots);
+                    literals.add(rowLiterals);
+                    parameterCount = parameterIndex;
+                    keptEnd = pos;
+                }
+                skipSpace();
+                if (pos < length && sql.charAt(pos) == ',') {
+                    pos++;
+                    continue;
+                }
+                // 结束或 ON DUPLICATE KEY UPDATE 等尾部 (其中的 ? 排在所有行之后，不影响行内下标)
+                break;
+            }
+            return new MultiRowInsertLayout(sql, Collections.unmodifiableList(columns), slots, literals,
+                    totalRows, parameterCount, keptEnd, maxRows);
+        }
+
+        /**
+         * 扫描一组 VALUES (...)，pos 位于 '(' 之后，结束时位于 ')' 之后
+         */
+        private boolean valueGroup(int columnCount, int[] rowSlots, String[] rowLiterals) {
+            int column = 0;
+            int depth = 0;
+            int elementStart = pos;
+            int elementParams = 0;
+            int firstParam = -1;
+            while (pos < length) {
+                char c = sql.charAt(pos);
+                if (c == '\'' || c == '"' || c == '`') {
+                    skipQuoted(c);
+                    continue;
+                }
+                if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+                    int end = sql.indexOf("*/", pos + 2);
+                    pos = end < 0 ? length : end + 2;
+                    continue;
+                }
+                if (c == '?') {
+                    if (elementParams++ == 0) {
+                        firstParam = parameterIndex;
+                    }
+                    parameterIndex++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')' && depth > 0) {
+                    depth--;
+                } else if (c == ',' && depth == 0 || c == ')') {
+                    if (column >= columnCount) {
+                        return false;
+                    }
+                    if (rowSlots != null) {
+                        String element = sql.substring(elementStart, pos).trim();
+                        boolean placeholder = elementParams == 1 && element.equals("?");
+                        rowSlots[column] = placeholder ? firstParam : -1;
+                        rowLiterals[column] = placeholder ? null : element;
+                    }
+                    column++;
+                    pos++;
+                    if (c == ')') {
+                        return column == columnCount;
+                    }
+                    elementStart = pos;
+                    elementParams = 0;
+                    continue;
+                }
+                pos++;
+            }
+            return false;
+        }
+
+        private List<String> columnList() {
+            skipSpace();
+            if (pos >= length || sql.charAt(pos) != '(') {
+                return null;
+            }
+            pos++;
+            List<String> columns = new ArrayList<>();
+            int start = pos;
+            while (pos < length) {
+                char c = sql.charAt(pos);
+                if (c == '`' || c == '"') {
+                    skipQuoted(c);
+                    continue;
+                }
+                if (c == ',' || c == ')') {
+                    String column = unquote(sql.substring(start, pos).trim());
+                    if (column.isEmpty()) {
+                        return null;
+                    }
+                    columns.add(column);
+                    pos++;
+                    if (c == ')') {
+                        skipSpace();
+                        return columns;
+                    }
+                    start = pos;
+                    continue;
+                }
+                if (c == '(' || c == '?') {
+                    return null;
+                }
+                pos++;
+            }
+            return null;
+        }
+
+        private boolean skipTableName() {
+            skipSpace();
+            int start = pos;
+            while (pos < length) {
+                char c = sql.charAt(pos);
+                if (c == '`' || c == '"') {
+                    skipQuoted(c);
+                } else if (c == '(' || Character.isWhitespace(c)) {
+                    break;
+                } else {
+                    pos++;
+                }
+            }
+            return pos > start;
+        }
+
+        private void skipQuoted(char quote) {
+            pos++;
+            while (pos < length) {
+                char c = sql.charAt(pos++);
+                if (c == '\\' && quote != '`') {
+                    pos++;
+                } else if (c == quote) {
+                    if (pos < length && sql.charAt(pos) == quote) {
+                        pos++;
+                    } else {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < length) {
+                char c = sql.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+                    int end = sql.indexOf("*/", pos + 2);
+                    pos = end < 0 ? length : end + 2;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 匹配关键字 (忽略大小写，要求完整单词)，匹配成功后跳过其后的空白
+         */
+        private boolean keyword(String word) {
+            int end = pos + word.length();
+            if (end > length || !sql.regionMatches(true, pos, word, 0, word.length())) {
+                return false;
+            }
+            if (end < length && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+                return false;
+            }
+            pos = end;
+            skipSpace();
+            return true;
+        }
+
+        private static String unquote(String name) {
+            int length = name.length();
+            if (length >= 2 && (name.charAt(0) == '`' || name.charAt(0) == '"') && name.charAt(length - 1) == name.charAt(0)) {
+                return name.substring(1, length - 1);
+            }
+            return name;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.opay.offline.component.monitor.support;
+
+import lombok.Getter;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 结果快照：在业务线程内把查询结果按配置的列复制为紧凑的 Map，不保留实体对象图
+ * <p>
+ * 1. 只复制简单类型的值 (字符串 / 数字 / 日期等)，嵌套对象、集合一律跳过
+ * 2. 按估算字节数控制快照大小，超出单事件预算后停止复制后续行
+ */
+public final class ResultProjector {
+
+    // 单个字符串值最大长度
+    private static final int MAX_VALUE_LENGTH = 256;
+
+    // 估算用的对象开销 (64 位 JVM 压缩指针下的近似值)
+    private static final int MAP_OVERHEAD = 48;
+    private static final int ENTRY_OVERHEAD = 32;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int BOXED_SIZE = 24;
+
+    private ResultProjector() {
+    }
+
+    /**
+     * @param columns  快照列 (属性名或列名)，为空时复制所有简单类型字段
+     * @param maxRows  最多快照的行数
+     * @param maxBytes 单事件字节预算，至少保留首行
+     */
+    public static ResultProjection project(Configuration configuration, Object result, List<String> columns,
+                                           int maxRows, int maxBytes) {
+        if (result == null) {
+            return new ResultProjection(null, 0, 0, false);
+        }
+        if (!(result instanceof Collection)) {
+            Object row = projectRow(configuration, result, columns);
+            return new ResultProjection(row, 1, estimate(row), false);
+        }
+        Collection<?> rows = (Collection<?>) result;
+        int limit = Math.min(rows.size(), Math.max(0, maxRows));
+        List<Object> snapshot = new ArrayList<>(limit);
+        int bytes = MAP_OVERHEAD;
+        boolean truncated = rows.size() > limit;
+        for (Object row : rows) {
+            if (snapshot.size() >= limit) {
+                break;
+            }
+            Object projected = projectRow(configuration, row, columns);
+            int rowBytes = estimate(projected);
+            if (!snapshot.isEmpty() && bytes + rowBytes > maxBytes) {
+                truncated = true;
+                break;
+            }
+            snapshot.add(projected);
+            bytes += rowBytes;
+        }
+        return new ResultProjection(snapshot, rows.size(), bytes, truncated);
+    }
+
+    private static Object projectRow(Configuration configuration, Object row, List<String> columns) {
+        if (row == null || isSimple(row)) {
+            return copyValue(row);
+        }
+        Map<String, Object> projected = new LinkedHashMap<>();
+        if (row instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) row;
+            if (columns.isEmpty()) {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    putSimple(projected, String.valueOf(entry.getKey()), entry.getValue());
+                }
+            } else {
+                for (String column : columns) {
+                    Object value = map.get(column);
+                    putSimple(projected, column, value != null ? value : map.get(BeanColumnUtil.toCamelCase(column)));
+                }
+            }
+            return projected;
+        }
+        MetaObject meta = configuration.newMetaObject(row);
+        if (columns.isEmpty()) {
+            for (String property : meta.getGetterNames()) {
+                putSimple(projected, property, meta.getValue(property));
+            }
+        } else {
+            for (String column : columns) {
+                String property = meta.hasGetter(column) ? column : BeanColumnUtil.toCamelCase(column);
+                if (meta.hasGetter(property)) {
+                    putSimple(projected, column, meta.getValue(property));
+                }
+            }
+        }
+        return projected;
+    }
+
+    private static void putSimple(Map<String, Object> target, String key, Object value) {
+        if (value == null || isSimple(value)) {
+            target.put(key, copyValue(value));
+        }
+    }
+
+    private static boolean isSimple(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum
+                || value instanceof Date || value instanceof TemporalAccessor;
+    }
+
+    /**
+     * 可变值 (Date / StringBuilder) 复制一份，长字符串截断
+     */
+    private static Object copyValue(Object value) {
+        if (value instanceof CharSequence) {
+            String s = value.toString();
+            return s.length() > MAX_VALUE_LENGTH ? s.substring(0, MAX_VALUE_LENGTH) + "...(truncated)" : s;
+        }
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        return value;
+    }
+
+    private static int estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return STRING_OVERHEAD + ((String) value).length() * 2;
+        }
+        if (value instanceof Map) {
+            int bytes = MAP_OVERHEAD;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                // key 为实体属性名或结果集列名，多数为常量池中的共享字符串，只计引用
+                bytes += ENTRY_OVERHEAD + estimate(entry.getValue());
+            }
+            return bytes;
+        }
+        return BOXED_SIZE;
+    }
+
+    @Getter
+    public static final class ResultProjection {
+        // 快照：单行为 Map / 简单值，多行为 List
+        private final Object snapshot;
+        private final int totalRows;
+        // 估算字节数
+        private final int bytes;
+        // 是否因行数或字节预算截断
+        private final boolean truncated;
+
+        ResultProjection(Object snapshot, int totalRows, int bytes, boolean truncated) {
+            this.snapshot = snapshot;
+            this.totalRows = totalRows;
+            this.bytes = bytes;
+            this.truncated = truncated;
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package com.opay.offline.component.monitor.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 简单单表语句的手写词法 / 语法识别，命中时无需构建 Druid AST
+ * <p>
+ * 识别的形态 (关键字大小写不敏感)：
+ * 1. UPDATE t SET c = v {, c = v} [WHERE 条件]
+ * 2. DELETE FROM t [WHERE 条件]
+ * 3. INSERT INTO t [(c {, c})] VALUES (v {, v}) {, (v {, v})}
+ * 4. SELECT * | c [AS a] {, c [AS a]} FROM t [WHERE 条件] [ORDER BY c [ASC | DESC] {, ...}] [LIMIT v [, v | OFFSET v]]
+ * <p>
+ * 条件为 AND / OR 连接的谓词：c op v、c [NOT] IN (v, ...)、c [NOT] LIKE v、c IS [NOT] NULL；
+ * 值只能是 ?、数字、NULL 或不含反斜杠转义的字符串。
+ * 其余 (JOIN、子查询、括号分组、函数与运算表达式、注释、表别名等) 一律返回 null，由调用方回退到 Druid。
+ * 识别出的列条件与 DruidSqlParserHelper 中 Visitor 对同一语句的输出一致 (顺序、取值)
+ */
+final class SimpleSqlLexer {
+
+    private static final int EOF = 0;
+    private static final int IDENT = 1;
+    private static final int STRING = 2;
+    private static final int NUMBER = 3;
+    private static final int PARAM = 4;
+    private static final int OP = 5;
+    private static final int LPAREN = 6;
+    private static final int RPAREN = 7;
+    private static final int COMMA = 8;
+    private static final int STAR = 9;
+    private static final int SEMICOLON = 10;
+    // 无法识别的字符
+    private static final int UNKNOWN = 11;
+
+    // 不能作为列名的关键字 (命中说明语句结构超出识别范围)
+    private static final String[] RESERVED = {"AND", "OR", "NOT", "IN", "IS", "NULL", "LIKE", "BETWEEN", "EXISTS",
+            "SELECT", "FROM", "WHERE", "SET", "VALUES", "VALUE", "ORDER", "GROUP", "BY", "LIMIT", "OFFSET",
+            "CASE", "TRUE", "FALSE", "INTERVAL", "BINARY", "DISTINCT", "AS", "ASC", "DESC", "ON", "JOIN", "INTO",
+            "UPDATE", "DELETE", "INSERT", "HAVING", "UNION", "FOR"};
+
+    /**
+     * 一个列条件：SET c = v / WHERE c op v / c IN (v1, v2)
+     */
+    static final class Condition {
+        // 原始列名 (可能带反引号)
+        final String column;
+        final boolean where;
+        // 字面量取值 (已去掉字符串引号)，占位符处为 null
+        final String[] values;
+        // 占位符下标，字面量处为 -1
+        final int[] placeholders;
+
+        private Condition(String column, boolean where, String[] values, int[] placeholders) {
+            this.column = column;
+            this.where = where;
+            this.values = values;
+            this.placeholders = placeholders;
+        }
+    }
+
+    private final String sql;
+    private final int length;
+    private int pos;
+    // 当前 token
+    private int type;
+    private int start;
+    private int end;
+    private boolean quoted;
+    // 已读取的 ? 个数
+    private int placeholderCount;
+    private final List<Condition> conditions = new ArrayList<>(4);
+
+    // 当前值列表 (IN 列表可能有多个)
+    private String[] valueBuffer = new String[4];
+    private int[] placeholderBuffer = new int[4];
+    private int valueCount;
+
+    private SimpleSqlLexer(String sql) {
+        this.sql = sql;
+        this.length = sql.length();
+    }
+
+    /**
+     * @return 语句的全部列条件；不是可识别的简单语句时返回 null
+     */
+    static List<Condition> parse(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        SimpleSqlLexer lexer = new SimpleSqlLexer(sql);
+        return lexer.statement() ? lexer.conditions : null;
+    }
+
+    // ---------------------------------------------------------------- 语法
+
+    private boolean statement() {
+        next();
+        boolean matched;
+        if (isKeyword("SELECT")) {
+            matched = select();
+        } else if (isKeyword("UPDATE")) {
+            matched = update();
+        } else if (isKeyword("DELETE")) {
+            matched = delete();
+        } else if (isKeyword("INSERT")) {
+            matched = insert();
+        } else {
+            return false;
+        }
+        if (!matched) {
+            return false;
+        }
+        if (type == SEMICOLON) {
+            next();
+        }
+        return type == EOF;
+    }
+
+    private boolean select() {
+        next();
+        if (type == STAR) {
+            next();
+        } else {
+            do {
+                if (!column()) {
+                    return false;
+                }
+                if (isKeyword("AS")) {
+                    next();
+                    if (type != IDENT) {
+                        return false;
+                    }
+                    next();
+                }
+            } while (acceptComma());
+        }
+        if (!acceptKeyword("FROM") || !table()) {
+            return false;
+        }
+        if (acceptKeyword("WHERE") && !where()) {
+            return false;
+        }
+        if (acceptKeyword("ORDER")) {
+            if (!acceptKeyword("BY")) {
+                return false;
+            }
+            do {
+                if (!column()) {
+                    return false;
+                }
+                if (isKeyword("ASC") || isKeyword("DESC")) {
+                    next();
+                }
+            } while (acceptComma());
+        }
+        if (acceptKeyword("LIMIT")) {
+            if (!limitValue()) {
+                return false;
+            }
+            if (acceptComma() || acceptKeyword("OFFSET")) {
+                return limitValue();
+            }
+        }
+        return true;
+    }
+
+    private boolean update() {
+        next();
+        if (!table() || !acceptKeyword("SET")) {
+            return false;
+        }
+        do {
+            String column = columnName();
+            if (column == null || !acceptOperator("=") || !value()) {
+                return false;
+            }
+            addCondition(column, false);
+        } while (acceptComma());
+        return !acceptKeyword("WHERE") || where();
+    }
+
+    private boolean delete() {
+        next();
+        if (!acceptKeyword("FROM") || !table()) {
+            return false;
+        }
+        return !acceptKeyword("WHERE") || where();
+    }
+
+    /**
+     * INSERT ... VALUES 不产生列条件，只需确认结构简单并数清占位符
+     */
+    private boolean insert() {
+        next();
+        if (!acceptKeyword("INTO") || !table()) {
+            return false;
+        }
+        if (type == LPAREN) {
+            next();
+            do {
+                if (!column()) {
+                    return false;
+                }
+            } while (acceptComma());
+            if (!accept(RPAREN)) {
+                return false;
+            }
+        }
+        if (!acceptKeyword("VALUES") && !acceptKeyword("VALUE")) {
+            return false;
+        }
+        do {
+            if (!accept(LPAREN)) {
+                return false;
+            }
+            do {
+                if (!value(false)) {
+                    return false;
+                }
+            } while (acceptComma());
+            if (!accept(RPAREN)) {
+                return false;
+            }
+        } while (acceptComma());
+        return true;
+    }
+
+    private boolean where() {
+        do {
+            if (!predicate()) {
+                return false;
+            }
+        } while (acceptKeyword("AND") || acceptKeyword("OR"));
+        return true;
+    }
+
+    private boolean predicate() {
+        String column = columnName();
+        if (column == null) {
+            return false;
+        }
+        if (type == OP) {
+            next();
+            if (!value()) {
+                return false;
+            }
+        } else if (acceptKeyword("IS")) {
+            acceptKeyword("NOT");
+            if (!isKeyword("NULL")) {
+                return false;
+            }
+            next();
+            addValue("NULL", -1);
+        } else {
+            boolean not = acceptKeyword("NOT");
+            if (acceptKeyword("LIKE")) {
+                if (!value()) {
+                    return false;
+                }
+            } else if (acceptKeyword("IN")) {
+                if (!accept(LPAREN)) {
+                    return false;
+                }
+                do {
+                    if (!value()) {
+                        return false;
+                    }
+                } while (acceptComma());
+                if (!accept(RPAREN)) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        addCondition(column, true);
+        return true;
+    }
+
+    private boolean value() {
+        return value(true);
+    }
+
+    /**
+     * 读取一个值
+     *
+     * @param keep 是否追加到当前值列表 (INSERT 的值只需跳过)
+     */
+    private boolean value(boolean keep) {
+        String text;
+        int placeholder = -1;
+        switch (type) {
+            case PARAM:
+                text = null;
+                placeholder = placeholderCount++;
+                break;
+            case STRING:
+                text = keep ? sql.substring(start + 1, end - 1) : null;
+                break;
+            case NUMBER:
+                text = keep ? sql.substring(start, end) : null;
+                break;
+            case IDENT:
+                if (!isKeyword("NULL")) {
+                    return false;
+                }
+                text = "NULL";
+                break;
+            default:
+                return false;
+        }
+        if (keep) {
+            addValue(text, placeholder);
+        }
+        next();
+        return true;
+    }
+
+    private boolean limitValue() {
+        if (type == PARAM) {
+            placeholderCount++;
+        } else if (type != NUMBER) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    private boolean table() {
+        if (type != IDENT || isReserved()) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    private boolean column() {
+        return columnName() != null;
+    }
+
+    /**
+     * @return 列名原文，当前 token 不是列名时返回 null
+     */
+    private String columnName() {
+        if (type != IDENT || isReserved()) {
+            return null;
+        }
+        String name = sql.substring(start, end);
+        next();
+        return name;
+    }
+
+    private void addValue(String value, int placeholder) {
+        if (valueCount == valueBuffer.length) {
+            valueBuffer = Arrays.copyOf(valueBuffer, valueCount * 2);
+            placeholderBuffer = Arrays.copyOf(placeholderBuffer, valueCount * 2);
+        }
+        valueBuffer[valueCount] = value;
+        placeholderBuffer[valueCount] = placeholder;
+        valueCount++;
+    }
+
+    private void addCondition(String column, boolean where) {
+        String[] values = Arrays.copyOf(valueBuffer, valueCount);
+        int[] placeholders = Arrays.copyOf(placeholderBuffer, valueCount);
+        valueCount = 0;
+        conditions.add(new Condition(column, where, values, placeholders));
+    }
+
+    private boolean accept(int expected) {
+        if (type != expected) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    private boolean acceptComma() {
+        return accept(COMMA);
+    }
+
+    private boolean acceptOperator(String operator) {
+        if (type != OP || end - start != operator.length() || !sql.startsWith(operator, start)) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (!isKeyword(keyword)) {
+            return false;
+        }
+        next();
+        return true;
+    }
+
+    private boolean isKeyword(String keyword) {
+        return type == IDENT && !quoted && end - start == keyword.length()
+                && sql.regionMatches(true, start, keyword, 0, keyword.length());
+    }
+
+    private boolean isReserved() {
+        for (String keyword : RESERVED) {
+            if (isKeyword(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------------- 词法
+
+    private void next() {
+        while (pos < length && Character.isWhitespace(sql.charAt(pos))) {
+            pos++;
+        }
+        start = pos;
+        quoted = false;
+        if (pos >= length) {
+            type = EOF;
+            end = pos;
+            return;
+        }
+        char c = sql.charAt(pos);
+        if (isIdentifierStart(c) || c == '`') {
+            type = identifier() ? IDENT : UNKNOWN;
+        } else if (c >= '0' && c <= '9') {
+            type = number() ? NUMBER : UNKNOWN;
+        } else if (c == '\'') {
+            type = string() ? STRING : UNKNOWN;
+        } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+            type = operator(c) ? OP : UNKNOWN;
+        } else {
+            pos++;
+            type = c == '?' ? PARAM
+                    : c == '(' ? LPAREN
+                    : c == ')' ? RPAREN
+                    : c == ',' ? COMMA
+                    : c == '*' ? STAR
+                    : c == ';' ? SEMICOLON
+                    : UNKNOWN;
+        }
+        end = pos;
+        if (type == UNKNOWN) {
+            // 后续 token 不再有意义，直接停在末尾
+            pos = length;
+        }
+    }
+
+    /**
+     * 标识符，可带反引号及一级限定 (t.c)
+     */
+    private boolean identifier() {
+        for (int part = 0; part < 2; part++) {
+            if (!identifierPart()) {
+                return false;
+            }
+            if (pos >= length || sql.charAt(pos) != '.') {
+                return true;
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    private boolean identifierPart() {
+        if (pos >= length) {
+            return false;
+        }
+        char c = sql.charAt(pos);
+        if (c == '`') {
+            int close = sql.indexOf('`', pos + 1);
+            if (close <= pos + 1) {
+                return false;
+            }
+            quoted = true;
+            pos = close + 1;
+            return true;
+        }
+        if (!isIdentifierStart(c)) {
+            return false;
+        }
+        pos++;
+        while (pos < length && isIdentifierChar(sql.charAt(pos))) {
+            pos++;
+        }
+        return true;
+    }
+
+    /**
+     * 十进制整数或小数；前导零、科学计数、十六进制等交给 Druid (其输出会改写原文)
+     */
+    private boolean number() {
+        int digitsStart = pos;
+        while (pos < length && isDigit(sql.charAt(pos))) {
+            pos++;
+        }
+        if (sql.charAt(digitsStart) == '0' && pos - digitsStart > 1) {
+            return false;
+        }
+        if (pos < length && sql.charAt(pos) == '.') {
+            pos++;
+            int fractionStart = pos;
+            while (pos < length && isDigit(sql.charAt(pos))) {
+                pos++;
+            }
+            if (pos == fractionStart) {
+                return false;
+            }
+        }
+        return pos >= length || !isIdentifierChar(sql.charAt(pos)) && sql.charAt(pos) != '.';
+    }
+
+    /**
+     * 单引号字符串；'' 转义保留原文 (Druid 输出时同样写作 '')，含反斜杠转义时 Druid 会改写原文，交给 Druid
+     */
+    private boolean string() {
+        for (int i = pos + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                return false;
+            }
+            if (c == '\'') {
+                if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                    i++;
+                    continue;
+                }
+                pos = i + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean operator(char c) {
+        pos++;
+        char n = pos < length ? sql.charAt(pos) : 0;
+        if (c == '=') {
+            return true;
+        }
+        if (n == '=' || (c == '<' && n == '>')) {
+            pos++;
+            return true;
+        }
+        // 单独的 ! 不是比较运算符
+        return c != '!';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
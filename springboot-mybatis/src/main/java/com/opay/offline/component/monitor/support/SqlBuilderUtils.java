@@ -18,76 +18,108 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.lang.reflect.Type;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
 
 @Slf4j
 public class SqlBuilderUtils {
     private static final Map<String, Class<?>> MAPPER_ENTITY_CACHE = new ConcurrentHashMap<>(256);
     private static final Class<?> NO_ENTITY_MARKER = Void.class; // 标记无实体的Mapper，防止缓存穿透
+    // OUT 参数占位标记 (存储过程出参不参与拼装)
+    public static final Object OUT_PARAMETER = new Object();
 
     /**
      * 只有在异步线程中才调用此方法进行复杂的SQL拼装
      */
     public static String buildExecutableSql(Configuration cfg, BoundSql boundSql, Object param) {
         try {
-            String sql = normalizeSql(boundSql.getSql());
-            List<ParameterMapping> pms = boundSql.getParameterMappings();
-            if (pms == null || pms.isEmpty()) {
-                return sql;
-            }
+            return buildExecutableSql(boundSql.getSql(), resolveParameterValues(cfg, boundSql, param));
+        } catch (Exception e) {
+            log.warn("SQL assembly failed", e);
+            return "SQL_ASSEMBLY_ERROR";
+        }
+    }
 
-            MetaObject metaObject = param == null ? null : cfg.newMetaObject(param);
-            TypeHandlerRegistry registry = cfg.getTypeHandlerRegistry();
-
-            for (ParameterMapping pm : pms) {
-                if (pm.getMode() == ParameterMode.OUT) continue;
-
-                String property = pm.getProperty();
-                Object value = null;
-
-                if (boundSql.hasAdditionalParameter(property)) {
-                    value = boundSql.getAdditionalParameter(property);
-                } else if (param != null && registry.hasTypeHandler(param.getClass())) {
-                    value = param;
-                } else if (metaObject != null && metaObject.hasGetter(property)) {
-                    value = metaObject.getValue(property);
-                } else {
-                    // 尝试从 Configuration 的 MetaObject 获取（处理嵌套等复杂情况）
-                    try {
-                        if (param != null) {
-                            value = cfg.newMetaObject(param).getValue(property);
-                        }
-                    } catch (Exception e) {
-                        log.debug("Failed to get value for property: {}", property, e);
-                    }
-                }
-                // 使用 Matcher.quoteReplacement 防止 value 中包含 $ \ 等特殊字符导致报错
-                sql = sql.replaceFirst("\\?", Matcher.quoteReplacement(formatValue(value)));
-            }
-            return sql;
+    /**
+     * 使用已解析好的参数值拼装可执行 SQL (不限长度)
+     *
+     * @param values 与 ? 一一对应的参数值 (见 {@link #resolveParameterValues})
+     */
+    public static String buildExecutableSql(String rawSql, List<Object> values) {
+        return buildExecutableSql(rawSql, values, 0);
+    }
+
+    /**
+     * 使用已解析好的参数值拼装可执行 SQL，渲染过程中即按 maxLength 截断
+     */
+    public static String buildExecutableSql(String rawSql, List<Object> values, int maxLength) {
+        try {
+            return ExecutableSqlRenderer.render(rawSql, values, maxLength);
         } catch (Exception e) {
             log.warn("SQL assembly failed", e);
             return "SQL_ASSEMBLY_ERROR";
         }
     }
 
-    private static String normalizeSql(String sql) {
-        return sql == null ? "" : sql.replaceAll("\\s+", " ").trim();
+    /**
+     * 按 ParameterMapping 顺序解析出每个 ? 对应的参数值
+     * OUT 参数以 {@link #OUT_PARAMETER} 占位，保证下标与 ? 的位置一致
+     */
+    public static List<Object> resolveParameterValues(Configuration cfg, BoundSql boundSql, Object param) {
+        return resolveParameterValues(cfg, boundSql, param, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 只解析前 limit 个 ? 对应的参数值 (多行 INSERT 只需保留行的参数)
+     */
+    public static List<Object> resolveParameterValues(Configuration cfg, BoundSql boundSql, Object param, int limit) {
+        List<ParameterMapping> pms = boundSql.getParameterMappings();
+        if (pms == null || pms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (pms.size() > limit) {
+            pms = pms.subList(0, limit);
+        }
+
+        MetaObject metaObject = param == null ? null : cfg.newMetaObject(param);
+        TypeHandlerRegistry registry = cfg.getTypeHandlerRegistry();
+        List<Object> values = new ArrayList<>(pms.size());
+
+        for (ParameterMapping pm : pms) {
+            if (pm.getMode() == ParameterMode.OUT) {
+                values.add(OUT_PARAMETER);
+                continue;
+            }
+
+            String property = pm.getProperty();
+            Object value = null;
+
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (param != null && registry.hasTypeHandler(param.getClass())) {
+                value = param;
+            } else if (metaObject != null && metaObject.hasGetter(property)) {
+                value = metaObject.getValue(property);
+            } else {
+                // 尝试从 Configuration 的 MetaObject 获取（处理嵌套等复杂情况）
+                try {
+                    if (param != null) {
+                        value = cfg.newMetaObject(param).getValue(property);
+                    }
+                } catch (Exception e) {
+                    log.debug("Failed to get value for property: {}", property, e);
+                }
+            }
+            values.add(value);
+        }
+        return values;
     }
 
-    private static String formatValue(Object value) {
-        if (value == null) return "NULL";
-        if (value instanceof Number) return value.toString();
-        if (value instanceof Boolean) return ((Boolean) value) ? "1" : "0";
-        if (value instanceof Date || value instanceof java.time.temporal.Temporal) return "'" + value.toString() + "'";
-        // ✅ 优化点2：限制参数长度，防止大字符串导致内存问题
-        String strVal = value.toString();
-        if (strVal.length() > 500) strVal = strVal.substring(0, 500) + "...(truncated)";
-        return "'" + strVal.replace("'", "''") + "'";
+    static String formatValue(Object value) {
+        return ExecutableSqlRenderer.appendValue(new StringBuilder(), value).toString();
     }
 
     /**
@@ -176,4 +208,3 @@ public class SqlBuilderUtils {
     }
 
 }
-
@@ -1,5 +1,7 @@
 package com.opay.offline.component.monitor.support;
 
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.core.CaptureMetrics;
 import com.opay.offline.component.monitor.model.CapturedSqlInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,6 +9,8 @@ import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -14,6 +18,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
@@ -21,6 +28,22 @@ import java.util.Map;
 public class SqlContextEnricher {
 
     private final SqlSessionFactory sqlSessionFactory;
+    private final SqlCaptureProperties properties;
+    private final CaptureMetrics metrics;
+
+    // 同形状补全合并为 IN 查询：批量接口直接合并，单条接口在合并窗口 > 0 时按窗口合并
+    private EnrichCoalescer coalescer;
+
+    @PostConstruct
+    public void init() {
+        coalescer = new EnrichCoalescer(sqlSessionFactory,
+                properties.getEnrichCoalesceWindowMillis(), properties.getEnrichCoalesceMaxKeys());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        coalescer.shutdown();
+    }
 
     /**
      * 智能获取字段值 (优先内存，缺失查库)
@@ -28,10 +51,90 @@ public class SqlContextEnricher {
      */
     public Map<String, Object> enrich(CapturedSqlInfo info, String targetColumns) {
         Map<String, Object> resultMap = new HashMap<>();
-        if (targetColumns == null || info.getParams() == null) {
+        long start = System.nanoTime();
+        List<String> missingColumns = enrichLocally(info, targetColumns, resultMap);
+        if (missingColumns == null) {
             return resultMap;
         }
 
+        // 3. 如果全命中，直接返回
+        if (missingColumns.isEmpty()) {
+            metrics.recordEnrich(false, System.nanoTime() - start);
+            return resultMap;
+        }
+
+        // 4. DB 补全查询 (开启合并窗口时优先合并查询)
+        Map<String, Object> dbResult = enrichCoalesced(info, missingColumns);
+        if (dbResult == null) {
+            dbResult = enrichFromDb(info, String.join(",", missingColumns));
+        }
+        if (dbResult != null) {
+            resultMap.putAll(dbResult);
+        }
+        metrics.recordEnrich(true, System.nanoTime() - start);
+
+        return resultMap;
+    }
+
+    /**
+     * 批量获取字段值，供批量 Handler (onCaptureBatch) 调用
+     * <p>
+     * 同表同 WHERE 形状的缺失字段合并为一条 IN 查询，在调用线程直接执行，不等待合并窗口
+     *
+     * @return 与 infos 一一对应
+     */
+    public List<Map<String, Object>> enrich(List<CapturedSqlInfo> infos, String targetColumns) {
+        List<Map<String, Object>> results = new ArrayList<>(infos.size());
+        List<Integer> dbIndexes = new ArrayList<>();
+        List<String> dbSqls = new ArrayList<>();
+        List<List<String>> dbColumns = new ArrayList<>();
+        for (CapturedSqlInfo info : infos) {
+            Map<String, Object> resultMap = new HashMap<>();
+            long start = System.nanoTime();
+            List<String> missingColumns = enrichLocally(info, targetColumns, resultMap);
+            if (missingColumns != null && missingColumns.isEmpty()) {
+                metrics.recordEnrich(false, System.nanoTime() - start);
+            } else if (missingColumns != null) {
+                dbIndexes.add(results.size());
+                dbSqls.add(info.getExecutableSql());
+                dbColumns.add(missingColumns);
+            }
+            results.add(resultMap);
+        }
+        if (dbIndexes.isEmpty()) {
+            return results;
+        }
+
+        long start = System.nanoTime();
+        List<Map<String, Object>> merged = coalescer.query(dbSqls, dbColumns);
+        for (int i = 0; i < dbIndexes.size(); i++) {
+            Map<String, Object> dbResult = merged.get(i);
+            int index = dbIndexes.get(i);
+            if (dbResult == null) {
+                dbResult = enrichFromDb(infos.get(index), String.join(",", dbColumns.get(i)));
+            }
+            if (dbResult != null) {
+                results.get(index).putAll(dbResult);
+            }
+        }
+        // 合并查询的耗时均摊到每个事件
+        long perEvent = (System.nanoTime() - start) / dbIndexes.size();
+        for (int i = 0; i < dbIndexes.size(); i++) {
+            metrics.recordEnrich(true, perEvent);
+        }
+        return results;
+    }
+
+    /**
+     * 从捕获参数与前镜像中查找字段值，写入 resultMap
+     *
+     * @return 仍缺失、需要查库的字段；无参数可查时返回 null
+     */
+    private List<String> enrichLocally(CapturedSqlInfo info, String targetColumns, Map<String, Object> resultMap) {
+        if (targetColumns == null || info.getParams() == null) {
+            return null;
+        }
+
         String[] targets = targetColumns.split(",");
         List<String> missingColumns = new ArrayList<>();
         Map<String, Object> currentParams = info.getParams();
@@ -55,19 +158,43 @@ public class SqlContextEnricher {
             }
         }
 
-        // 2. 如果全命中，直接返回
-        if (missingColumns.isEmpty()) {
-            return resultMap;
+        // 2. 前镜像查找 (写操作执行前在业务连接上读取，免去补全查库)
+        List<Map<String, Object>> beforeImage = info.getBeforeImage();
+        if (!missingColumns.isEmpty() && beforeImage != null && !beforeImage.isEmpty()) {
+            Map<String, Object> firstRow = beforeImage.get(0);
+            missingColumns.removeIf(colName -> {
+                Object val = firstRow.get(colName);
+                if (val != null) {
+                    resultMap.put(colName, val);
+                }
+                // 前镜像包含该列即视为已确定 (值可能本就为 null)
+                return firstRow.containsKey(colName);
+            });
         }
+        return missingColumns;
+    }
 
-        // 3. DB 补全查询
-        String columnsToQuery = String.join(",", missingColumns);
-        Map<String, Object> dbResult = enrichFromDb(info, columnsToQuery);
-        if (dbResult != null) {
-            resultMap.putAll(dbResult);
-        }
+    /**
+     * 合并补全：同表同 WHERE 形状的请求在窗口内合并为一条 IN 查询
+     *
+     * @return 无法合并时返回 null
+     */
+    private Map<String, Object> enrichCoalesced(CapturedSqlInfo info, List<String> columns) {
+        String executableSql = info.getExecutableSql();
+        if (executableSql == null) return null;
 
-        return resultMap;
+        CompletableFuture<Map<String, Object>> future = coalescer.submit(executableSql, columns);
+        if (future == null) return null;
+        try {
+            return future.get(properties.getEnrichCoalesceWindowMillis() + properties.getEnrichTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("DB合并补全等待超时: {}", executableSql);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("DB合并补全失败: {}", executableSql, e);
+        }
+        return new HashMap<>();
     }
 
     private Map<String, Object> enrichFromDb(CapturedSqlInfo info, String columnsToQuery) {
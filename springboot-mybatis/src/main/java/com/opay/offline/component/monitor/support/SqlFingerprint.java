@@ -0,0 +1,136 @@
+package com.opay.offline.component.monitor.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 指纹：同一形状的 SQL 归一为同一个字符串，用于聚合统计
+ * <p>
+ * 1. 去掉注释，连续空白折叠为一个空格，引号外转小写
+ * 2. 字符串 / 数字字面量替换为 ?
+ * 3. IN (?, ?, ...) 折叠为 (?+)，多行 VALUES (?+), (?+) ... 折叠为一行
+ * <p>
+ * 每条语句只计算一次，不在热路径上；按事件取指纹的调用方 (N+1 检测、慢 SQL EXPLAIN) 使用 {@link #cached}
+ */
+public final class SqlFingerprint {
+
+    // 缓存上限，防止动态 SQL (如不同长度的 foreach) 撑爆内存
+    private static final int MAX_CACHE_SIZE = 2048;
+    // 超长 SQL 不缓存 (如大批量 INSERT)，避免缓存 key 占用过多内存
+    private static final int MAX_CACHEABLE_SQL_LENGTH = 8192;
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>(256);
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\?(, ?\\?)+\\)");
+    private static final Pattern PLACEHOLDER_ROWS = Pattern.compile("\\((\\?\\+?)\\)(, ?\\(\\?\\+?\\))+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String normalized = normalize(sql);
+        normalized = PLACEHOLDER_LIST.matcher(normalized).replaceAll("(?+)");
+        return PLACEHOLDER_ROWS.matcher(normalized).replaceAll("(?+)");
+    }
+
+    /**
+     * 按原始 SQL 缓存的指纹，同一 SQL 只计算一次；缓存已满或 SQL 过长时直接计算
+     */
+    public static String cached(String sql) {
+        if (sql == null || sql.length() > MAX_CACHEABLE_SQL_LENGTH) {
+            return of(sql);
+        }
+        String fingerprint = CACHE.get(sql);
+        if (fingerprint == null) {
+            fingerprint = of(sql);
+            if (CACHE.size() < MAX_CACHE_SIZE) {
+                CACHE.putIfAbsent(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    private static String normalize(String sql) {
+        int length = sql.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (c == '#' || c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            // 括号与逗号两侧不保留空格，逗号后统一一个空格
+            if (pendingSpace && c != ')' && c != ',' && !endsWith(sb, '(')) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+                sb.append('?');
+            } else if (c == '`') {
+                int end = skipQuoted(sql, i, c);
+                sb.append(sql, i, end + 1);
+                i = end;
+            } else if (Character.isDigit(c) && !isIdentifierPart(sb)) {
+                while (i + 1 < length && (Character.isLetterOrDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else if (c == ',') {
+                sb.append(", ");
+                while (i + 1 < length && Character.isWhitespace(sql.charAt(i + 1))) {
+                    i++;
+                }
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean endsWith(StringBuilder sb, char c) {
+        return sb.length() > 0 && sb.charAt(sb.length() - 1) == c;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char last = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        for (int i = start + 1; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i++;
+            } else if (c == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return length - 1;
+    }
+}
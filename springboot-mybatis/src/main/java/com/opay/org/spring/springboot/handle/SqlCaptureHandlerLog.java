@@ -2,7 +2,8 @@ package com.opay.org.spring.springboot.handle;
 
 import com.alibaba.fastjson.JSON;
 import com.opay.offline.component.monitor.model.CapturedSqlInfo;
-import com.opay.offline.component.monitor.handler.SqlCaptureHandler;
+import com.opay.offline.component.monitor.handler.SqlCaptureBatchHandler;
+import com.opay.offline.component.monitor.support.CapturedSqlInfoTextRenderer;
 import com.opay.offline.component.monitor.support.SqlContextEnricher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -13,15 +14,18 @@ import java.util.*;
 @Component
 @Log4j2
 @RequiredArgsConstructor
-public class SqlCaptureHandlerLog implements SqlCaptureHandler {
+public class SqlCaptureHandlerLog implements SqlCaptureBatchHandler {
 
     private final SqlContextEnricher sqlContextEnricher;
 
     @Override
-    public void onCapture(CapturedSqlInfo info) {
-        log.info("SqlCaptureHandlerKyb info:{}", JSON.toJSONString(info));
-        Map<String, Object> enrich = sqlContextEnricher.enrich(info, "id,city_name");
-        log.info("SqlCaptureHandlerKyb info:{}", JSON.toJSONString(enrich));
+    public void onCaptureBatch(List<CapturedSqlInfo> infos) {
+        // 整批一次补全，同形状的查库合并为一条 IN 查询
+        List<Map<String, Object>> enriched = sqlContextEnricher.enrich(infos, "id,city_name");
+        for (int i = 0; i < infos.size(); i++) {
+            log.info("SqlCaptureHandlerKyb info:{}", CapturedSqlInfoTextRenderer.render(infos.get(i)));
+            log.info("SqlCaptureHandlerKyb info:{}", JSON.toJSONString(enriched.get(i)));
+        }
     }
 
 }
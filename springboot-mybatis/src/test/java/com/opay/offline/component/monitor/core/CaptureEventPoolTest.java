@@ -0,0 +1,166 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.handler.SqlCaptureHandler;
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import com.opay.offline.component.monitor.support.CapturedSqlInfoCodec;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 捕获事件池测试 - {@link CaptureEventPool}
+ */
+public class CaptureEventPoolTest {
+
+    private final SqlCaptureProperties properties = new SqlCaptureProperties();
+    private SqlCaptureDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    @Test
+    public void returnsAfterEveryLaneAcknowledged() {
+        CaptureEventPool pool = newPool();
+        SqlCaptureContext context = pool.borrow();
+        CapturedSqlInfo info = context.getInfo();
+        info.setRawSql("SELECT 1");
+        info.addExt("k", 1);
+        List<CapturedSqlInfo> batch = Collections.singletonList(info);
+
+        pool.retain(batch, 3);
+        pool.release(batch);
+        pool.release(batch);
+        assertEquals(0, pool.getIdleCount());
+        pool.release(batch);
+        assertEquals(1, pool.getIdleCount());
+
+        // 再次借出的是同一对象，字段已清空
+        SqlCaptureContext reused = pool.borrow();
+        assertSame(context, reused);
+        assertNull(reused.getInfo().getRawSql());
+        assertTrue(reused.getInfo().getExt().isEmpty());
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getReusedCount());
+    }
+
+    @Test
+    public void ignoresDoubleRelease() {
+        CaptureEventPool pool = newPool();
+        CapturedSqlInfo info = pool.borrow().getInfo();
+
+        pool.release(info);
+        pool.release(info);
+        pool.release(Collections.singletonList(info));
+        assertEquals(1, pool.getIdleCount());
+
+        // 只能被借出一次
+        pool.borrow();
+        assertEquals(0, pool.getIdleCount());
+        pool.borrow();
+        assertEquals(2, pool.getCreatedCount());
+    }
+
+    /**
+     * 不是池中借出的事件 (手工新建、溢出日志回放解码、独立通道的浅拷贝) 不会进入池中
+     */
+    @Test
+    public void ignoresEventsNotBorrowedFromPool() {
+        CaptureEventPool pool = newPool();
+        CapturedSqlInfo pooled = pool.borrow().getInfo();
+        pooled.setRawSql("SELECT 1");
+
+        CapturedSqlInfoCodec.Encoder encoder = new CapturedSqlInfoCodec.Encoder();
+        encoder.encode(pooled);
+        byte[] bytes = encoder.toByteArray();
+        CapturedSqlInfo replayed = new CapturedSqlInfoCodec.Decoder().decode(bytes, 0, bytes.length);
+
+        pool.release(Arrays.asList(new CapturedSqlInfo(), replayed, pooled.shallowCopy()));
+        assertEquals(0, pool.getIdleCount());
+        assertEquals("SELECT 1", pooled.getRawSql());
+    }
+
+    @Test
+    public void disabledPoolNeverRetains() {
+        CaptureEventPool pool = new CaptureEventPool(properties);
+        CapturedSqlInfo info = pool.borrow().getInfo();
+        assertNull(info.pooledContext());
+
+        pool.release(info);
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void returnsAfterHandlerFailure() throws Exception {
+        properties.setEventPoolEnabled(true);
+        CaptureEventPool pool = start(Collections.singletonList(failing()));
+
+        dispatcher.submit(borrow(pool));
+
+        awaitIdle(pool, 1);
+    }
+
+    @Test
+    public void returnsAfterLaneHandlerFailure() throws Exception {
+        properties.setEventPoolEnabled(true);
+        properties.setHandlerLanesEnabled(true);
+        CaptureEventPool pool = start(Arrays.asList(failing(), info -> info.addExt("ok", 1)));
+
+        dispatcher.submit(borrow(pool));
+
+        awaitIdle(pool, 1);
+    }
+
+    private CaptureEventPool newPool() {
+        properties.setEventPoolEnabled(true);
+        return new CaptureEventPool(properties);
+    }
+
+    private CaptureEventPool start(List<SqlCaptureHandler> handlers) {
+        CaptureEventPool pool = new CaptureEventPool(properties);
+        SqlDigestAggregator digestAggregator = new SqlDigestAggregator(properties);
+        SlowSqlExplainer explainer = new SlowSqlExplainer(properties, digestAggregator,
+                new DefaultListableBeanFactory().getBeanProvider(SqlSessionFactory.class));
+        dispatcher = new SqlCaptureDispatcher(handlers, new MonitorExecutorService(properties),
+                properties, new ResultMemoryBudget(properties), new CaptureMetrics(), explainer,
+                new RepeatedQueryDetector(properties), pool);
+        dispatcher.init();
+        return pool;
+    }
+
+    private static SqlCaptureContext borrow(CaptureEventPool pool) {
+        SqlCaptureContext context = pool.borrow();
+        context.getInfo().setRawSql("SELECT 1");
+        context.getInfo().setSuccess(true);
+        return context;
+    }
+
+    private static SqlCaptureHandler failing() {
+        return info -> {
+            throw new IllegalStateException("handler failed");
+        };
+    }
+
+    private static void awaitIdle(CaptureEventPool pool, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pool.getIdleCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, pool.getIdleCount());
+    }
+}
@@ -0,0 +1,165 @@
+package com.opay.offline.component.monitor.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 无锁环形队列测试 - {@link CaptureRingBuffer}
+ */
+public class CaptureRingBufferTest {
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(2, new CaptureRingBuffer<Integer>(0).capacity());
+        assertEquals(2, new CaptureRingBuffer<Integer>(2).capacity());
+        assertEquals(8, new CaptureRingBuffer<Integer>(5).capacity());
+        assertEquals(1024, new CaptureRingBuffer<Integer>(1024).capacity());
+    }
+
+    @Test
+    public void keepsFifoOrderAcrossWraparound() {
+        CaptureRingBuffer<Integer> buffer = new CaptureRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // 每轮写 3 取 3，游标多次越过数组尾部
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            assertEquals(3, buffer.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Integer.valueOf(expected++), buffer.poll());
+            }
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void rejectsWhenFull() {
+        CaptureRingBuffer<Integer> buffer = new CaptureRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        // 腾出一个槽位后可以继续写入
+        assertTrue(buffer.offer(6));
+        assertEquals(4, buffer.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rejectsNull() {
+        new CaptureRingBuffer<Integer>(4).offer(null);
+    }
+
+    @Test
+    public void drainToHonoursLimit() {
+        CaptureRingBuffer<Integer> buffer = new CaptureRingBuffer<>(8);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> batch = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(batch, 4));
+        assertEquals(4, batch.size());
+        assertEquals(2, buffer.drainTo(batch, 4));
+        assertEquals(0, buffer.drainTo(batch, 4));
+        for (int i = 0; i < 6; i++) {
+            assertEquals(Integer.valueOf(i), batch.get(i));
+        }
+    }
+
+    /**
+     * 多生产者 / 多消费者：每个值恰好被消费一次，且同一生产者的值按发布顺序被取出
+     */
+    @Test
+    public void deliversEveryElementExactlyOnceUnderContention() throws Exception {
+        final int producers = 4;
+        final int consumers = 4;
+        final int perProducer = 100_000;
+        final int total = producers * perProducer;
+        final CaptureRingBuffer<Integer> buffer = new CaptureRingBuffer<>(64);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final int base = p * perProducer;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < consumers; c++) {
+                futures.add(pool.submit(() -> {
+                    int[] last = new int[producers];
+                    Arrays.fill(last, -1);
+                    start.await();
+                    List<Integer> batch = new ArrayList<>();
+                    while (consumed.get() < total) {
+                        Integer value = buffer.poll();
+                        if (value != null) {
+                            batch.add(value);
+                        } else {
+                            buffer.drainTo(batch, 16);
+                        }
+                        if (batch.isEmpty()) {
+                            Thread.yield();
+                            continue;
+                        }
+                        for (Integer v : batch) {
+                            seen.incrementAndGet(v);
+                            int producer = v / perProducer;
+                            if (v <= last[producer]) {
+                                outOfOrder.incrementAndGet();
+                            }
+                            last[producer] = v;
+                        }
+                        consumed.addAndGet(batch.size());
+                        batch.clear();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(total, consumed.get());
+        for (int i = 0; i < total; i++) {
+            assertEquals("value " + i, 1, seen.get(i));
+        }
+        assertEquals(0, outOfOrder.get());
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,210 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 溢出日志测试 - {@link CaptureSpillLog}
+ */
+public class CaptureSpillLogTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysInWriteOrderWithoutClosing() throws IOException {
+        CaptureSpillLog spillLog = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(spillLog.append(info(i)));
+            }
+            assertTrue(spillLog.hasPending());
+
+            List<CapturedSqlInfo> replayed = new ArrayList<>();
+            assertEquals(2, spillLog.replay(2, replayed::add));
+            assertEquals(1, spillLog.replay(10, replayed::add));
+
+            assertIds(replayed, 0, 1, 2);
+            assertFalse(spillLog.hasPending());
+            assertEquals(3, spillLog.getSpilledCount());
+            assertEquals(3, spillLog.getReplayedCount());
+        } finally {
+            spillLog.close();
+        }
+        assertEquals(0, segments().length);
+    }
+
+    @Test
+    public void recoversSegmentsLeftByPreviousRun() throws IOException {
+        CaptureSpillLog spillLog = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        for (int i = 0; i < 3; i++) {
+            spillLog.append(info(i));
+        }
+        spillLog.close();
+        assertEquals(1, segments().length);
+
+        CaptureSpillLog reopened = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        try {
+            assertTrue(reopened.hasPending());
+            List<CapturedSqlInfo> replayed = new ArrayList<>();
+            assertEquals(3, reopened.replay(10, replayed::add));
+            assertIds(replayed, 0, 1, 2);
+            assertFalse(reopened.hasPending());
+        } finally {
+            reopened.close();
+        }
+        assertEquals(0, segments().length);
+    }
+
+    /**
+     * 进程在写入中途崩溃时段尾只有半条记录：长度超出文件剩余部分，回放到此为止，之前的记录不受影响
+     */
+    @Test
+    public void recoversSegmentTruncatedMidRecord() throws IOException {
+        CaptureSpillLog spillLog = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        for (int i = 0; i < 3; i++) {
+            spillLog.append(info(i));
+        }
+        spillLog.close();
+
+        Path segment = segments()[0].toPath();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int[] offsets = recordOffsets(channel, 3);
+            int thirdLength = readInt(channel, offsets[2]);
+            channel.truncate(offsets[2] + 4 + thirdLength / 2);
+        }
+
+        CaptureSpillLog reopened = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        try {
+            List<CapturedSqlInfo> replayed = new ArrayList<>();
+            assertEquals(2, reopened.replay(10, replayed::add));
+            assertIds(replayed, 0, 1);
+            assertFalse(reopened.hasPending());
+        } finally {
+            reopened.close();
+        }
+        assertEquals(0, segments().length);
+    }
+
+    /**
+     * 长度已写入但内容损坏的记录被跳过并计入丢弃数，后续记录继续回放
+     */
+    @Test
+    public void skipsCorruptedRecord() throws IOException {
+        CaptureSpillLog spillLog = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        for (int i = 0; i < 3; i++) {
+            spillLog.append(info(i));
+        }
+        spillLog.close();
+
+        Path segment = segments()[0].toPath();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int[] offsets = recordOffsets(channel, 3);
+            int secondLength = readInt(channel, offsets[1]);
+            channel.write(ByteBuffer.allocate(secondLength), offsets[1] + 4);
+        }
+
+        CaptureSpillLog reopened = new CaptureSpillLog(folder.getRoot().getPath(), SEGMENT_BYTES, 4);
+        try {
+            List<CapturedSqlInfo> replayed = new ArrayList<>();
+            assertEquals(2, reopened.replay(10, replayed::add));
+            assertIds(replayed, 0, 2);
+            assertEquals(1, reopened.getDroppedCount());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void dropsWhenSegmentLimitReached() throws IOException {
+        CaptureSpillLog spillLog = new CaptureSpillLog(folder.getRoot().getPath(), 1024, 2);
+        try {
+            int accepted = 0;
+            for (int i = 0; i < 100; i++) {
+                if (spillLog.append(info(i))) {
+                    accepted++;
+                }
+            }
+            assertTrue(accepted > 0 && accepted < 100);
+            assertEquals(100 - accepted, spillLog.getDroppedCount());
+            assertEquals(2, segments().length);
+
+            // 回放腾出段后可以继续写入
+            List<CapturedSqlInfo> replayed = new ArrayList<>();
+            assertEquals(accepted, spillLog.replay(1000, replayed::add));
+            assertEquals(0, replayed.get(0).getDurationMillis());
+            assertEquals(accepted - 1, replayed.get(accepted - 1).getDurationMillis());
+            assertTrue(spillLog.append(info(100)));
+        } finally {
+            spillLog.close();
+        }
+    }
+
+    private File[] segments() {
+        File[] files = folder.getRoot().listFiles((dir, name) -> name.endsWith(".seg"));
+        return files == null ? new File[0] : files;
+    }
+
+    /**
+     * 记录格式为 [int 长度][内容]
+     */
+    private static int[] recordOffsets(FileChannel channel, int count) throws IOException {
+        int[] offsets = new int[count];
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = pos;
+            pos += 4 + readInt(channel, pos);
+        }
+        return offsets;
+    }
+
+    private static int readInt(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, position);
+        buffer.flip();
+        return buffer.getInt();
+    }
+
+    private static void assertIds(List<CapturedSqlInfo> replayed, long... ids) {
+        assertEquals(ids.length, replayed.size());
+        for (int i = 0; i < ids.length; i++) {
+            CapturedSqlInfo info = replayed.get(i);
+            assertEquals(ids[i], info.getDurationMillis());
+            assertEquals("DELETE FROM city WHERE id = " + ids[i], info.getExecutableSql());
+            assertEquals("org.spring.springboot.dao.CityDao.deleteCity", info.getMapperMethod());
+        }
+    }
+
+    /**
+     * 以耗时字段作为序号，便于校验回放顺序
+     */
+    private static CapturedSqlInfo info(long id) {
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        info.setEntityClassName("org.spring.springboot.domain.City");
+        info.setMapperMethod("org.spring.springboot.dao.CityDao.deleteCity");
+        info.setSqlCommandType(SqlCommandType.DELETE);
+        info.setRawSql("DELETE FROM city WHERE id = ?");
+        info.setExecutableSql("DELETE FROM city WHERE id = " + id);
+        info.setSuccess(true);
+        info.setDurationMillis(id);
+        return info;
+    }
+}
@@ -0,0 +1,95 @@
+package com.opay.offline.component.monitor.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 可调容量队列测试 - {@link ResizableCaptureQueue}
+ */
+public class ResizableCaptureQueueTest {
+
+    @Test
+    public void rejectsBeyondCapacity() {
+        ResizableCaptureQueue<Integer> queue = new ResizableCaptureQueue<>(2);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(0, queue.remainingCapacity());
+    }
+
+    @Test
+    public void shrinkingKeepsQueuedTasks() {
+        ResizableCaptureQueue<Integer> queue = new ResizableCaptureQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        queue.setCapacity(2);
+        assertEquals(4, queue.size());
+        assertFalse(queue.offer(4));
+
+        queue.poll();
+        queue.poll();
+        // 积压降到新容量以下前仍然拒绝
+        assertFalse(queue.offer(5));
+        queue.poll();
+        assertTrue(queue.offer(6));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void capacityIsAtLeastOne() {
+        ResizableCaptureQueue<Integer> queue = new ResizableCaptureQueue<>(0);
+        assertEquals(1, queue.getCapacity());
+        assertTrue(queue.offer(1));
+        assertFalse(queue.offer(2));
+    }
+
+    /**
+     * 并发入队时接受的元素数恰好等于容量
+     */
+    @Test
+    public void concurrentOffersNeverExceedCapacity() throws Exception {
+        final int capacity = 100;
+        final int threads = 8;
+        final ResizableCaptureQueue<Integer> queue = new ResizableCaptureQueue<>(capacity);
+        final AtomicInteger accepted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        if (queue.offer(i)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(capacity, accepted.get());
+        assertEquals(capacity, queue.size());
+    }
+}
@@ -0,0 +1,213 @@
+package com.opay.offline.component.monitor.core;
+
+import com.opay.offline.component.monitor.config.SqlCaptureProperties;
+import com.opay.offline.component.monitor.handler.SqlCaptureHandler;
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import com.opay.offline.component.monitor.model.SqlCaptureContext;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 异步分发测试 - {@link SqlCaptureDispatcher}
+ */
+public class SqlCaptureDispatcherTest {
+
+    private static final String UPDATE_SQL = "UPDATE city SET city_name = ? WHERE id = ?";
+
+    private final SqlCaptureProperties properties = new SqlCaptureProperties();
+    private final List<String> captured = Collections.synchronizedList(new ArrayList<>());
+    private CountDownLatch latch;
+    private SqlCaptureDispatcher dispatcher;
+    private Configuration configuration;
+    private MappedStatement updateCity;
+
+    @Before
+    public void setUp() {
+        configuration = new Configuration();
+        List<ParameterMapping> mappings = Arrays.asList(
+                new ParameterMapping.Builder(configuration, "cityName", String.class).build(),
+                new ParameterMapping.Builder(configuration, "id", Long.class).build());
+        updateCity = new MappedStatement.Builder(configuration, "CityDao.updateCity",
+                new StaticSqlSource(configuration, UPDATE_SQL, mappings), SqlCommandType.UPDATE).build();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    /**
+     * 事务内先后修改同一实体并更新：每条语句记录执行时的参数值，而不是事务结束时实体的最终状态
+     */
+    @Test
+    public void transactionBufferKeepsValuesOfEachStatement() throws Exception {
+        properties.setTransactionBufferEnabled(true);
+        start(2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        City city = new City(1L, "a");
+        SqlCaptureContext first = context(city);
+        dispatcher.submit(first);
+        city.setCityName("b");
+        SqlCaptureContext second = context(city);
+        dispatcher.submit(second);
+        city.setCityName("c");
+
+        // 缓存期间不再持有参数对象
+        assertNull(first.getParameterObject());
+        assertNull(first.getBoundSql().getParameterObject());
+        assertEquals(Arrays.asList("a", 1L), first.getParameterValues());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clear();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(
+                "UPDATE city SET city_name = 'a' WHERE id = 1 COMMITTED",
+                "UPDATE city SET city_name = 'b' WHERE id = 1 COMMITTED"), captured);
+    }
+
+    @Test
+    public void resolvesParametersAsynchronouslyOutsideTransaction() throws Exception {
+        properties.setTransactionBufferEnabled(true);
+        start(1);
+
+        dispatcher.submit(context(new City(2L, "d")));
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("UPDATE city SET city_name = 'd' WHERE id = 2 null"), captured);
+    }
+
+    /**
+     * 独立通道并发执行，每个通道写入的 ext 只对自己可见
+     */
+    @Test
+    public void handlerLanesDoNotShareExt() throws Exception {
+        properties.setHandlerLanesEnabled(true);
+        latch = new CountDownLatch(2);
+        start(Arrays.asList(new ExtHandler("a"), new ExtHandler("b")));
+
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        info.setRawSql("SELECT 1");
+        info.addExt("seed", 0);
+        SqlCaptureContext context = new SqlCaptureContext(info);
+        dispatcher.submit(context);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Collections.sort(captured);
+        assertEquals(Arrays.asList("a=[a, seed]", "b=[b, seed]"), captured);
+    }
+
+    private void start(int expected) {
+        latch = new CountDownLatch(expected);
+        SqlCaptureHandler handler = info -> {
+            captured.add(info.getExecutableSql() + " " + info.getTransactionOutcome());
+            latch.countDown();
+        };
+        start(Collections.singletonList(handler));
+    }
+
+    private void start(List<SqlCaptureHandler> handlers) {
+        SqlDigestAggregator digestAggregator = new SqlDigestAggregator(properties);
+        SlowSqlExplainer explainer = new SlowSqlExplainer(properties, digestAggregator,
+                new DefaultListableBeanFactory().getBeanProvider(SqlSessionFactory.class));
+        dispatcher = new SqlCaptureDispatcher(handlers, new MonitorExecutorService(properties),
+                properties, new ResultMemoryBudget(properties), new CaptureMetrics(), explainer,
+                new RepeatedQueryDetector(properties), new CaptureEventPool(properties));
+        dispatcher.init();
+    }
+
+    private SqlCaptureContext context(City city) {
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        info.setMapperMethod(updateCity.getId());
+        info.setSqlCommandType(SqlCommandType.UPDATE);
+        info.setSuccess(true);
+        SqlCaptureContext context = new SqlCaptureContext(info);
+        context.setConfiguration(configuration);
+        context.setMappedStatement(updateCity);
+        context.setParameterObject(city);
+        context.setBoundSql(updateCity.getBoundSql(city));
+        return context;
+    }
+
+    private final class ExtHandler implements SqlCaptureHandler {
+        private final String key;
+
+        ExtHandler(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onCapture(CapturedSqlInfo info) {
+            info.addExt(key, 1);
+            // 等待另一个通道也写入后再读取
+            sleepQuietly();
+            captured.add(key + "=" + new TreeSet<>(info.getExt().keySet()));
+            latch.countDown();
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class City {
+        private Long id;
+        private String cityName;
+
+        City(Long id, String cityName) {
+            this.id = id;
+            this.cityName = cityName;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getCityName() {
+            return cityName;
+        }
+
+        public void setCityName(String cityName) {
+            this.cityName = cityName;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.opay.offline.component.monitor.support;
+
+import com.opay.offline.component.monitor.model.CapturedSqlInfo;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 二进制编解码测试 - {@link CapturedSqlInfoCodec}
+ */
+public class CapturedSqlInfoCodecTest {
+
+    @Test
+    public void roundTripsAllFields() {
+        CapturedSqlInfo info = fullInfo();
+        CapturedSqlInfo decoded = roundTrip(new CapturedSqlInfoCodec.Encoder(), new CapturedSqlInfoCodec.Decoder(), info);
+
+        assertEquals(info, decoded);
+        assertEquals(info.getTimestamp(), decoded.getTimestamp());
+    }
+
+    @Test
+    public void roundTripsValueTypes() {
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        LinkedHashMap<String, Object> params = new LinkedHashMap<>();
+        params.put("int", -7);
+        params.put("long", Long.MIN_VALUE);
+        params.put("double", 2.5d);
+        params.put("float", 1.25f);
+        params.put("true", true);
+        params.put("false", false);
+        params.put("decimal", new BigDecimal("12.500"));
+        params.put("bigInteger", new BigInteger("99999999999999999999"));
+        params.put("date", new java.util.Date(1_600_000_000_123L));
+        Timestamp timestamp = new Timestamp(1_600_000_000_000L);
+        timestamp.setNanos(123_456_789);
+        params.put("timestamp", timestamp);
+        params.put("localDateTime", LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1));
+        params.put("localDate", LocalDate.of(2020, 2, 29));
+        params.put("localTime", LocalTime.of(8, 30, 0, 5));
+        params.put("string", "中文 😀 'quoted'");
+        params.put("empty", "");
+        params.put("null", null);
+        params.put("list", Arrays.asList(1, "a", null));
+        params.put("map", Collections.singletonMap("k", 1L));
+        info.setParams(params);
+        info.setResult(Arrays.asList(1, 2, 3));
+        info.setDurationMillis(-1);
+
+        CapturedSqlInfo decoded = roundTrip(new CapturedSqlInfoCodec.Encoder(), new CapturedSqlInfoCodec.Decoder(), info);
+
+        assertEquals(params, decoded.getParams());
+        assertEquals(info.getResult(), decoded.getResult());
+        assertEquals(-1, decoded.getDurationMillis());
+    }
+
+    @Test
+    public void roundTripsBytesAndEnums() {
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        LinkedHashMap<String, Object> params = new LinkedHashMap<>();
+        params.put("bytes", new byte[]{1, 2, (byte) 0xFF});
+        params.put("enum", SqlCommandType.DELETE);
+        info.setParams(params);
+
+        CapturedSqlInfo decoded = roundTrip(new CapturedSqlInfoCodec.Encoder(), new CapturedSqlInfoCodec.Decoder(), info);
+
+        assertArrayEquals(new byte[]{1, 2, (byte) 0xFF}, (byte[]) decoded.getParams().get("bytes"));
+        // 枚举按名称编码
+        assertEquals("DELETE", decoded.getParams().get("enum"));
+    }
+
+    /**
+     * 同一流内重复的实体名 / 方法名 / 入口只在首次出现时写入，之后按字典引用
+     */
+    @Test
+    public void sharesDictionaryAcrossRecords() {
+        CapturedSqlInfoCodec.Encoder encoder = new CapturedSqlInfoCodec.Encoder();
+        CapturedSqlInfoCodec.Decoder decoder = new CapturedSqlInfoCodec.Decoder();
+        CapturedSqlInfo info = fullInfo();
+
+        int first = encoder.encode(info);
+        byte[] firstBytes = encoder.toByteArray();
+        int second = encoder.encode(info);
+        byte[] secondBytes = encoder.toByteArray();
+        assertTrue(second < first);
+
+        assertEquals(info, decoder.decode(firstBytes, 0, firstBytes.length));
+        assertEquals(info, decoder.decode(secondBytes, 0, secondBytes.length));
+
+        // 字典引用依赖前面的记录，换流后无法单独解码
+        decoder.reset();
+        try {
+            decoder.decode(secondBytes, 0, secondBytes.length);
+            fail("dictionary reference should not resolve after reset");
+        } catch (IllegalArgumentException expected) {
+            // ignore
+        }
+    }
+
+    /**
+     * 未写出的记录撤销字典登记后，后续记录仍能被对端解码
+     */
+    @Test
+    public void discardLastKeepsDictionaryInSync() {
+        CapturedSqlInfoCodec.Encoder encoder = new CapturedSqlInfoCodec.Encoder();
+        CapturedSqlInfoCodec.Decoder decoder = new CapturedSqlInfoCodec.Decoder();
+        CapturedSqlInfo info = fullInfo();
+
+        encoder.encode(info);
+        encoder.discardLast();
+        encoder.encode(info);
+        byte[] bytes = encoder.toByteArray();
+
+        assertEquals(info, decoder.decode(bytes, 0, bytes.length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownVersion() {
+        CapturedSqlInfoCodec.Encoder encoder = new CapturedSqlInfoCodec.Encoder();
+        encoder.encode(fullInfo());
+        byte[] bytes = encoder.toByteArray();
+        bytes[0] = 2;
+        new CapturedSqlInfoCodec.Decoder().decode(bytes, 0, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedRecord() {
+        CapturedSqlInfoCodec.Encoder encoder = new CapturedSqlInfoCodec.Encoder();
+        encoder.encode(fullInfo());
+        byte[] bytes = encoder.toByteArray();
+        new CapturedSqlInfoCodec.Decoder().decode(bytes, 0, bytes.length / 2);
+    }
+
+    private static CapturedSqlInfo roundTrip(CapturedSqlInfoCodec.Encoder encoder, CapturedSqlInfoCodec.Decoder decoder,
+                                             CapturedSqlInfo info) {
+        int size = encoder.encode(info);
+        byte[] bytes = encoder.toByteArray();
+        assertEquals(size, bytes.length);
+        return decoder.decode(bytes, 0, bytes.length);
+    }
+
+    private static CapturedSqlInfo fullInfo() {
+        CapturedSqlInfo info = new CapturedSqlInfo();
+        info.setEntityClassName("org.spring.springboot.domain.City");
+        info.setMapperMethod("org.spring.springboot.dao.CityDao.updateCity");
+        info.setSqlCommandType(SqlCommandType.UPDATE);
+        info.setTimestampMillis(1_700_000_000_123L);
+        info.setRawSql("UPDATE city SET city_name = ? WHERE id = ?");
+        info.setExecutableSql("UPDATE city SET city_name = '温岭' WHERE id = 1");
+        LinkedHashMap<String, Object> params = new LinkedHashMap<>();
+        params.put("city_name", "温岭");
+        params.put("id", 1L);
+        info.setParams(params);
+        LinkedHashMap<String, Object> whereParams = new LinkedHashMap<>();
+        whereParams.put("id", 1L);
+        info.setWhereParams(whereParams);
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("city_name", "杭州");
+        row.put("description", null);
+        info.setBeforeImage(Collections.singletonList(row));
+        info.setBatchSize(3);
+        info.setBatchParams(Arrays.asList(Collections.singletonMap("id", 1L), Collections.singletonMap("id", 2L)));
+        info.setTransactionId("tx-42");
+        info.setTransactionOutcome(CapturedSqlInfo.TransactionOutcome.COMMITTED);
+        info.setTraceId("trace-1");
+        info.setSpanId("span-1");
+        info.setEndpoint("PUT /api/city");
+        info.setSuccess(true);
+        info.setDurationMillis(12);
+        info.setResult(1);
+        info.setResultSummary("Rows affected: 1");
+        info.addExt("before_image_ms", 3L);
+        return info;
+    }
+}
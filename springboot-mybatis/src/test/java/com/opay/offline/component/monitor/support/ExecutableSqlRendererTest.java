@@ -0,0 +1,209 @@
+package com.opay.offline.component.monitor.support;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 单遍渲染器测试 - {@link ExecutableSqlRenderer}
+ * <p>
+ * 引号 / 注释外的占位符与改造前逐个 replaceFirst 的拼装结果一致；
+ * 引号、注释中的 ? 与 OUT 参数是有意修正的行为，单独断言
+ */
+public class ExecutableSqlRendererTest {
+
+    private static final List<String> TEMPLATES = Arrays.asList(
+            "UPDATE city SET city_name = ?, description = ? WHERE id = ?",
+            "update city\n\tset province_id = ?\n where id in (?, ?,  ?)",
+            "  DELETE FROM city WHERE id = ? OR description IS NULL  ",
+            "INSERT INTO city (id, city_name, created_at) VALUES (?, ?, ?), (?, ?, now())",
+            "SELECT * FROM city WHERE city_name = 'abc' AND id > ? LIMIT ?, ?",
+            "select `id`, `city_name` from `city` where `province_id` = ? order by id desc",
+            "SELECT id FROM city WHERE description = 'it''s' AND id = ?",
+            "SELECT ? + ?, ?");
+
+    @Test
+    public void matchesLegacyOnGeneratedCorpus() {
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            String sql = TEMPLATES.get(random.nextInt(TEMPLATES.size()));
+            List<Object> values = values(random, count(sql) - random.nextInt(2));
+            assertEquals(sql + " " + values, legacy(sql, values), ExecutableSqlRenderer.render(sql, values, 0));
+        }
+    }
+
+    @Test
+    public void escapesQuotesAndSpecialCharacters() {
+        List<Object> values = Arrays.asList("it's", "a$1\\b", "\"x\"");
+        String sql = "UPDATE city SET city_name = ?, description = ? WHERE code = ?";
+        assertEquals("UPDATE city SET city_name = 'it''s', description = 'a$1\\b' WHERE code = '\"x\"'",
+                ExecutableSqlRenderer.render(sql, values, 0));
+        assertEquals(legacy(sql, values), ExecutableSqlRenderer.render(sql, values, 0));
+    }
+
+    @Test
+    public void truncatesLongValuesLikeLegacy() {
+        char[] chars = new char[600];
+        Arrays.fill(chars, 'x');
+        List<Object> values = Collections.singletonList(new String(chars));
+        String sql = "UPDATE city SET description = ?";
+        String rendered = ExecutableSqlRenderer.render(sql, values, 0);
+        assertEquals(legacy(sql, values), rendered);
+        assertTrue(rendered.endsWith("...(truncated)'"));
+    }
+
+    /**
+     * 长度上限：结果等于完整渲染的前 maxLength 个字符加截断标记
+     */
+    @Test
+    public void truncatesAtMaxLength() {
+        String sql = "INSERT INTO city (id, city_name, description) VALUES (?, ?, ?)";
+        List<Object> values = Arrays.asList(1L, "温岭", "it's a long description");
+        String full = ExecutableSqlRenderer.render(sql, values, 0);
+        assertEquals(full, ExecutableSqlRenderer.render(sql, values, full.length()));
+        assertFalse(ExecutableSqlRenderer.isTruncated(full));
+        for (int max = 1; max < full.length(); max++) {
+            String truncated = ExecutableSqlRenderer.render(sql, values, max);
+            assertEquals(full.substring(0, max) + ExecutableSqlRenderer.TRUNCATED_SUFFIX, truncated);
+            assertTrue(ExecutableSqlRenderer.isTruncated(truncated));
+        }
+    }
+
+    @Test
+    public void keepsPlaceholdersInsideQuotes() {
+        List<Object> values = Collections.singletonList(1);
+        assertEquals("SELECT * FROM city WHERE city_name = '?' AND id = 1",
+                ExecutableSqlRenderer.render("SELECT * FROM city WHERE city_name = '?' AND id = ?", values, 0));
+        assertEquals("SELECT * FROM city WHERE city_name = \"a ?\" AND id = 1",
+                ExecutableSqlRenderer.render("SELECT * FROM city WHERE city_name = \"a ?\" AND id = ?", values, 0));
+        // 反斜杠转义的引号不结束字符串，引号内空白原样保留
+        assertEquals("SELECT * FROM city WHERE city_name = 'a\\'  ?' AND id = 1",
+                ExecutableSqlRenderer.render("SELECT * FROM city WHERE city_name = 'a\\'  ?' AND id = ?", values, 0));
+        assertEquals("SELECT `a?` FROM city WHERE id = 1",
+                ExecutableSqlRenderer.render("SELECT `a?` FROM city WHERE id = ?", values, 0));
+    }
+
+    @Test
+    public void skipsPlaceholdersInsideComments() {
+        List<Object> values = Arrays.asList(1, 2);
+        assertEquals("SELECT * FROM city WHERE id = 1 AND province_id = 2",
+                ExecutableSqlRenderer.render("SELECT * FROM city -- id = ?\nWHERE id = ? AND province_id = ?", values, 0));
+        assertEquals("SELECT * FROM city WHERE id = 1 AND province_id = 2",
+                ExecutableSqlRenderer.render("SELECT * FROM city # id = ?\nWHERE id = ? AND province_id = ?", values, 0));
+        assertEquals("SELECT /* ? */ * FROM city WHERE id = 1 AND province_id = 2",
+                ExecutableSqlRenderer.render("SELECT /* ? */ * FROM city WHERE id = ? AND province_id = ?", values, 0));
+        // -- 后不跟空白不是注释
+        assertEquals("SELECT 1--1 FROM city WHERE id = 2",
+                ExecutableSqlRenderer.render("SELECT 1--? FROM city WHERE id = ?", values, 0));
+    }
+
+    /**
+     * 参数值中的 ? 不会被后续参数替换 (逐个 replaceFirst 时会)
+     */
+    @Test
+    public void doesNotReplaceInsideRenderedValues() {
+        List<Object> values = Arrays.asList("a?b", 1);
+        assertEquals("UPDATE city SET city_name = 'a?b' WHERE id = 1",
+                ExecutableSqlRenderer.render("UPDATE city SET city_name = ? WHERE id = ?", values, 0));
+    }
+
+    @Test
+    public void keepsOutParameterPlaceholder() {
+        List<Object> values = Arrays.asList(1, SqlBuilderUtils.OUT_PARAMETER, "x");
+        assertEquals("{call sync_city(1, ?, 'x')}", ExecutableSqlRenderer.render("{call sync_city(?, ?, ?)}", values, 0));
+    }
+
+    @Test
+    public void keepsExtraPlaceholders() {
+        assertEquals("SELECT * FROM city WHERE id = 1 AND province_id = ?",
+                ExecutableSqlRenderer.render("SELECT * FROM city WHERE id = ? AND province_id = ?",
+                        Collections.singletonList(1), 0));
+        assertEquals("", ExecutableSqlRenderer.render(null, null, 0));
+    }
+
+    /**
+     * 改造前 SqlBuilderUtils.buildExecutableSql 的拼装方式：折叠空白后逐个 replaceFirst
+     */
+    private static String legacy(String rawSql, List<Object> values) {
+        String sql = rawSql.replaceAll("\\s+", " ").trim();
+        for (Object value : values) {
+            sql = sql.replaceFirst("\\?", Matcher.quoteReplacement(legacyFormat(value)));
+        }
+        return sql;
+    }
+
+    private static String legacyFormat(Object value) {
+        if (value == null) return "NULL";
+        if (value instanceof Number) return value.toString();
+        if (value instanceof Boolean) return ((Boolean) value) ? "1" : "0";
+        if (value instanceof Date || value instanceof java.time.temporal.Temporal) return "'" + value.toString() + "'";
+        String strVal = value.toString();
+        if (strVal.length() > 500) strVal = strVal.substring(0, 500) + "...(truncated)";
+        return "'" + strVal.replace("'", "''") + "'";
+    }
+
+    private static int count(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 随机参数值：不含 ? 与连续空白 (旧实现在这两种情况下本身有误)
+     */
+    private static List<Object> values(Random random, int count) {
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(10)) {
+                case 0:
+                    values.add(null);
+                    break;
+                case 1:
+                    values.add(random.nextInt(1000) - 500);
+                    break;
+                case 2:
+                    values.add(random.nextLong());
+                    break;
+                case 3:
+                    values.add(new BigDecimal("12.50"));
+                    break;
+                case 4:
+                    values.add(random.nextBoolean());
+                    break;
+                case 5:
+                    values.add(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+                    break;
+                case 6:
+                    values.add(random.nextBoolean() ? new Timestamp(1_700_000_000_000L) : LocalDate.of(2024, 2, 29));
+                    break;
+                case 7:
+                    values.add("it's $1 \\n 中文");
+                    break;
+                case 8:
+                    values.add(Collections.singletonList("x"));
+                    break;
+                default:
+                    values.add("v" + random.nextInt(100));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,130 @@
+package com.opay.offline.component.monitor.support;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多行 INSERT 行结构测试 - {@link MultiRowInsertLayout}
+ */
+public class MultiRowInsertLayoutTest {
+
+    @Test
+    public void expandsRowsByColumn() {
+        MultiRowInsertLayout layout = MultiRowInsertLayout.parse(
+                "INSERT INTO city (`province_id`, city_name) VALUES (?, ?), (?, ?)", 10);
+
+        assertEquals(Arrays.asList("province_id", "city_name"), layout.getColumns());
+        assertEquals(2, layout.getTotalRows());
+        assertEquals(4, layout.getParameterCount());
+        assertTrue(layout.isComplete());
+        assertEquals(Arrays.asList(row("province_id", 1, "city_name", "a"), row("province_id", 2, "city_name", "b")),
+                layout.rows(Arrays.asList(1, "a", 2, "b")));
+    }
+
+    /**
+     * 引号内的 ,) 与 ? 不是分隔符也不是占位符
+     */
+    @Test
+    public void ignoresSeparatorsInsideQuotes() {
+        MultiRowInsertLayout layout = MultiRowInsertLayout.parse(
+                "insert into city (city_name, description) values ('a,)', ?), (?, 'it''s ?,)')", 10);
+
+        assertEquals(2, layout.getTotalRows());
+        assertEquals(2, layout.getParameterCount());
+        assertEquals(Arrays.asList(row("city_name", "'a,)'", "description", "x"),
+                row("city_name", "y", "description", "'it''s ?,)'")),
+                layout.rows(Arrays.asList("x", "y")));
+    }
+
+    /**
+     * ON DUPLICATE KEY UPDATE 中的 ? 排在所有行之后，不计入行参数
+     */
+    @Test
+    public void keepsOnDuplicateKeyUpdateTail() {
+        String sql = "INSERT INTO city (id, city_name) VALUES (?, ?), (?, ?) ON DUPLICATE KEY UPDATE city_name = ?";
+        MultiRowInsertLayout layout = MultiRowInsertLayout.parse(sql, 10);
+
+        assertEquals(2, layout.getTotalRows());
+        assertEquals(4, layout.getParameterCount());
+        assertTrue(layout.isComplete());
+        assertEquals("INSERT INTO city (id, city_name) VALUES (1, 'a'), (2, 'b') ON DUPLICATE KEY UPDATE city_name = 'c'",
+                layout.render(Arrays.asList(1, "a", 2, "b", "c"), 10_000));
+    }
+
+    /**
+     * 行数超过 maxRows：只保留前几行，参数个数为保留行用到的前缀，渲染结果带截断标记
+     */
+    @Test
+    public void truncatesRowsBeyondMaxRows() {
+        String sql = "INSERT INTO city (id, city_name) VALUES (?, ?), (?, ?), (?, ?) ON DUPLICATE KEY UPDATE city_name = ?";
+        MultiRowInsertLayout layout = MultiRowInsertLayout.parse(sql, 2);
+
+        assertEquals(3, layout.getTotalRows());
+        assertEquals(4, layout.getParameterCount());
+        assertFalse(layout.isComplete());
+        List<Object> prefix = Arrays.asList(1, "a", 2, "b");
+        assertEquals(Arrays.asList(row("id", 1, "city_name", "a"), row("id", 2, "city_name", "b")), layout.rows(prefix));
+        assertEquals("INSERT INTO city (id, city_name) VALUES (1, 'a'), (2, 'b')" + ExecutableSqlRenderer.TRUNCATED_SUFFIX,
+                layout.render(prefix, 10_000));
+    }
+
+    /**
+     * 字面量与函数调用不占参数下标，参数前缀只统计保留行中的 ?
+     */
+    @Test
+    public void parameterCountCoversOnlyKeptRows() {
+        MultiRowInsertLayout layout = MultiRowInsertLayout.parse(
+                "INSERT INTO city (id, created_at, city_name) VALUES (?, now(), 'x'), (1, ?, ?), (?, ?, ?)", 2);
+
+        assertEquals(3, layout.getTotalRows());
+        assertEquals(3, layout.getParameterCount());
+        assertEquals(Arrays.asList(row("id", 7, "created_at", "now()", "city_name", "'x'"),
+                row("id", "1", "created_at", "t", "city_name", "b")),
+                layout.rows(Arrays.asList(7, "t", "b")));
+    }
+
+    @Test
+    public void rejectsUnsupportedShapes() {
+        assertNull(MultiRowInsertLayout.parse(null, 10));
+        assertNull(MultiRowInsertLayout.parse("INSERT INTO city VALUES (?, ?)", 10));
+        assertNull(MultiRowInsertLayout.parse("INSERT INTO city (id, city_name) SELECT id, city_name FROM hot_city", 10));
+        assertNull(MultiRowInsertLayout.parse("INSERT INTO city (id, city_name) VALUES (?, ?), (?)", 10));
+        assertNull(MultiRowInsertLayout.parse("UPDATE city SET city_name = ? WHERE id = ?", 10));
+    }
+
+    @Test
+    public void cachesLayoutPerRawSql() {
+        String sql = "INSERT INTO cache_city (id, city_name) VALUES (?, ?), (?, ?), (?, ?)";
+        MultiRowInsertLayout layout = MultiRowInsertLayout.get(sql, 2);
+        assertSame(layout, MultiRowInsertLayout.get(sql, 2));
+
+        // 保留行数上限变化后重新扫描
+        MultiRowInsertLayout resized = MultiRowInsertLayout.get(sql, 10);
+        assertNotSame(layout, resized);
+        assertTrue(resized.isComplete());
+        assertSame(resized, MultiRowInsertLayout.get(sql, 10));
+
+        assertNull(MultiRowInsertLayout.get("INSERT INTO cache_city SELECT * FROM city", 2));
+        assertNull(MultiRowInsertLayout.get("INSERT INTO cache_city SELECT * FROM city", 10));
+    }
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return Collections.unmodifiableMap(row);
+    }
+}
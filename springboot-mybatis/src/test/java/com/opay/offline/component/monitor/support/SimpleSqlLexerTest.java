@@ -0,0 +1,233 @@
+package com.opay.offline.component.monitor.support;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 手写词法快速路径测试 - {@link SimpleSqlLexer}
+ * <p>
+ * 快速路径命中与否，analyzeSqlParams 的输出都必须与 Druid 全量解析一致
+ */
+public class SimpleSqlLexerTest {
+
+    private static final List<String> SIMPLE = Arrays.asList(
+            "UPDATE city SET city_name = 'a', description = ? WHERE id = 1",
+            "update `city` set `province_id` = 2 where id in (1, 2, ?) and city_name like 'a%'",
+            "DELETE FROM city WHERE id = ? OR description IS NOT NULL",
+            "delete from city",
+            "INSERT INTO city (id, city_name) VALUES (?, 'b'), (2, NULL)",
+            "insert into city values (1, 'it''s')",
+            "SELECT * FROM city WHERE province_id >= 3 ORDER BY id DESC LIMIT 10",
+            "select id, city_name as name from city where city_name not in ('a', 'b') limit ?, ?",
+            "SELECT id FROM city WHERE id <> 3 AND description = '中文 ?' LIMIT 5 OFFSET ?;");
+
+    private static final List<String> COMPLEX = Arrays.asList(
+            "SELECT c.id FROM city c JOIN province p ON c.province_id = p.id WHERE p.id = 1",
+            "SELECT * FROM city WHERE id IN (SELECT city_id FROM hot_city)",
+            "UPDATE city SET hits = hits + 1 WHERE id = ?",
+            "DELETE FROM city WHERE (id = 1 OR id = 2) AND province_id = 3",
+            "SELECT count(*) FROM city",
+            "INSERT INTO city (id) VALUES (1) ON DUPLICATE KEY UPDATE id = 2",
+            "SELECT * FROM city WHERE city_name = 'a\\'b'",
+            "SELECT * FROM city /* hint */ WHERE id = 1");
+
+    @Test
+    public void recognisesSimpleStatements() {
+        for (String sql : SIMPLE) {
+            assertNotNull(sql, SimpleSqlLexer.parse(sql));
+            assertSameAsDruid(sql);
+        }
+    }
+
+    @Test
+    public void fallsBackOnComplexStatements() {
+        for (String sql : COMPLEX) {
+            assertNull(sql, SimpleSqlLexer.parse(sql));
+            assertSameAsDruid(sql);
+        }
+    }
+
+    @Test
+    public void matchesDruidOnGeneratedCorpus() {
+        Generator generator = new Generator(new Random(42));
+        int hits = 0;
+        for (int i = 0; i < 5000; i++) {
+            String sql = generator.statement();
+            if (SimpleSqlLexer.parse(sql) != null) {
+                hits++;
+            }
+            assertSameAsDruid(sql);
+        }
+        // 语料中须有足够多的语句走快速路径，否则对比没有意义
+        assertTrue("fast path hits: " + hits, hits > 200);
+    }
+
+    /**
+     * 带 ? 的原始 SQL 生成的模板填入绑定值后，应与拼装出的可执行 SQL 经 Druid 解析的结果一致
+     */
+    @Test
+    public void templateFillMatchesDruidOnExecutableSql() {
+        Generator generator = new Generator(new Random(7));
+        int filled = 0;
+        for (int i = 0; i < 5000; i++) {
+            String sql = generator.statement();
+            if (SimpleSqlLexer.parse(sql) == null) {
+                continue;
+            }
+            DruidSqlParserHelper.SqlParamTemplate template = DruidSqlParserHelper.getTemplate(sql);
+            if (template == null) {
+                continue;
+            }
+            List<Object> values = bindValues(sql);
+            DruidSqlParserHelper.SqlParamAnalysis fromTemplate = template.fill(values);
+            String executableSql = SqlBuilderUtils.buildExecutableSql(sql, values);
+            DruidSqlParserHelper.SqlParamAnalysis fromDruid = DruidSqlParserHelper.analyzeSqlParams(executableSql, false);
+            assertEquals(sql, render(fromDruid), render(fromTemplate));
+            filled++;
+        }
+        assertTrue("template fills: " + filled, filled > 200);
+    }
+
+    private static void assertSameAsDruid(String sql) {
+        assertEquals(sql, render(DruidSqlParserHelper.analyzeSqlParams(sql, false)),
+                render(DruidSqlParserHelper.analyzeSqlParams(sql, true)));
+    }
+
+    private static String render(DruidSqlParserHelper.SqlParamAnalysis analysis) {
+        return analysis.getAllParams() + "|" + analysis.getWhereParams();
+    }
+
+    private static List<Object> bindValues(String sql) {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                switch (values.size() % 5) {
+                    case 0:
+                        values.add("v" + values.size());
+                        break;
+                    case 1:
+                        values.add(values.size());
+                        break;
+                    case 2:
+                        values.add(null);
+                        break;
+                    case 3:
+                        values.add(2.5);
+                        break;
+                    default:
+                        values.add("x'y");
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 随机拼装语句：覆盖大小写、反引号、各类比较符与字面量，以及快速路径不支持而必须回退的写法
+     */
+    private static final class Generator {
+
+        private final Random random;
+
+        Generator(Random random) {
+            this.random = random;
+        }
+
+        String statement() {
+            switch (random.nextInt(4)) {
+                case 0:
+                    return update();
+                case 1:
+                    return pick("delete from ", "DELETE FROM ") + pick("city", "`city`", "city t") + where() + pick("", ";");
+                case 2:
+                    return insert();
+                default:
+                    return "select " + pick("*", "id, city_name", "id as i, c.name", "count(*)", "price * 2", "t.*", "distinct id")
+                            + " from " + pick("city", "city c", "city join p on city.id = p.cid", "(select 1) t") + where()
+                            + pick("", " order by id", " ORDER BY id desc, name asc", " group by id")
+                            + pick("", " limit 10", " limit ?, ?", " LIMIT 5 OFFSET ?", " for update");
+            }
+        }
+
+        private String update() {
+            StringBuilder sb = new StringBuilder(pick("update ", "UPDATE ") + pick("city", "db.city", "`city`", "city c") + " set ");
+            int n = 1 + random.nextInt(3);
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(column()).append(" = ").append(random.nextInt(8) == 0 ? column() + " + 1" : value());
+            }
+            return sb + where() + pick("", ";", " ; ", "; select 1");
+        }
+
+        private String insert() {
+            StringBuilder sb = new StringBuilder("insert into city " + pick("", "(a, b)", "(`a`,b,c)") + " values ");
+            int rows = 1 + random.nextInt(3);
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append('(').append(value()).append(", ").append(value()).append(')');
+            }
+            return sb + pick("", " on duplicate key update a = 1");
+        }
+
+        private String where() {
+            if (random.nextInt(5) == 0) {
+                return "";
+            }
+            StringBuilder sb = new StringBuilder(pick(" where ", " WHERE\n\t"));
+            int n = 1 + random.nextInt(3);
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    sb.append(pick(" and ", " OR ", " AND "));
+                }
+                sb.append(predicate());
+            }
+            return sb.toString();
+        }
+
+        private String predicate() {
+            switch (random.nextInt(8)) {
+                case 0:
+                    return column() + " " + pick("IN", "not in", "in") + " (" + value()
+                            + (random.nextBoolean() ? ", " + value() : "") + (random.nextBoolean() ? "," + value() : "") + ")";
+                case 1:
+                    return column() + " " + pick("like", "NOT LIKE") + " " + value();
+                case 2:
+                    return column() + " is " + pick("", "not ") + pick("null", "NULL", "1");
+                case 3:
+                    return value() + " = " + column();
+                case 4:
+                    return "(" + column() + " = " + value() + ")";
+                case 5:
+                    return column() + " between " + value() + " and " + value();
+                default:
+                    return column() + pick("=", "<>", "!=", "<", ">", "<=", ">=", "<=>", " = ", "==") + value();
+            }
+        }
+
+        private String column() {
+            return pick("id", "city_name", "`province_id`", "c.description", "status", "`t`.`x`", "Name", "AS", "ASC");
+        }
+
+        private String value() {
+            return pick("?", "?", "1", "0", "12.50", "-3", "007", "1e3", "'abc'", "''", "'it''s'", "'a\\'b'", "'中文 ?'",
+                    "NULL", "null", "true", "x", "now()", "'  sp '", "1.", "99999999999999999999", ".5", "0x1F", "'a,b'");
+        }
+
+        private String pick(String... options) {
+            return options[random.nextInt(options.length)];
+        }
+    }
+}